@@ -6,19 +6,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
 import uk.gov.companieshouse.registers.util.EmptyFieldDeserializer;
 import uk.gov.companieshouse.registers.util.LocalDateDeSerializer;
 import uk.gov.companieshouse.registers.util.LocalDateSerializer;
 import uk.gov.companieshouse.registers.util.RegistersReadConverter;
 import uk.gov.companieshouse.registers.util.RegistersWriteConverter;
+import uk.gov.companieshouse.registers.util.SingleFlight;
 
 @Configuration
 public class Config {
@@ -28,6 +34,24 @@ public class Config {
         return Instant::now;
     }
 
+    /**
+     * Coalesces concurrent GETs for the same company into a single MongoDB read.
+     *
+     * @return SingleFlight keyed by company number.
+     */
+    @Bean
+    public SingleFlight<String, Optional<CompanyRegistersDocument>> registersSingleFlight(
+            MeterRegistry meterRegistry) {
+        SingleFlight<String, Optional<CompanyRegistersDocument>> singleFlight = new SingleFlight<>();
+        FunctionCounter.builder("registers.get.single_flight.executed", singleFlight, SingleFlight::executedCount)
+                .register(meterRegistry);
+        FunctionCounter.builder("registers.get.single_flight.joined", singleFlight, SingleFlight::joinedCount)
+                .register(meterRegistry);
+        Gauge.builder("registers.get.single_flight.collapse_ratio", singleFlight, SingleFlight::collapseRatio)
+                .register(meterRegistry);
+        return singleFlight;
+    }
+
     /**
      * mongoCustomConversions.
      *
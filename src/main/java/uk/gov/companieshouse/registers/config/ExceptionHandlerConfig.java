@@ -6,6 +6,8 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,7 +20,9 @@ import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.registers.exception.BadRequestException;
 import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
 
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @ControllerAdvice
 public class ExceptionHandlerConfig {
 
@@ -55,6 +59,8 @@ public class ExceptionHandlerConfig {
             WebRequest request) {
         LOGGER.info("Service unavailable, response code: %s".formatted(HttpStatus.SERVICE_UNAVAILABLE),
                 DataMapHolder.getLogMap());
+        // MongoDB failed or the request ran out of time, so the concurrency limit backs off
+        OverloadSignal.raiseCurrent();
 
         Map<String, Object> responseBody = new LinkedHashMap<>();
         responseBody.put("timestamp", LocalDateTime.now());
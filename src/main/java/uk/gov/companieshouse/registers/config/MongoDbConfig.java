@@ -1,10 +1,20 @@
 package uk.gov.companieshouse.registers.config;
 
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoConnectionPoolTagsProvider;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import uk.gov.companieshouse.registers.util.DeadlineMongoDatabaseFactory;
 
 @Configuration
 public class MongoDbConfig implements InitializingBean {
@@ -20,4 +30,42 @@ public class MongoDbConfig implements InitializingBean {
     public void afterPropertiesSet() {
         mappingMongoConverter.setTypeMapper(new DefaultMongoTypeMapper(null));
     }
+
+    /**
+     * Caps the main connection pool, which serves writes and background jobs, when GETs have a pool of their own.
+     * MongoRegistersConfig applies this to its client too, so the cap is set here only.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "registers.lanes.enabled", havingValue = "true")
+    public MongoClientSettingsBuilderCustomizer writeLanePoolSize(
+            @Value("${registers.lanes.write.mongo-pool-size}") int poolSize) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool.maxSize(poolSize));
+    }
+
+    /**
+     * Tags the main connection pool metrics lane=write, alongside the lane=read pool of MongoReadLane. Used by the pool
+     * listener that metrics auto-configuration adds to the main client through a customizer.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "registers.lanes.enabled", havingValue = "true")
+    public MongoConnectionPoolTagsProvider writeLanePoolTags() {
+        DefaultMongoConnectionPoolTagsProvider defaults = new DefaultMongoConnectionPoolTagsProvider();
+        return event -> Tags.concat(defaults.connectionPoolTags(event), "lane", "write");
+    }
+
+    /**
+     * Bounds MongoDB operations made for a request by its deadline, by wrapping the database factory that the
+     * MongoTemplate and transaction manager are built on.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "registers.deadlines.enabled", havingValue = "true")
+    public static BeanPostProcessor deadlineMongoDatabaseFactory() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof MongoDatabaseFactory factory && !(bean instanceof DeadlineMongoDatabaseFactory)
+                        ? new DeadlineMongoDatabaseFactory(factory) : bean;
+            }
+        };
+    }
 }
@@ -4,8 +4,11 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
@@ -13,7 +16,11 @@ import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
-@ConditionalOnProperty(name = "mongodb.company_registers.company_registers", havingValue = "true")
+/**
+ * Transactional MongoDB configuration. The outbox writes its events in the same transaction as the document change,
+ * so enabling it brings this configuration in as well.
+ */
+@ConditionalOnExpression("${mongodb.company_registers.company_registers:false} or ${registers.outbox.enabled:false}")
 @Configuration
 @EnableTransactionManagement
 public class MongoRegistersConfig extends AbstractMongoClientConfiguration {
@@ -24,6 +31,9 @@ public class MongoRegistersConfig extends AbstractMongoClientConfiguration {
     @Value("${spring.data.mongodb.uri}")
     private String databaseUri;
 
+    @Autowired
+    private ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers;
+
     @Bean
     MongoTransactionManager transactionManager(MongoDatabaseFactory dbFactory) {
         return new MongoTransactionManager(dbFactory);
@@ -42,9 +52,11 @@ public class MongoRegistersConfig extends AbstractMongoClientConfiguration {
     public MongoClient mongoClient() {
         final ConnectionString connectionString =
                 new ConnectionString(getDatabaseUri());
-        final MongoClientSettings mongoClientSettings = MongoClientSettings.builder()
-                .applyConnectionString(connectionString)
-                .build();
-        return MongoClients.create(mongoClientSettings);
+        final MongoClientSettings.Builder mongoClientSettings = MongoClientSettings.builder()
+                .applyConnectionString(connectionString);
+        // the customizers an auto-configured client would get, such as the connection pool metrics listener and the
+        // execution lane settings of MongoDbConfig
+        customizers.orderedStream().forEach(customizer -> customizer.customize(mongoClientSettings));
+        return MongoClients.create(mongoClientSettings.build());
     }
 }
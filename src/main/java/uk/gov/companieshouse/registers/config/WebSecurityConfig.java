@@ -1,6 +1,8 @@
 package uk.gov.companieshouse.registers.config;
 
 import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -16,6 +18,7 @@ import org.springframework.security.web.csrf.CsrfFilter;
 import uk.gov.companieshouse.api.filter.CustomCorsFilter;
 import uk.gov.companieshouse.registers.service.AuthenticationFilter;
 
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -0,0 +1,75 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+import uk.gov.companieshouse.registers.service.RegistersService;
+import uk.gov.companieshouse.registers.service.RegistersWriteExecutor;
+
+/**
+ * PUT and DELETE, run on RegistersWriteExecutor when it is enabled. The container thread is handed back while the
+ * write runs and the response is sent from an async dispatch.
+ */
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "registers.write-executor.enabled", havingValue = "true")
+@RestController
+public class AsyncRegistersWriteController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final RegistersService service;
+    private final HotKeyTracker hotKeyTracker;
+    private final RegistersWriteExecutor writeExecutor;
+    private final long retryAfterSeconds;
+
+    public AsyncRegistersWriteController(RegistersService service, HotKeyTracker hotKeyTracker,
+            RegistersWriteExecutor writeExecutor,
+            @Value("${chs.kafka.api.circuit-breaker.open-duration-ms}") long circuitOpenMillis) {
+        this.service = service;
+        this.hotKeyTracker = hotKeyTracker;
+        this.writeExecutor = writeExecutor;
+        this.retryAfterSeconds = RegistersWriteController.retryAfterSeconds(circuitOpenMillis);
+    }
+
+    @PutMapping("/company/{company_number}/registers")
+    public CompletableFuture<ResponseEntity<Void>> companyRegistersUpsert(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody InternalRegisters requestBody) {
+        DataMapHolder.get().companyNumber(companyNumber);
+        LOGGER.info("Upserting company registers", DataMapHolder.getLogMap());
+        hotKeyTracker.record(Operation.PUT, companyNumber);
+
+        return writeExecutor.submit(companyNumber, () -> service.upsertCompanyRegisters(companyNumber, requestBody))
+                .thenApply(serviceStatus -> RegistersWriteController.upsertResponse(serviceStatus, retryAfterSeconds));
+    }
+
+    @DeleteMapping("/company/{company_number}/registers")
+    public CompletableFuture<ResponseEntity<CompanyRegistersDocument>> companyRegistersDelete(
+            @PathVariable("company_number") String companyNumber,
+            @RequestHeader(value = "X-DELTA-AT", required = false) String deltaAt) {
+        DataMapHolder.get().companyNumber(companyNumber);
+        LOGGER.info("Deleting company registers", DataMapHolder.getLogMap());
+        hotKeyTracker.record(Operation.DELETE, companyNumber);
+
+        return writeExecutor.submit(companyNumber, () -> service.deleteCompanyRegisters(companyNumber, deltaAt))
+                .thenApply(serviceStatus -> RegistersWriteController.deleteResponse(serviceStatus, retryAfterSeconds));
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.registers.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.service.DeadLetterRedrive;
+import uk.gov.companieshouse.registers.service.DeadLetterRedrive.Progress;
+import uk.gov.companieshouse.registers.service.ResourceChangedDeadLetters;
+
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLettersEndpoint {
+
+    private final ResourceChangedDeadLetters deadLetters;
+    private final DeadLetterRedrive redrive;
+    private final int defaultLimit;
+
+    public DeadLettersEndpoint(ResourceChangedDeadLetters deadLetters, DeadLetterRedrive redrive,
+            @Value("${registers.dead-letters.redrive.default-limit}") int defaultLimit) {
+        this.deadLetters = deadLetters;
+        this.redrive = redrive;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public DeadLetters deadLetters() {
+        return new DeadLetters(deadLetters.count(), redrive.progress());
+    }
+
+    /**
+     * Starts a redrive in the background; its progress is returned by a read.
+     */
+    @WriteOperation
+    public Progress redrive(@Nullable Integer limit) {
+        return redrive.start(limit == null ? defaultLimit : limit);
+    }
+
+    @DeleteOperation
+    public void cancel() {
+        redrive.cancel();
+    }
+
+    /**
+     * @param redrive the progress of this node's current or last redrive, or null if none has run
+     */
+    public record DeadLetters(long count, Progress redrive) {
+    }
+}
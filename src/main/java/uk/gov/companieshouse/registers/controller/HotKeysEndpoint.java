@@ -0,0 +1,31 @@
+package uk.gov.companieshouse.registers.controller;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.HotKey;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+
+@Component
+@Endpoint(id = "hotkeys")
+public class HotKeysEndpoint {
+
+    private final HotKeyTracker hotKeyTracker;
+
+    public HotKeysEndpoint(HotKeyTracker hotKeyTracker) {
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    @ReadOperation
+    public Map<Operation, List<HotKey>> hotKeys() {
+        Map<Operation, List<HotKey>> hotKeys = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            hotKeys.put(operation, hotKeyTracker.top(operation));
+        }
+        return hotKeys;
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.registers.controller;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.Progress;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.ReemitFilter;
+
+@Component
+@Endpoint(id = "reemit")
+public class ReemitEndpoint {
+
+    private final ResourceChangedReemit reemit;
+
+    public ReemitEndpoint(ResourceChangedReemit reemit) {
+        this.reemit = reemit;
+    }
+
+    @ReadOperation
+    public Progress progress() {
+        return reemit.progress();
+    }
+
+    /**
+     * @param updatedFrom ISO-8601 instant, inclusive
+     * @param updatedTo   ISO-8601 instant, exclusive
+     * @throws InvalidEndpointRequestException, reported as 400, if either instant cannot be parsed or the range is
+     *         empty
+     */
+    @WriteOperation
+    public Progress start(@Nullable String updatedFrom, @Nullable String updatedTo,
+            @Nullable String companyNumberPrefix, @Nullable Boolean resume) {
+        Instant from = parse("updatedFrom", updatedFrom);
+        Instant to = parse("updatedTo", updatedTo);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidEndpointRequestException("updatedFrom must be before updatedTo",
+                    "Empty updated range");
+        }
+        return reemit.start(new ReemitFilter(from, to, companyNumberPrefix), Boolean.TRUE.equals(resume));
+    }
+
+    @DeleteOperation
+    public void cancel() {
+        reemit.cancel();
+    }
+
+    private static Instant parse(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException ex) {
+            throw new InvalidEndpointRequestException("%s is not an ISO-8601 instant: %s".formatted(name, value),
+                    "Invalid " + name);
+        }
+    }
+}
@@ -2,78 +2,83 @@ package uk.gov.companieshouse.registers.controller;
 
 import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
 
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
-import org.springframework.http.HttpStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
-import uk.gov.companieshouse.api.registers.CompanyRegister;
-import uk.gov.companieshouse.api.registers.InternalRegisters;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.registers.logging.DataMapHolder;
 import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
-import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
 import uk.gov.companieshouse.registers.service.RegistersService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
 
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RestController
 public class RegistersController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String STALE_HEADER = "X-Stale-Response";
 
     private final RegistersService service;
+    private final HotKeyTracker hotKeyTracker;
+    private final RegistersSnapshotService snapshotService;
 
-    public RegistersController(RegistersService service) {
+    public RegistersController(RegistersService service, HotKeyTracker hotKeyTracker,
+            RegistersSnapshotService snapshotService) {
         this.service = service;
+        this.hotKeyTracker = hotKeyTracker;
+        this.snapshotService = snapshotService;
     }
 
     @GetMapping("/company/{company_number}/registers")
-    public ResponseEntity<CompanyRegister> companyRegistersGet(@PathVariable("company_number") String companyNumber) {
+    public ResponseEntity<Object> companyRegistersGet(@PathVariable("company_number") String companyNumber) {
         DataMapHolder.get().companyNumber(companyNumber);
         LOGGER.info("Getting company registers", DataMapHolder.getLogMap());
+        hotKeyTracker.record(Operation.GET, companyNumber);
 
-        Optional<CompanyRegistersDocument> document = service.getCompanyRegisters(companyNumber);
+        Optional<CompanyRegistersDocument> document;
+        try {
+            document = service.getCompanyRegisters(companyNumber);
+        } catch (ServiceUnavailableException ex) {
+            // MongoDB is unreachable, so serve the last snapshot if it holds this company, flagged as stale
+            Optional<SnapshotEntry> entry = snapshotService.find(companyNumber);
+            if (entry.isEmpty()) {
+                throw ex;
+            }
+            LOGGER.info("Serving company registers from snapshot", DataMapHolder.getLogMap());
+            return staleResponse(entry.get());
+        }
 
-        return document.map(companyRegistersDocument -> ResponseEntity.ok().body(companyRegistersDocument.getData())).
+        return document.<ResponseEntity<Object>>map(
+                        companyRegistersDocument -> ResponseEntity.ok().body(companyRegistersDocument.getData())).
                 orElseGet(() -> ResponseEntity.notFound().build());
     }
 
-    @PutMapping("/company/{company_number}/registers")
-    public ResponseEntity<Void> companyRegistersUpsert(
-            @PathVariable("company_number") String companyNumber,
-            @RequestBody InternalRegisters requestBody) {
-        DataMapHolder.get().companyNumber(companyNumber);
-        LOGGER.info("Upserting company registers", DataMapHolder.getLogMap());
-
-        ServiceStatus serviceStatus = service.upsertCompanyRegisters(companyNumber, requestBody);
-
-        if (serviceStatus.equals(ServiceStatus.SERVER_ERROR)) {
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-        } else if (serviceStatus.equals(ServiceStatus.CLIENT_ERROR)) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        } else {
-            return ResponseEntity.ok().build();
-        }
-    }
-
-    @DeleteMapping("/company/{company_number}/registers")
-    public ResponseEntity<CompanyRegistersDocument> companyRegistersDelete(
-            @PathVariable("company_number") String companyNumber) {
-        DataMapHolder.get().companyNumber(companyNumber);
-        LOGGER.info("Deleting company registers", DataMapHolder.getLogMap());
-
-        ServiceStatus serviceStatus = service.deleteCompanyRegisters(companyNumber);
-
-        if (serviceStatus.equals(ServiceStatus.SERVER_ERROR)) {
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
-        } else if (serviceStatus.equals(ServiceStatus.CLIENT_ERROR)) {
-            return ResponseEntity.notFound().build();
-        } else {
-            return ResponseEntity.ok().build();
-        }
+    /**
+     * The snapshot body with 200, an Age of the snapshot and an X-Stale-Response header. The body is a slice of the
+     * mapped file, which InputStreamResource copies into the response through an 8KB buffer.
+     */
+    private static ResponseEntity<Object> staleResponse(SnapshotEntry entry) {
+        long ageSeconds = Math.max(0, Duration.between(entry.snapshotAt(), Instant.now()).toSeconds());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(entry.body().remaining())
+                .header(HttpHeaders.AGE, String.valueOf(ageSeconds))
+                .header(STALE_HEADER, "true")
+                .body(new InputStreamResource(new ByteBufferBackedInputStream(entry.body())));
     }
 }
@@ -0,0 +1,108 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+import uk.gov.companieshouse.registers.service.RegistersService;
+
+/**
+ * PUT and DELETE, run on the container thread. Replaced by AsyncRegistersWriteController when the write executor is
+ * enabled. A write refused by the open chs-kafka-api circuit is answered with 503 and a Retry-After of the time the
+ * circuit stays open.
+ */
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "registers.write-executor.enabled", havingValue = "false", matchIfMissing = true)
+@RestController
+public class RegistersWriteController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final RegistersService service;
+    private final HotKeyTracker hotKeyTracker;
+    private final long retryAfterSeconds;
+
+    public RegistersWriteController(RegistersService service, HotKeyTracker hotKeyTracker,
+            @Value("${chs.kafka.api.circuit-breaker.open-duration-ms}") long circuitOpenMillis) {
+        this.service = service;
+        this.hotKeyTracker = hotKeyTracker;
+        this.retryAfterSeconds = retryAfterSeconds(circuitOpenMillis);
+    }
+
+    @PutMapping("/company/{company_number}/registers")
+    public ResponseEntity<Void> companyRegistersUpsert(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody InternalRegisters requestBody) {
+        DataMapHolder.get().companyNumber(companyNumber);
+        LOGGER.info("Upserting company registers", DataMapHolder.getLogMap());
+        hotKeyTracker.record(Operation.PUT, companyNumber);
+
+        return upsertResponse(service.upsertCompanyRegisters(companyNumber, requestBody), retryAfterSeconds);
+    }
+
+    @DeleteMapping("/company/{company_number}/registers")
+    public ResponseEntity<CompanyRegistersDocument> companyRegistersDelete(
+            @PathVariable("company_number") String companyNumber,
+            @RequestHeader(value = "X-DELTA-AT", required = false) String deltaAt) {
+        DataMapHolder.get().companyNumber(companyNumber);
+        LOGGER.info("Deleting company registers", DataMapHolder.getLogMap());
+        hotKeyTracker.record(Operation.DELETE, companyNumber);
+
+        return deleteResponse(service.deleteCompanyRegisters(companyNumber, deltaAt), retryAfterSeconds);
+    }
+
+    static long retryAfterSeconds(long circuitOpenMillis) {
+        return Math.max(1, TimeUnit.MILLISECONDS.toSeconds(circuitOpenMillis + 999));
+    }
+
+    static ResponseEntity<Void> upsertResponse(ServiceStatus serviceStatus, long retryAfterSeconds) {
+        if (serviceStatus.equals(ServiceStatus.SERVER_ERROR)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } else if (serviceStatus.equals(ServiceStatus.CIRCUIT_OPEN)) {
+            return circuitOpen(retryAfterSeconds);
+        } else if (serviceStatus.equals(ServiceStatus.CLIENT_ERROR)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } else {
+            return ResponseEntity.ok().build();
+        }
+    }
+
+    static ResponseEntity<CompanyRegistersDocument> deleteResponse(ServiceStatus serviceStatus,
+            long retryAfterSeconds) {
+        if (serviceStatus.equals(ServiceStatus.SERVER_ERROR)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } else if (serviceStatus.equals(ServiceStatus.CIRCUIT_OPEN)) {
+            return circuitOpen(retryAfterSeconds);
+        } else if (serviceStatus.equals(ServiceStatus.CLIENT_ERROR)) {
+            return ResponseEntity.notFound().build();
+        } else {
+            return ResponseEntity.ok().build();
+        }
+    }
+
+    private static <T> ResponseEntity<T> circuitOpen(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
+}
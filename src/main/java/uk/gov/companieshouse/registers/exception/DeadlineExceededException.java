@@ -0,0 +1,7 @@
+package uk.gov.companieshouse.registers.exception;
+
+public class DeadlineExceededException extends ServiceUnavailableException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
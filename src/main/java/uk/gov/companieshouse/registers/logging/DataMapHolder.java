@@ -1,35 +1,118 @@
 package uk.gov.companieshouse.registers.logging;
 
 import java.util.Map;
-import uk.gov.companieshouse.logging.util.DataMap.Builder;
+import java.util.function.Supplier;
+import uk.gov.companieshouse.logging.util.DataMap;
 
+/**
+ * Holds the log context for the current thread. Each request runs on its own thread, platform or virtual, and
+ * RequestLoggingFilter clears the context when the request ends; work handed to another thread takes the context with
+ * {@link #capture()} and runs with it through {@link #runWith(RequestContext, Supplier)}.
+ * <p>
+ * The context is a request id and company number. The log map is built from them the first time it is needed and
+ * handed to every log entry of the thread until the company number is set, and the request id is read without building
+ * a map at all. The logger adds an error entry to the map it is given when logging an exception, so the map is rebuilt
+ * the next time it is needed once it holds more than the context.
+ */
 public class DataMapHolder {
 
-    private static final ThreadLocal<Builder> DATAMAP_BUILDER
-            = ThreadLocal.withInitial(() -> new Builder().requestId("uninitialised"));
+    private static final String UNINITIALISED = "uninitialised";
+
+    private static final ThreadLocal<RequestContext> CONTEXT = new ThreadLocal<>();
 
     public static void initialise(String requestId) {
-        DATAMAP_BUILDER.get().requestId(requestId);
+        RequestContext context = get();
+        context.requestId = requestId;
+        context.logMap = null;
     }
 
     private DataMapHolder() {
     }
 
     public static void clear() {
-        DATAMAP_BUILDER.remove();
+        CONTEXT.remove();
     }
 
-    public static Builder get() {
-        return DATAMAP_BUILDER.get();
+    public static RequestContext get() {
+        RequestContext context = CONTEXT.get();
+        if (context == null) {
+            context = new RequestContext(UNINITIALISED, null);
+            CONTEXT.set(context);
+        }
+        return context;
     }
 
+    /**
+     * @return the current thread's log map, which is not to be handed to another thread
+     */
     public static Map<String, Object> getLogMap() {
-        return DATAMAP_BUILDER.get()
-                .build()
-                .getLogMap();
+        return get().logMap();
     }
 
     public static String getRequestId() {
-        return (String) getLogMap().get("request_id");
+        return get().requestId;
+    }
+
+    /**
+     * @return a copy of the current thread's context, to hand to another thread
+     */
+    public static RequestContext capture() {
+        RequestContext context = get();
+        return new RequestContext(context.requestId, context.companyNumber);
+    }
+
+    /**
+     * Runs the work with the given context, and puts back the thread's previous context afterwards.
+     */
+    public static <T> T runWith(RequestContext context, Supplier<T> work) {
+        RequestContext previous = CONTEXT.get();
+        CONTEXT.set(context);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CONTEXT.remove();
+            } else {
+                CONTEXT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * The log context of one request, confined to the thread handling it.
+     */
+    public static final class RequestContext {
+
+        private String requestId;
+        private String companyNumber;
+        private Map<String, Object> logMap;
+        private int logMapSize;
+
+        private RequestContext(String requestId, String companyNumber) {
+            this.requestId = requestId;
+            this.companyNumber = companyNumber;
+        }
+
+        public static RequestContext of(String requestId, String companyNumber) {
+            return new RequestContext(requestId, companyNumber);
+        }
+
+        public RequestContext companyNumber(String companyNumber) {
+            this.companyNumber = companyNumber;
+            this.logMap = null;
+            return this;
+        }
+
+        private Map<String, Object> logMap() {
+            if (logMap == null || logMap.size() != logMapSize) {
+                DataMap.Builder builder = new DataMap.Builder().requestId(requestId);
+                if (companyNumber != null) {
+                    builder.companyNumber(companyNumber);
+                }
+                logMap = builder.build().getLogMap();
+                logMapSize = logMap.size();
+            }
+            return logMap;
+        }
     }
 }
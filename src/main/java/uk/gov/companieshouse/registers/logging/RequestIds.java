@@ -0,0 +1,22 @@
+package uk.gov.companieshouse.registers.logging;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Request ids for requests that arrive without one. They are random version 4 UUIDs, as before, but drawn from
+ * ThreadLocalRandom rather than the SecureRandom behind {@link UUID#randomUUID()}, which is shared between threads and
+ * can block: a request id only has to be unique, not unpredictable.
+ */
+public final class RequestIds {
+
+    private RequestIds() {
+    }
+
+    public static String next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & ~0xf000L) | 0x4000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
@@ -13,7 +13,8 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Optional;
-import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,20 +24,34 @@ import uk.gov.companieshouse.logging.util.RequestLogger;
 import uk.gov.companieshouse.registers.exception.InternalServerErrorException;
 import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @Component
 @Order(value = HIGHEST_PRECEDENCE)
 public class RequestLoggingFilter extends OncePerRequestFilter implements RequestLogger {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String REQUEST_ID_ATTRIBUTE = RequestLoggingFilter.class.getName() + ".requestId";
+
+    /**
+     * Only AsyncRegistersWriteController, registered when the write executor is enabled, answers in an async
+     * dispatch; every other request is handled in a single dispatch as before.
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
 
     @Override
     protected void doFilterInternal(@Nonnull HttpServletRequest request,
             @Nonnull HttpServletResponse response,
             @Nonnull FilterChain filterChain) throws ServletException, IOException {
-        logStartRequestProcessing(request, LOGGER);
-        DataMapHolder.initialise(Optional
-                .ofNullable(request.getHeader(REQUEST_ID.value()))
-                .orElse(UUID.randomUUID().toString()));
+        if (!isAsyncDispatch(request)) {
+            logStartRequestProcessing(request, LOGGER);
+            request.setAttribute(REQUEST_ID_ATTRIBUTE, Optional
+                    .ofNullable(request.getHeader(REQUEST_ID.value()))
+                    .orElseGet(RequestIds::next));
+        }
+        DataMapHolder.initialise((String) request.getAttribute(REQUEST_ID_ATTRIBUTE));
         try {
             filterChain.doFilter(request, response);
         } catch (ServiceUnavailableException | InternalServerErrorException ex) {
@@ -47,7 +62,10 @@ public class RequestLoggingFilter extends OncePerRequestFilter implements Reques
             LOGGER.error(ex.getMessage(), ex, DataMapHolder.getLogMap());
             throw ex;
         } finally {
-            logEndRequestProcessing(request, response, LOGGER);
+            // an asynchronous PUT or DELETE completes in a later dispatch, which logs the end of the request
+            if (!isAsyncStarted(request)) {
+                logEndRequestProcessing(request, response, LOGGER);
+            }
             DataMapHolder.clear();
         }
     }
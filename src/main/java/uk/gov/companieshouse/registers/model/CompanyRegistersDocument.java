@@ -1,5 +1,6 @@
 package uk.gov.companieshouse.registers.model;
 
+import java.time.Instant;
 import java.util.Objects;
 import javax.persistence.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -22,6 +23,12 @@ public class CompanyRegistersDocument {
 
     private Updated updated;
 
+    @Field("content_hash")
+    private String contentHash;
+
+    @Field("tombstoned_at")
+    private Instant tombstonedAt;
+
     public String getId() {
         return id;
     }
@@ -67,6 +74,31 @@ public class CompanyRegistersDocument {
         return this;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public CompanyRegistersDocument setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+        return this;
+    }
+
+    public Instant getTombstonedAt() {
+        return tombstonedAt;
+    }
+
+    public CompanyRegistersDocument setTombstonedAt(Instant tombstonedAt) {
+        this.tombstonedAt = tombstonedAt;
+        return this;
+    }
+
+    /**
+     * @return true if this is what a delete left behind rather than company registers
+     */
+    public boolean isTombstone() {
+        return tombstonedAt != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -76,11 +108,11 @@ public class CompanyRegistersDocument {
             return false;
         }
         CompanyRegistersDocument document = (CompanyRegistersDocument) o;
-        return Objects.equals(id, document.id) && Objects.equals(created, document.created) && Objects.equals(data, document.data) && Objects.equals(deltaAt, document.deltaAt) && Objects.equals(updated, document.updated);
+        return Objects.equals(id, document.id) && Objects.equals(created, document.created) && Objects.equals(data, document.data) && Objects.equals(deltaAt, document.deltaAt) && Objects.equals(updated, document.updated) && Objects.equals(contentHash, document.contentHash) && Objects.equals(tombstonedAt, document.tombstonedAt);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, created, data, deltaAt, updated);
+        return Objects.hash(id, created, data, deltaAt, updated, contentHash, tombstonedAt);
     }
 }
@@ -1,5 +1,15 @@
 package uk.gov.companieshouse.registers.model;
 
-public record ResourceChangedRequest(String companyNumber, Object registersData, Boolean isDelete) {
+import java.util.List;
 
+/**
+ * @param fieldsChanged the register sections changed by an upsert, or null if unknown, in which case consumers should
+ *                      treat the whole resource as changed
+ */
+public record ResourceChangedRequest(String companyNumber, Object registersData, Boolean isDelete,
+                                     List<String> fieldsChanged) {
+
+    public ResourceChangedRequest(String companyNumber, Object registersData, Boolean isDelete) {
+        this(companyNumber, registersData, isDelete, null);
+    }
 }
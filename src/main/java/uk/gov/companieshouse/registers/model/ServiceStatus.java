@@ -3,5 +3,6 @@ package uk.gov.companieshouse.registers.model;
 public enum ServiceStatus {
     SUCCESS,
     CLIENT_ERROR,
-    SERVER_ERROR
+    SERVER_ERROR,
+    CIRCUIT_OPEN
 }
@@ -1,14 +1,52 @@
 package uk.gov.companieshouse.registers.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.api.InternalApiClient;
+import uk.gov.companieshouse.registers.util.PooledApiClient;
 import uk.gov.companieshouse.sdk.manager.ApiSdkManager;
 
 @Component
 public class ApiClientService {
 
+    private final boolean pooledClientEnabled;
+    private final PooledApiClient pooledApiClient;
+
+    public ApiClientService(@Value("${chs.kafka.api.pooled-client.enabled}") boolean pooledClientEnabled,
+            @Value("${chs.kafka.api.endpoint}") String chsKafkaUrl,
+            @Value("${chs.kafka.api.key}") String apiKey,
+            @Value("${chs.kafka.api.pooled-client.connect-timeout-ms}") long connectTimeoutMillis,
+            @Value("${chs.kafka.api.pooled-client.read-timeout-ms}") long readTimeoutMillis,
+            @Value("${chs.kafka.api.pooled-client.max-connections}") int maxConnections,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.pooledClientEnabled = pooledClientEnabled;
+        this.pooledApiClient = new PooledApiClient(chsKafkaUrl, apiKey, Duration.ofMillis(connectTimeoutMillis),
+                Duration.ofMillis(readTimeoutMillis), maxConnections, objectMapper);
+        Gauge.builder("registers.chs_kafka_api.connections.in_use", pooledApiClient, PooledApiClient::getInUse)
+                .register(meterRegistry);
+        Gauge.builder("registers.chs_kafka_api.connections.waiting", pooledApiClient, PooledApiClient::getWaiting)
+                .register(meterRegistry);
+        Gauge.builder("registers.chs_kafka_api.connections.max", pooledApiClient,
+                        PooledApiClient::getMaxConnections)
+                .register(meterRegistry);
+    }
+
     public InternalApiClient getInternalApiClient() {
         return ApiSdkManager.getPrivateSDK();
     }
 
+    public boolean isPooledClientEnabled() {
+        return pooledClientEnabled;
+    }
+
+    /**
+     * The shared chs-kafka-api client. Safe to use from any thread; its base path is fixed at startup.
+     */
+    public PooledApiClient getPooledApiClient() {
+        return pooledApiClient;
+    }
 }
@@ -7,6 +7,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.ArrayUtils;
@@ -19,6 +20,8 @@ import uk.gov.companieshouse.registers.logging.DataMapHolder;
 public class AuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    // management endpoints, which any key could otherwise read with a GET
+    private static final List<String> INTERNAL_PATHS = List.of("/hotkeys", "/deadletters", "/reemit");
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -54,11 +57,15 @@ public class AuthenticationFilter extends OncePerRequestFilter {
     private boolean isKeyAuthorised(HttpServletRequest request, String ericIdentityType) {
         String[] privileges = getApiKeyPrivileges(request);
 
-        return request.getMethod().equals("GET")
+        return (request.getMethod().equals("GET") && !isInternalPath(request.getRequestURI()))
                 || (ericIdentityType.equalsIgnoreCase("key")
                 && ArrayUtils.contains(privileges, "internal-app"));
     }
 
+    static boolean isInternalPath(String path) {
+        return path != null && INTERNAL_PATHS.stream().anyMatch(path::startsWith);
+    }
+
     private String[] getApiKeyPrivileges(HttpServletRequest request) {
         String commaSeparatedPrivilegeString = request.getHeader("ERIC-Authorised-Key-Privileges");
 
@@ -0,0 +1,176 @@
+package uk.gov.companieshouse.registers.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+/**
+ * Optional micro-batching of GET lookups. Lookups arriving within a short window are collected into a single
+ * findAllById ($in) query and the results fanned back out to the waiting callers.
+ * <p>
+ * There is no dispatcher thread: the first caller into an empty batch becomes its leader, waits for the window to
+ * elapse (or for the batch to fill up), then runs the query on its own thread on behalf of everyone in the batch.
+ * The query goes through MongoReadLane when GETs have a connection pool of their own. It runs under the latest
+ * deadline of the callers in the batch, or with none if one of them has no deadline, so that the leader's own deadline
+ * does not cut short a query that others are still waiting for. Each caller waits for its result no longer than its
+ * own deadline.
+ */
+@Component
+public class BatchingRegistersLoader {
+
+    private final RegistersRepository repository;
+    private final MongoReadLane readLane;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Batch open;
+
+    public BatchingRegistersLoader(RegistersRepository repository, MongoReadLane readLane,
+            @Value("${registers.get.batching.enabled}") boolean enabled,
+            @Value("${registers.get.batching.window-micros}") long windowMicros,
+            @Value("${registers.get.batching.max-batch-size}") int maxBatchSize,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.readLane = readLane;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+        this.batchSizes = DistributionSummary.builder("registers.get.batch.size")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<CompanyRegistersDocument> load(String companyNumber) {
+        Batch batch;
+        boolean leader = false;
+        CompletableFuture<Optional<CompanyRegistersDocument>> result;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = new Batch();
+                leader = true;
+            }
+            batch = open;
+            result = batch.add(companyNumber, Deadline.current().orElse(null));
+            if (batch.size() >= maxBatchSize) {
+                open = null;
+                batch.full.countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (leader) {
+            awaitWindow(batch);
+            lock.lock();
+            try {
+                if (open == batch) {
+                    open = null;
+                }
+            } finally {
+                lock.unlock();
+            }
+            execute(batch);
+        }
+        return await(result);
+    }
+
+    private void awaitWindow(Batch batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Batch batch) {
+        batchSizes.record(batch.size());
+        Deadline.withDeadline(batch.deadline(), () -> {
+            query(batch);
+            return null;
+        });
+    }
+
+    private void query(Batch batch) {
+        try {
+            Map<String, CompanyRegistersDocument> found = new HashMap<>();
+            Iterable<CompanyRegistersDocument> documents = readLane.isEnabled()
+                    ? readLane.findAllById(batch.pending.keySet()) : repository.findAllById(batch.pending.keySet());
+            documents.forEach(document -> found.put(document.getId(), document));
+            batch.pending.forEach((companyNumber, future) ->
+                    future.complete(Optional.ofNullable(found.get(companyNumber))));
+        } catch (RuntimeException ex) {
+            batch.pending.values().forEach(future -> future.completeExceptionally(ex));
+        }
+    }
+
+    private static Optional<CompanyRegistersDocument> await(
+            CompletableFuture<Optional<CompanyRegistersDocument>> result) {
+        Optional<Deadline> deadline = Deadline.current();
+        try {
+            return deadline.isPresent()
+                    ? result.get(deadline.get().remaining().toNanos(), TimeUnit.NANOSECONDS) : result.get();
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException("Request deadline passed waiting for a batched lookup");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(ex.getCause());
+        }
+    }
+
+    private static class Batch {
+
+        // only mutated under the loader's lock, and only read by the leader once the batch has been closed
+        private final Map<String, CompletableFuture<Optional<CompanyRegistersDocument>>> pending =
+                new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private Deadline latest;
+        private boolean unbounded;
+
+        CompletableFuture<Optional<CompanyRegistersDocument>> add(String companyNumber, Deadline deadline) {
+            if (deadline == null) {
+                unbounded = true;
+            } else if (latest == null || deadline.isAfter(latest)) {
+                latest = deadline;
+            }
+            return pending.computeIfAbsent(companyNumber, key -> new CompletableFuture<>());
+        }
+
+        /**
+         * @return the latest deadline of the callers in the batch, or null if one of them has none
+         */
+        Deadline deadline() {
+            return unbounded ? null : latest;
+        }
+
+        int size() {
+            return pending.size();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.CircuitBreaker;
+import uk.gov.companieshouse.registers.util.CircuitBreaker.State;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+/**
+ * Optional circuit breaker and bulkhead around calls to chs-kafka-api, so that a slow or failing chs-kafka-api cannot
+ * tie up every request thread. While the circuit is open calls fail fast, and at most a fixed number of calls can be
+ * in flight at once; a call that cannot get a slot within a short wait is refused. A call refused by the open circuit
+ * returns CIRCUIT_OPEN, which PUT and DELETE report as 503 with a Retry-After of the open duration, and one refused by
+ * the bulkhead returns SERVER_ERROR; both leave outbox entries pending for the relay to retry.
+ * <p>
+ * Only a call that returns SERVER_ERROR, for a 5xx response or an I/O failure, counts against the breaker. A call
+ * that returns CLIENT_ERROR was answered, with a 4xx, so it counts as a success for the breaker and is not retried.
+ * Calls that return SERVER_ERROR are retried with exponential backoff and full jitter, each attempt passing through
+ * the breaker and bulkhead on its own. Retrying stops early once the circuit has opened, the request's deadline has
+ * passed or the total retry budget is spent. A write calls chs-kafka-api after releasing its company's lock, so backing
+ * off holds up only its own request. Callers whose failures are dead-lettered make a single attempt through
+ * {@link #callOnce(Supplier)} instead, as the redrive retries them off the request thread.
+ */
+@Component
+public class ChsKafkaApiGuard {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final boolean enabled;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final long maxWaitMillis;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxTotalNanos;
+    private final Counter retries;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    public ChsKafkaApiGuard(@Value("${chs.kafka.api.guard.enabled}") boolean enabled,
+            @Value("${chs.kafka.api.circuit-breaker.window-size}") int windowSize,
+            @Value("${chs.kafka.api.circuit-breaker.minimum-calls}") int minimumCalls,
+            @Value("${chs.kafka.api.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+            @Value("${chs.kafka.api.circuit-breaker.open-duration-ms}") long openDurationMillis,
+            @Value("${chs.kafka.api.circuit-breaker.half-open-permits}") int halfOpenPermits,
+            @Value("${chs.kafka.api.bulkhead.max-concurrent}") int maxConcurrent,
+            @Value("${chs.kafka.api.bulkhead.max-wait-ms}") long maxWaitMillis,
+            @Value("${chs.kafka.api.retry.max-attempts}") int maxAttempts,
+            @Value("${chs.kafka.api.retry.initial-backoff-ms}") long initialBackoffMillis,
+            @Value("${chs.kafka.api.retry.max-backoff-ms}") long maxBackoffMillis,
+            @Value("${chs.kafka.api.retry.max-total-ms}") long maxTotalMillis,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                Duration.ofMillis(openDurationMillis), halfOpenPermits, System::nanoTime,
+                (from, to) -> {
+                    meterRegistry.counter("registers.chs_kafka_api.circuit.transitions",
+                            "from", from.name().toLowerCase(), "to", to.name().toLowerCase()).increment();
+                    LOGGER.info("chs-kafka-api circuit breaker moved from %s to %s".formatted(from, to),
+                            DataMapHolder.getLogMap());
+                });
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxWaitMillis = maxWaitMillis;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxTotalNanos = TimeUnit.MILLISECONDS.toNanos(maxTotalMillis);
+        this.retries = meterRegistry.counter("registers.chs_kafka_api.retries");
+        this.circuitOpenRejections = meterRegistry.counter("registers.chs_kafka_api.rejected", "reason",
+                "circuit_open");
+        this.bulkheadFullRejections = meterRegistry.counter("registers.chs_kafka_api.rejected", "reason",
+                "bulkhead_full");
+        Gauge.builder("registers.chs_kafka_api.circuit.state", circuitBreaker, b -> b.getState().ordinal())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("registers.chs_kafka_api.bulkhead.in_use", bulkhead,
+                        b -> maxConcurrent - b.availablePermits())
+                .register(meterRegistry);
+    }
+
+    public ServiceStatus call(Supplier<ServiceStatus> apiCall) {
+        long giveUpAt = System.nanoTime() + maxTotalNanos;
+        ServiceStatus status = attempt(apiCall);
+        for (int attempt = 1; attempt < maxAttempts && ServiceStatus.SERVER_ERROR.equals(status); attempt++) {
+            if (circuitBreaker.getState() == State.OPEN || Deadline.isCurrentExpired()
+                    || !backOff(attempt, giveUpAt)) {
+                break;
+            }
+            retries.increment();
+            LOGGER.info("Retrying call to chs-kafka-api, attempt %d".formatted(attempt + 1),
+                    DataMapHolder.getLogMap());
+            status = attempt(apiCall);
+        }
+        return status;
+    }
+
+    /**
+     * Makes the call through the breaker and bulkhead without retrying it.
+     */
+    public ServiceStatus callOnce(Supplier<ServiceStatus> apiCall) {
+        return attempt(apiCall);
+    }
+
+    private ServiceStatus attempt(Supplier<ServiceStatus> apiCall) {
+        if (!enabled) {
+            return apiCall.get();
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            circuitOpenRejections.increment();
+            LOGGER.error("chs-kafka-api circuit breaker is open, call not made", DataMapHolder.getLogMap());
+            return ServiceStatus.CIRCUIT_OPEN;
+        }
+        if (!acquireBulkhead()) {
+            circuitBreaker.releasePermission();
+            bulkheadFullRejections.increment();
+            LOGGER.error("Too many concurrent calls to chs-kafka-api, call not made", DataMapHolder.getLogMap());
+            return ServiceStatus.SERVER_ERROR;
+        }
+        try {
+            ServiceStatus status = apiCall.get();
+            // a 4xx shows chs-kafka-api is up, so only 5xx responses and I/O failures count against the breaker
+            if (ServiceStatus.SERVER_ERROR.equals(status)) {
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            return status;
+        } catch (RuntimeException ex) {
+            circuitBreaker.onFailure();
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    State getState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * @return false, without sleeping, if the backoff would end after the retry budget or the request's deadline
+     */
+    private boolean backOff(int attempt, long giveUpAt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        long sleepMillis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        long budgetMillis = TimeUnit.NANOSECONDS.toMillis(giveUpAt - System.nanoTime());
+        long remainingMillis = Deadline.current()
+                .map(deadline -> Math.min(deadline.remaining().toMillis(), budgetMillis))
+                .orElse(budgetMillis);
+        if (sleepMillis >= remainingMillis) {
+            return false;
+        }
+        try {
+            Thread.sleep(sleepMillis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean acquireBulkhead() {
+        try {
+            return bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
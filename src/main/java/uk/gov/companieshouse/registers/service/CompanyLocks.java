@@ -0,0 +1,110 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.Deadline;
+import uk.gov.companieshouse.registers.util.StripedLock;
+
+/**
+ * Optional per-company serialisation of PUTs and DELETEs on this node. Without it, two writes for the same company
+ * can both read the stored document before either saves, so one write's section merge is lost or both make the same
+ * write. Writes for different companies stay parallel: each company maps to one of a fixed number of lock stripes, so
+ * memory does not grow with the number of companies written.
+ * <p>
+ * The lock covers only reading, comparing and saving the document: callers release it before calling chs-kafka-api,
+ * so a slow or unavailable chs-kafka-api does not keep other companies on the same stripe waiting. A write waits for
+ * its stripe for at most the configured time, or until its request's deadline, and then returns SERVER_ERROR so the
+ * delta is retried. Writes from other nodes are not serialised; those are still ordered by the delta_at check.
+ */
+@Component
+public class CompanyLocks {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final boolean enabled;
+    private final Duration maxWait;
+    private final StripedLock locks;
+    private final Counter uncontended;
+    private final Counter contended;
+    private final Counter timeouts;
+    private final Timer waitTime;
+
+    public CompanyLocks(@Value("${registers.company-locks.enabled}") boolean enabled,
+            @Value("${registers.company-locks.stripes}") int stripes,
+            @Value("${registers.company-locks.max-wait-ms}") long maxWaitMillis,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWait = Duration.ofMillis(maxWaitMillis);
+        this.locks = new StripedLock(stripes);
+        this.uncontended = meterRegistry.counter("registers.company_locks.acquired", "contended", "false");
+        this.contended = meterRegistry.counter("registers.company_locks.acquired", "contended", "true");
+        this.timeouts = meterRegistry.counter("registers.company_locks.timeouts");
+        this.waitTime = meterRegistry.timer("registers.company_locks.wait");
+        Gauge.builder("registers.company_locks.waiting", locks, StripedLock::getQueueLength)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the write while holding the company's lock.
+     *
+     * @return the status returned by the write, or SERVER_ERROR if the lock could not be had in time
+     */
+    public ServiceStatus withLock(String companyNumber, Supplier<ServiceStatus> write) {
+        return withLock(companyNumber, write, ServiceStatus.SERVER_ERROR);
+    }
+
+    /**
+     * Runs the write while holding the company's lock.
+     *
+     * @return the result of the write, or the given result if the lock could not be had in time
+     */
+    public <T> T withLock(String companyNumber, Supplier<T> write, T timedOut) {
+        ReentrantLock lock = locks.get(companyNumber);
+        if (lock.tryLock()) {
+            uncontended.increment();
+        } else {
+            long start = System.nanoTime();
+            if (!await(lock)) {
+                timeouts.increment();
+                LOGGER.error("Timed out waiting for another write to the company registers, request not processed",
+                        DataMapHolder.getLogMap());
+                return timedOut;
+            }
+            waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            contended.increment();
+        }
+        try {
+            return write.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean await(ReentrantLock lock) {
+        Duration wait = Deadline.current().map(deadline -> deadline.bound(maxWait)).orElse(maxWait);
+        try {
+            return lock.tryLock(wait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
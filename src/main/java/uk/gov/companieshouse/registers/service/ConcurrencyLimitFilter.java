@@ -0,0 +1,183 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.util.AdaptiveConcurrencyLimit;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
+
+/**
+ * Optional adaptive concurrency limit on the registers endpoints, run straight after RequestLoggingFilter. Reads and
+ * writes each have their own limit, which follows the latency of that class of request, so a delta storm slowing
+ * MongoDB shrinks the write limit without throttling GETs that are still fast. A request over the limit is rejected at
+ * once with a Retry-After header: GETs from the public API with 429, and PUTs and DELETEs with 503, which the delta
+ * consumers already retry. An asynchronous write holds its place until its response is complete.
+ * <p>
+ * Only a request that ran out of time or hit a MongoDB failure, as recorded in its OverloadSignal, counts as a failure
+ * that cuts the limit. Any other 5xx, such as a 503 passed on from chs-kafka-api, its circuit breaker or its bulkhead,
+ * releases its place without being sampled, so a failing dependency neither shrinks the limit nor, with its fast
+ * failures, grows it.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE + 1)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    public enum EndpointClass {
+        READ(HttpStatus.TOO_MANY_REQUESTS),
+        WRITE(HttpStatus.SERVICE_UNAVAILABLE);
+
+        private final HttpStatus rejectionStatus;
+
+        EndpointClass(HttpStatus rejectionStatus) {
+            this.rejectionStatus = rejectionStatus;
+        }
+
+        HttpStatus getRejectionStatus() {
+            return rejectionStatus;
+        }
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final Pattern REGISTERS_PATH = Pattern.compile("^/company/[^/]+/registers$");
+
+    private final boolean enabled;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejections = new EnumMap<>(EndpointClass.class);
+
+    public ConcurrencyLimitFilter(@Value("${registers.concurrency-limit.enabled}") boolean enabled,
+            @Value("${registers.concurrency-limit.initial-limit}") int initialLimit,
+            @Value("${registers.concurrency-limit.min-limit}") int minLimit,
+            @Value("${registers.concurrency-limit.max-limit}") int maxLimit,
+            @Value("${registers.concurrency-limit.rtt-tolerance}") double rttTolerance,
+            @Value("${registers.concurrency-limit.smoothing}") double smoothing,
+            @Value("${registers.concurrency-limit.long-window}") int longWindow,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        for (EndpointClass endpoint : EndpointClass.values()) {
+            String tag = endpoint.name().toLowerCase();
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                    rttTolerance, smoothing, longWindow);
+            limits.put(endpoint, limit);
+            rejections.put(endpoint, meterRegistry.counter("registers.concurrency_limit.rejected", "endpoint", tag));
+            Gauge.builder("registers.concurrency_limit.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("registers.concurrency_limit.in_flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        if (!REGISTERS_PATH.matcher(request.getRequestURI()).matches()) {
+            return null;
+        }
+        return switch (request.getMethod()) {
+            case "GET" -> EndpointClass.READ;
+            case "PUT", "DELETE" -> EndpointClass.WRITE;
+            default -> null;
+        };
+    }
+
+    AdaptiveConcurrencyLimit getLimit(EndpointClass endpoint) {
+        return limits.get(endpoint);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpoint = classify(request);
+        AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+        if (!limit.tryAcquire()) {
+            rejections.get(endpoint).increment();
+            LOGGER.info("Concurrency limit of %d reached for %s requests, request rejected".formatted(
+                    limit.getLimit(), endpoint.name().toLowerCase()), DataMapHolder.getLogMap());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limit.retryAfterSeconds()));
+            response.sendError(endpoint.getRejectionStatus().value());
+            return;
+        }
+
+        long start = System.nanoTime();
+        OverloadSignal signal = new OverloadSignal();
+        OverloadSignal.set(signal);
+        boolean threw = true;
+        try {
+            filterChain.doFilter(request, response);
+            threw = false;
+        } finally {
+            OverloadSignal.clear();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(limit, start, signal));
+            } else {
+                release(limit, start, threw || signal.isRaised(), response.getStatus());
+            }
+        }
+    }
+
+    private static void release(AdaptiveConcurrencyLimit limit, long start, boolean overloaded, int status) {
+        if (overloaded) {
+            limit.release(System.nanoTime() - start, true);
+        } else if (status >= 500) {
+            limit.releaseUnsampled();
+        } else {
+            limit.release(System.nanoTime() - start, false);
+        }
+    }
+
+    private record ReleaseOnCompletion(AdaptiveConcurrencyLimit limit, long start, OverloadSignal signal)
+            implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            HttpServletResponse response = (HttpServletResponse) event.getSuppliedResponse();
+            release(limit, start, signal.isRaised(), response.getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // the container completes the request after a timeout, which releases it in onComplete
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // the container completes the request after an error, which releases it in onComplete
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // only the first asynchronous cycle is tracked
+        }
+    }
+}
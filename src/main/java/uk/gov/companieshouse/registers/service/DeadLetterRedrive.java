@@ -0,0 +1,251 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.mongodb.MongoException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.chskafka.ChangedResource;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.ResourceChangedDeadLetters.DeadLetter;
+import uk.gov.companieshouse.registers.util.RateLimiter;
+
+/**
+ * Admin-triggered job that re-sends dead-lettered resource-changed events in parallel, at a bounded rate so a redrive
+ * cannot overwhelm chs-kafka-api just after it has recovered. The job runs on its own thread, claiming events a page
+ * at a time so that a concurrent redrive on any node never sends the same event. Events that are sent are removed
+ * from the store; the rest stay there with their redrive attempt count increased, and can be claimed again once their
+ * lease expires.
+ * <p>
+ * A deleted event is not re-sent if the delete has since been superseded: if the company registers have been
+ * recreated, or a later delete has replaced the tombstone and published its own event. Such events are removed.
+ */
+@Component
+public class DeadLetterRedrive implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final int PAGE_SIZE = 100;
+    private static final String DELETED = "deleted";
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final ResourceChangedDeadLetters deadLetters;
+    private final RegistersApiService registersApiService;
+    private final RegistersRepository repository;
+    private final int parallelism;
+    private final double ratePerSecond;
+    private final Duration lease;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Job job;
+    private Thread worker;
+
+    public DeadLetterRedrive(ResourceChangedDeadLetters deadLetters, RegistersApiService registersApiService,
+            RegistersRepository repository,
+            @Value("${registers.dead-letters.redrive.parallelism}") int parallelism,
+            @Value("${registers.dead-letters.redrive.rate-per-second}") double ratePerSecond,
+            @Value("${registers.dead-letters.redrive.lease-ms}") long leaseMillis) {
+        this.deadLetters = deadLetters;
+        this.registersApiService = registersApiService;
+        this.repository = repository;
+        this.parallelism = parallelism;
+        this.ratePerSecond = ratePerSecond;
+        // long enough for a page to be sent at the configured rate, with the configured lease to spare
+        this.lease = Duration.ofMillis(leaseMillis + (long) (PAGE_SIZE * 1_000 / ratePerSecond));
+    }
+
+    @Override
+    public void destroy() {
+        cancel();
+    }
+
+    /**
+     * Starts a job to redrive up to the given number of events, unless one is already running on this node, in which
+     * case its progress is returned instead.
+     */
+    public Progress start(int limit) {
+        lock.lock();
+        try {
+            if (job != null && job.status == Status.RUNNING) {
+                return job.progress();
+            }
+            job = new Job(UUID.randomUUID().toString(), limit);
+            Job started = job;
+            worker = Thread.ofPlatform().name("dead-letter-redrive").daemon().start(() -> run(started));
+            LOGGER.info("Dead letter redrive %s started".formatted(started.id), DataMapHolder.getLogMap());
+            return started.progress();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel() {
+        lock.lock();
+        try {
+            if (job != null) {
+                job.cancelled = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the progress of this node's current or last job, or null if none has run
+     */
+    public Progress progress() {
+        lock.lock();
+        try {
+            return job == null ? null : job.progress();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void awaitCompletion() throws InterruptedException {
+        Thread running;
+        lock.lock();
+        try {
+            running = worker;
+        } finally {
+            lock.unlock();
+        }
+        if (running != null) {
+            running.join();
+        }
+    }
+
+    private void run(Job job) {
+        DataMapHolder.initialise(job.id);
+        RateLimiter rateLimiter = new RateLimiter(ratePerSecond);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("dead-letter-redrive-", 0).daemon().factory());
+        try {
+            while (!job.cancelled && job.attempted.get() < job.limit) {
+                List<DeadLetter> page = deadLetters.claim(Math.min(PAGE_SIZE, job.limit - job.attempted.get()),
+                        lease);
+                if (page.isEmpty()) {
+                    break;
+                }
+                redrive(job, page, rateLimiter, executor);
+            }
+            job.status = job.cancelled ? Status.CANCELLED : Status.COMPLETED;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.status = Status.CANCELLED;
+        } catch (DataAccessException | MongoException | ExecutionException ex) {
+            LOGGER.error("Dead letter redrive %s failed".formatted(job.id), ex, DataMapHolder.getLogMap());
+            job.status = Status.FAILED;
+        } finally {
+            executor.shutdownNow();
+            LOGGER.info("Dead letter redrive %s %s after redriving %d of %d events, %d superseded".formatted(job.id,
+                    job.status.name().toLowerCase(), job.succeeded.get(), job.attempted.get(),
+                    job.superseded.get()), DataMapHolder.getLogMap());
+            DataMapHolder.clear();
+        }
+    }
+
+    private void redrive(Job job, List<DeadLetter> page, RateLimiter rateLimiter, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(page.size());
+        for (DeadLetter deadLetter : page) {
+            job.attempted.incrementAndGet();
+            futures.add(executor.submit(() -> {
+                redrive(job, deadLetter, rateLimiter);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void redrive(Job job, DeadLetter deadLetter, RateLimiter rateLimiter) throws InterruptedException {
+        // re-sent under the request id of the PUT or DELETE that produced the event
+        DataMapHolder.initialise(deadLetter.requestId());
+        try {
+            if (isSuperseded(deadLetter)) {
+                LOGGER.info("Dropping dead-lettered deleted event superseded by a later write",
+                        DataMapHolder.getLogMap());
+                deadLetters.remove(deadLetter.id());
+                job.superseded.incrementAndGet();
+                return;
+            }
+            rateLimiter.acquire();
+            if (ServiceStatus.SUCCESS.equals(registersApiService.redrive(deadLetter.event()))) {
+                deadLetters.remove(deadLetter.id());
+                job.succeeded.incrementAndGet();
+            } else {
+                deadLetters.recordFailedRedrive(deadLetter.id());
+            }
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+
+    /**
+     * A delete is superseded if the company registers are live again, or if their tombstone was laid after the event
+     * was dead-lettered, which only a later delete, publishing its own event, can have done.
+     */
+    private boolean isSuperseded(DeadLetter deadLetter) {
+        ChangedResource event = deadLetter.event();
+        if (event.getEvent() == null || !DELETED.equals(event.getEvent().getType())) {
+            return false;
+        }
+        return repository.findById(companyNumber(event.getResourceUri()))
+                .map(document -> !document.isTombstone()
+                        || document.getTombstonedAt().isAfter(deadLetter.createdAt()))
+                .orElse(false);
+    }
+
+    private static String companyNumber(String resourceUri) {
+        // company/{company_number}/registers
+        return resourceUri.split("/")[1];
+    }
+
+    public record Progress(String jobId, Status status, int limit, int attempted, int succeeded, int superseded,
+                           Instant startedAt) {
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final int limit;
+        private final AtomicInteger attempted = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger superseded = new AtomicInteger();
+        private final Instant startedAt = Instant.now();
+        private volatile Status status = Status.RUNNING;
+        private volatile boolean cancelled;
+
+        private Job(String id, int limit) {
+            this.id = id;
+            this.limit = limit;
+        }
+
+        private Progress progress() {
+            return new Progress(id, status, limit, attempted.get(), succeeded.get(), superseded.get(), startedAt);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+/**
+ * Sets the deadline of each registers request for the thread handling it. RegistersWriteExecutor carries it over to
+ * the thread running an asynchronous write.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE + 3)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    private final RequestDeadlines deadlines;
+
+    public DeadlineFilter(RequestDeadlines deadlines) {
+        this.deadlines = deadlines;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !deadlines.isEnabled() || ConcurrencyLimitFilter.classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        Deadline.set(deadlines.forRequest(ConcurrencyLimitFilter.classify(request),
+                request.getHeader(deadlines.getHeader())));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
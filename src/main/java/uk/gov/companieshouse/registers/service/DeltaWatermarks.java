@@ -0,0 +1,105 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.util.LongWatermarkMap;
+
+/**
+ * Per-node record of the latest delta_at known to be held in MongoDB for each company, used to reject stale deltas
+ * without reading the document. Company numbers are packed eight ASCII characters to a long and timestamps are held
+ * as epoch microseconds, so entries are never boxed; see {@link LongWatermarkMap} for the memory cost.
+ * <p>
+ * Watermarks are per node: one only comes from a delta this node applied or a document it read, and only deletes made
+ * on this node drop it. A delete made on another node is never seen here, so a watermark can outlive the document it
+ * came from and reject a delta that MongoDB would accept. The watermarks are therefore only used with tombstones
+ * enabled, as a tombstone keeps the delete's delta_at and MongoDB then rejects such a delta as well. That still does
+ * not hold for a delete older than the watermark or once the tombstone has expired, so a rejection here means the
+ * delta is very probably stale rather than certainly.
+ */
+@Component
+public class DeltaWatermarks {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final long NOT_PACKABLE = 0;
+
+    private final boolean enabled;
+    private final LongWatermarkMap watermarks = new LongWatermarkMap();
+    private final Counter rejected;
+
+    public DeltaWatermarks(@Value("${registers.delta-watermarks.enabled}") boolean enabled,
+            @Value("${registers.tombstones.enabled}") boolean tombstonesEnabled,
+            MeterRegistry meterRegistry) {
+        if (enabled && !tombstonesEnabled) {
+            LOGGER.info("Delta watermarks not used as tombstones are disabled", DataMapHolder.getLogMap());
+        }
+        this.enabled = enabled && tombstonesEnabled;
+        this.rejected = meterRegistry.counter("registers.delta_watermarks.rejected");
+        Gauge.builder("registers.delta_watermarks.entries", watermarks, LongWatermarkMap::size)
+                .register(meterRegistry);
+        Gauge.builder("registers.delta_watermarks.memory", watermarks, LongWatermarkMap::sizeInBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns true if a newer delta than this one has already been applied for the company. Deltas with the same
+     * delta_at are not stale, so that retries are still re-applied.
+     */
+    public boolean isStale(String companyNumber, OffsetDateTime deltaAt) {
+        long key = pack(companyNumber);
+        if (!enabled || key == NOT_PACKABLE) {
+            return false;
+        }
+        long watermark = watermarks.get(key);
+        if (watermark != LongWatermarkMap.MISSING && toEpochMicros(deltaAt) < watermark) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void advance(String companyNumber, OffsetDateTime deltaAt) {
+        long key = pack(companyNumber);
+        if (enabled && key != NOT_PACKABLE) {
+            watermarks.advance(key, toEpochMicros(deltaAt));
+        }
+    }
+
+    public void remove(String companyNumber) {
+        long key = pack(companyNumber);
+        if (enabled && key != NOT_PACKABLE) {
+            watermarks.remove(key);
+        }
+    }
+
+    static long pack(String companyNumber) {
+        int length = companyNumber.length();
+        if (length == 0 || length > Long.BYTES) {
+            return NOT_PACKABLE;
+        }
+        long packed = 0;
+        for (int i = 0; i < length; i++) {
+            char c = companyNumber.charAt(i);
+            if (c == 0 || c >= 0x80) {
+                return NOT_PACKABLE;
+            }
+            packed = packed << 8 | c;
+        }
+        return packed;
+    }
+
+    static long toEpochMicros(OffsetDateTime deltaAt) {
+        Instant instant = deltaAt.toInstant();
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+}
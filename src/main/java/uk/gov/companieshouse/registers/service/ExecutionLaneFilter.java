@@ -0,0 +1,141 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.service.ConcurrencyLimitFilter.EndpointClass;
+
+/**
+ * Optional execution lanes splitting the container's threads between public GETs and internal PUTs and DELETEs. Each
+ * lane has a fixed number of permits, held for the whole request, so a backlog of deltas can occupy at most the write
+ * lane's share of threads and the rest stay free for reads; MongoReadLane gives reads a connection pool of their own
+ * in the same way. A request that cannot get a permit within a short wait is rejected like one over the concurrency
+ * limit. Each lane reports its permits in use and its saturation.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class ExecutionLaneFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final boolean enabled;
+    private final long maxWaitMillis;
+    private final Map<EndpointClass, Semaphore> lanes = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejections = new EnumMap<>(EndpointClass.class);
+
+    public ExecutionLaneFilter(@Value("${registers.lanes.enabled}") boolean enabled,
+            @Value("${registers.lanes.read.permits}") int readPermits,
+            @Value("${registers.lanes.write.permits}") int writePermits,
+            @Value("${registers.lanes.max-wait-ms}") long maxWaitMillis,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxWaitMillis = maxWaitMillis;
+        for (EndpointClass endpoint : EndpointClass.values()) {
+            int permits = endpoint == EndpointClass.READ ? readPermits : writePermits;
+            String lane = endpoint.name().toLowerCase();
+            Semaphore semaphore = new Semaphore(permits);
+            lanes.put(endpoint, semaphore);
+            rejections.put(endpoint, meterRegistry.counter("registers.lanes.rejected", "lane", lane));
+            Gauge.builder("registers.lanes.in_use", semaphore, s -> permits - s.availablePermits())
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("registers.lanes.saturation", semaphore,
+                            s -> (permits - s.availablePermits()) / (double) permits)
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+        }
+    }
+
+    Semaphore getLane(EndpointClass endpoint) {
+        return lanes.get(endpoint);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || ConcurrencyLimitFilter.classify(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpoint = ConcurrencyLimitFilter.classify(request);
+        Semaphore lane = lanes.get(endpoint);
+        if (!acquire(lane)) {
+            rejections.get(endpoint).increment();
+            LOGGER.info("No permit free in the %s lane, request rejected".formatted(endpoint.name().toLowerCase()),
+                    DataMapHolder.getLogMap());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(endpoint.getRejectionStatus().value());
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(lane));
+            } else {
+                lane.release();
+            }
+        }
+    }
+
+    private boolean acquire(Semaphore lane) {
+        try {
+            return lane.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private record ReleaseOnCompletion(Semaphore lane) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            lane.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // the container completes the request after a timeout, which releases it in onComplete
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // the container completes the request after an error, which releases it in onComplete
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // only the first asynchronous cycle is tracked
+        }
+    }
+}
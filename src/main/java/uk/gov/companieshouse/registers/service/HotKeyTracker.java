@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.registers.service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.util.HeavyHitters;
+
+/**
+ * Tracks the most frequently requested company numbers, separately for each operation, so that cache sizing and
+ * capacity planning can be based on the observed key distribution. Counts are halved every decay interval, which
+ * makes them approximate a rate over the recent past. Candidate pruning runs on a background thread of its own, so
+ * requests only ever pay for counting.
+ */
+@Component
+public class HotKeyTracker implements DisposableBean {
+
+    public enum Operation {
+        GET,
+        PUT,
+        DELETE
+    }
+
+    private final Map<Operation, HeavyHitters> heavyHitters = new EnumMap<>(Operation.class);
+    private final Duration decayInterval;
+    private final ExecutorService pruner = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("hot-keys-pruner").daemon().factory());
+
+    public HotKeyTracker(@Value("${registers.hot-keys.top-k}") int topK,
+            @Value("${registers.hot-keys.sketch-depth}") int depth,
+            @Value("${registers.hot-keys.sketch-width}") int width,
+            @Value("${registers.hot-keys.decay-interval-ms}") long decayIntervalMillis) {
+        for (Operation operation : Operation.values()) {
+            heavyHitters.put(operation, new HeavyHitters(topK, depth, width, pruner));
+        }
+        this.decayInterval = Duration.ofMillis(decayIntervalMillis);
+    }
+
+    @Override
+    public void destroy() {
+        pruner.shutdownNow();
+    }
+
+    public void record(Operation operation, String companyNumber) {
+        heavyHitters.get(operation).record(companyNumber);
+    }
+
+    public List<HotKey> top(Operation operation) {
+        // halving every interval H leaves a steady request rate r with an average count of about r * H / ln 2
+        double secondsPerCount = Math.log(2) / (decayInterval.toMillis() / 1000.0);
+        return heavyHitters.get(operation).top().stream()
+                .map(entry -> new HotKey(entry.getKey(), entry.getValue(), entry.getValue() * secondsPerCount))
+                .toList();
+    }
+
+    @Scheduled(fixedRateString = "${registers.hot-keys.decay-interval-ms}",
+            initialDelayString = "${registers.hot-keys.decay-interval-ms}")
+    public void decay() {
+        heavyHitters.values().forEach(HeavyHitters::decay);
+    }
+
+    public record HotKey(String companyNumber, long estimatedCount, double estimatedRatePerSecond) {
+    }
+}
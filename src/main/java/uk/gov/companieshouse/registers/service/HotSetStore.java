@@ -0,0 +1,73 @@
+package uk.gov.companieshouse.registers.service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.HotKey;
+
+/**
+ * Persists the hottest company numbers observed by each node into a small collection, one document per company
+ * number, so that newly started nodes know which registers to prefetch. Entries not refreshed by any node expire via
+ * a TTL index.
+ */
+@Component
+public class HotSetStore {
+
+    private static final String COLLECTION = "company_registers_hot_set";
+    private static final String ID = "_id";
+    private static final String ESTIMATED_RATE = "estimated_rate";
+    private static final String UPDATED_AT = "updated_at";
+
+    private final MongoTemplate mongoTemplate;
+    private final long ttlSeconds;
+
+    public HotSetStore(MongoTemplate mongoTemplate,
+            @Value("${registers.warm-up.hot-set-ttl-seconds}") long ttlSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public void save(List<HotKey> hotKeys) {
+        if (hotKeys.isEmpty()) {
+            return;
+        }
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        collection.createIndex(Indexes.ascending(UPDATED_AT),
+                new IndexOptions().expireAfter(ttlSeconds, TimeUnit.SECONDS));
+
+        Date now = new Date();
+        List<UpdateOneModel<Document>> updates = new ArrayList<>();
+        for (HotKey hotKey : hotKeys) {
+            updates.add(new UpdateOneModel<>(Filters.eq(ID, hotKey.companyNumber()),
+                    Updates.combine(Updates.set(ESTIMATED_RATE, hotKey.estimatedRatePerSecond()),
+                            Updates.set(UPDATED_AT, now)),
+                    new UpdateOptions().upsert(true)));
+        }
+        collection.bulkWrite(updates);
+    }
+
+    public List<String> load(int limit) {
+        List<String> companyNumbers = new ArrayList<>();
+        mongoTemplate.getCollection(COLLECTION)
+                .find()
+                .sort(Sorts.descending(ESTIMATED_RATE))
+                .limit(limit)
+                .projection(Projections.include(ID))
+                .forEach(document -> companyNumbers.add(document.getString(ID)));
+        return companyNumbers;
+    }
+}
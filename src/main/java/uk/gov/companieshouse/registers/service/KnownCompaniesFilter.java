@@ -0,0 +1,170 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.util.BloomFilter;
+
+/**
+ * Per-node Bloom filter of the company numbers held in the company_registers collection, used to answer GETs for
+ * companies without a registers document without a round trip to MongoDB.
+ * <p>
+ * The filter is rebuilt from a full scan of document ids on a schedule, and in between it is topped up with the ids
+ * of documents updated since the last refresh, through an index on updated.at, as well as with every local upsert.
+ * Deletes never clear bits: a deleted company simply remains a false positive until the next rebuild.
+ * <p>
+ * Upserts made on other nodes only become visible here on the next refresh, so in a deployment with several tasks a
+ * company created through another task can be reported as missing by this one for up to the refresh interval. Keep
+ * the interval no longer than that staleness can be tolerated; the refresh is a small indexed query, so a few
+ * seconds is cheap. updated.at is stored as the instant of the upsert whatever the writing node's time zone, so the
+ * refresh window compares correctly across nodes.
+ */
+@Component
+public class KnownCompaniesFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers";
+    private static final String ID = "_id";
+    private static final String UPDATED_AT = "updated.at";
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final Duration refreshOverlap;
+    private final MongoTemplate mongoTemplate;
+    private final Counter shortCircuited;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    private volatile Instant refreshedUpTo;
+
+    public KnownCompaniesFilter(@Value("${registers.known-companies.enabled}") boolean enabled,
+            @Value("${registers.known-companies.expected-insertions}") long expectedInsertions,
+            @Value("${registers.known-companies.false-positive-probability}") double falsePositiveProbability,
+            @Value("${registers.known-companies.refresh-overlap-ms}") long refreshOverlapMillis,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.refreshOverlap = Duration.ofMillis(refreshOverlapMillis);
+        this.mongoTemplate = mongoTemplate;
+        this.shortCircuited = meterRegistry.counter("registers.known_companies.short_circuited");
+        this.falsePositives = meterRegistry.counter("registers.known_companies.false_positives");
+        Gauge.builder("registers.known_companies.memory", this,
+                        f -> f.current == null ? 0 : f.current.sizeInBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("registers.known_companies.expected_false_positive_probability", this,
+                        f -> f.current == null ? 1 : f.current.expectedFalsePositiveProbability())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns true only when the company number is certainly not in the collection. Before the first build has
+     * completed, or when the filter is disabled, nothing is reported as absent.
+     */
+    public boolean isDefinitelyAbsent(String companyNumber) {
+        BloomFilter filter = current;
+        if (filter == null || filter.mightContain(companyNumber)) {
+            return false;
+        }
+        shortCircuited.increment();
+        return true;
+    }
+
+    /**
+     * Records the company number as present. Must be called after the document has been saved.
+     */
+    public void add(String companyNumber) {
+        // Read the filter being built before the live one: if a rebuild swaps them in between, the key still lands
+        // in the new live filter, and if the rebuild had not started yet its scan will find the saved document.
+        BloomFilter pending = building;
+        BloomFilter filter = current;
+        if (pending != null) {
+            pending.put(companyNumber);
+        }
+        if (filter != null) {
+            filter.put(companyNumber);
+        }
+    }
+
+    /**
+     * Records that the filter let a lookup through for a company which turned out to have no document.
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${registers.known-companies.rebuild-interval-ms}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Instant scanStart = Instant.now();
+        BloomFilter filter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+        building = filter;
+        try {
+            // the refresh queries on updated.at, so it reads only the documents it adds
+            mongoTemplate.getCollection(COLLECTION).createIndex(Indexes.ascending(UPDATED_AT));
+            long count = load(filter, Filters.empty());
+            current = filter;
+            refreshedUpTo = scanStart;
+            LOGGER.info("Known companies filter rebuilt with %d ids".formatted(count), DataMapHolder.getLogMap());
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to rebuild known companies filter", ex, DataMapHolder.getLogMap());
+        } finally {
+            building = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${registers.known-companies.refresh-interval-ms}")
+    public void refresh() {
+        BloomFilter filter = current;
+        Instant since = refreshedUpTo;
+        if (!enabled || filter == null || since == null) {
+            return;
+        }
+        Instant scanStart = Instant.now();
+        try {
+            // overlap the window to tolerate clock skew between nodes stamping updated.at
+            load(filter, Filters.gte(UPDATED_AT, Date.from(since.minus(refreshOverlap))));
+            refreshedUpTo = scanStart;
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to refresh known companies filter", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    private long load(BloomFilter filter, Bson query) {
+        long count = 0;
+        for (Document document : mongoTemplate.getCollection(COLLECTION)
+                .find(query)
+                .projection(Projections.include(ID))) {
+            filter.put(document.getString(ID));
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.companieshouse.registers.service;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.util.DeadlineMongoDatabaseFactory;
+
+/**
+ * Optional MongoDB connection pool of its own for public GETs, so that a backlog of deltas holding every connection
+ * in the main pool cannot make reads wait for one. The main pool, sized by registers.lanes.write.mongo-pool-size,
+ * keeps serving writes and background jobs. The read pool reports the standard connection pool metrics tagged
+ * lane=read.
+ * <p>
+ * The client is created here rather than as a bean, as a second MongoClient or MongoTemplate bean would replace the
+ * auto-configured ones.
+ */
+@Component
+public class MongoReadLane implements InitializingBean, DisposableBean {
+
+    private static final String ID = "_id";
+
+    private final boolean enabled;
+    private final String databaseUri;
+    private final String databaseName;
+    private final int poolSize;
+    private final long maxWaitMillis;
+    private final MappingMongoConverter converter;
+    private final MeterRegistry meterRegistry;
+
+    private MongoClient mongoClient;
+    private MongoTemplate mongoTemplate;
+
+    public MongoReadLane(@Value("${registers.lanes.enabled}") boolean enabled,
+            @Value("${spring.data.mongodb.uri}") String databaseUri,
+            @Value("${spring.data.mongodb.name}") String databaseName,
+            @Value("${registers.lanes.read.mongo-pool-size}") int poolSize,
+            @Value("${registers.lanes.max-wait-ms}") long maxWaitMillis,
+            MappingMongoConverter converter, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.databaseUri = databaseUri;
+        this.databaseName = databaseName;
+        this.poolSize = poolSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.converter = converter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        mongoClient = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(databaseUri))
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(poolSize)
+                        .maxWaitTime(maxWaitMillis, TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry,
+                                event -> Tags.concat(new DefaultMongoConnectionPoolTagsProvider()
+                                        .connectionPoolTags(event), "lane", "read"))))
+                .build());
+        // bounded by the request's deadline, as the main pool is, when deadlines are enabled
+        mongoTemplate = new MongoTemplate(new DeadlineMongoDatabaseFactory(
+                new SimpleMongoClientDatabaseFactory(mongoClient, databaseName)), converter);
+    }
+
+    @Override
+    public void destroy() {
+        if (mongoClient != null) {
+            mongoClient.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<CompanyRegistersDocument> findById(String companyNumber) {
+        return Optional.ofNullable(mongoTemplate.findById(companyNumber, CompanyRegistersDocument.class));
+    }
+
+    public List<CompanyRegistersDocument> findAllById(Collection<String> companyNumbers) {
+        return mongoTemplate.find(Query.query(Criteria.where(ID).in(companyNumbers)), CompanyRegistersDocument.class);
+    }
+}
@@ -3,10 +3,13 @@ package uk.gov.companieshouse.registers.service;
 
 import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
 
+import java.io.IOException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
 import uk.gov.companieshouse.api.InternalApiClient;
+import uk.gov.companieshouse.api.chskafka.ChangedResource;
 import uk.gov.companieshouse.api.error.ApiErrorResponseException;
 import uk.gov.companieshouse.api.handler.chskafka.request.PrivateChangedResourcePost;
 import uk.gov.companieshouse.logging.Logger;
@@ -14,6 +17,7 @@ import uk.gov.companieshouse.logging.LoggerFactory;
 import uk.gov.companieshouse.registers.logging.DataMapHolder;
 import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
 import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.RequestDeadlines.Phase;
 import uk.gov.companieshouse.registers.util.ResourceChangedRequestMapper;
 
 @Service
@@ -25,16 +29,25 @@ public class RegistersApiService {
     private final String chsKafkaUrl;
     private final ApiClientService apiClientService;
     private final ResourceChangedRequestMapper mapper;
+    private final ChsKafkaApiGuard guard;
+    private final ResourceChangedDeadLetters deadLetters;
+    private final RequestDeadlines deadlines;
 
     /**
      * Invoke API.
      */
     public RegistersApiService(@Value("${chs.kafka.api.endpoint}") String chsKafkaUrl,
             ApiClientService apiClientService,
-            ResourceChangedRequestMapper mapper) {
+            ResourceChangedRequestMapper mapper,
+            ChsKafkaApiGuard guard,
+            ResourceChangedDeadLetters deadLetters,
+            RequestDeadlines deadlines) {
         this.chsKafkaUrl = chsKafkaUrl;
         this.apiClientService = apiClientService;
         this.mapper = mapper;
+        this.guard = guard;
+        this.deadLetters = deadLetters;
+        this.deadlines = deadlines;
     }
 
     /**
@@ -44,28 +57,87 @@ public class RegistersApiService {
      * @return The service status of the response from chs kafka api
      */
     public ServiceStatus invokeChsKafkaApi(ResourceChangedRequest resourceChangedRequest) {
+        return postChangedResource(mapper.mapChangedResource(resourceChangedRequest));
+    }
+
+    /**
+     * Re-sends a dead-lettered event. An event that fails again is left to the caller rather than dead-lettered twice.
+     */
+    public ServiceStatus redrive(ChangedResource changedResource) {
+        return rejectedAsServerError(guard.call(() -> send(changedResource)));
+    }
+
+    private ServiceStatus postChangedResource(ChangedResource changedResource) {
+        if (!deadLetters.isEnabled()) {
+            return rejectedAsServerError(guard.call(() -> send(changedResource)));
+        }
+        // a failed event is dead-lettered and retried by the redrive, so it is not retried here on the request thread
+        ServiceStatus serviceStatus = rejectedAsServerError(guard.callOnce(() -> send(changedResource)));
+        // a dead-lettered event will be redriven, so the delta does not need to be re-sent by the upstream consumer
+        if (!ServiceStatus.SUCCESS.equals(serviceStatus) && deadLetters.add(changedResource)) {
+            LOGGER.error("Resource changed event dead-lettered after failing", DataMapHolder.getLogMap());
+            return ServiceStatus.SUCCESS;
+        }
+        return serviceStatus;
+    }
+
+    private ServiceStatus send(ChangedResource changedResource) {
+        if (apiClientService.isPooledClientEnabled()) {
+            return postWithPooledClient(changedResource);
+        }
         InternalApiClient internalApiClient = apiClientService.getInternalApiClient();
         internalApiClient.setBasePath(chsKafkaUrl);
         internalApiClient.getHttpClient().setRequestId(DataMapHolder.getRequestId());
 
         PrivateChangedResourcePost changedResourcePost =
                 internalApiClient.privateChangedResourceHandler().postChangedResource(
-                        CHANGED_RESOURCE_URI, mapper.mapChangedResource(resourceChangedRequest));
+                        CHANGED_RESOURCE_URI, changedResource);
 
         return handleApiCall(changedResourcePost);
     }
 
+    private ServiceStatus postWithPooledClient(ChangedResource changedResource) {
+        try {
+            int statusCode = apiClientService.getPooledApiClient()
+                    .post(CHANGED_RESOURCE_URI, changedResource, DataMapHolder.getRequestId());
+            if (HttpStatusCode.valueOf(statusCode).is2xxSuccessful()) {
+                return ServiceStatus.SUCCESS;
+            }
+            LOGGER.error("Unsuccessful call to resource changed, response code: %d".formatted(statusCode),
+                    DataMapHolder.getLogMap());
+            if (HttpStatusCode.valueOf(statusCode).is4xxClientError()) {
+                return ServiceStatus.CLIENT_ERROR;
+            }
+        } catch (IOException ex) {
+            deadlines.recordIfExceeded(Phase.RESOURCE_CHANGED);
+            LOGGER.error("Error occurred while calling resource changed", ex, DataMapHolder.getLogMap());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted while calling resource changed", ex, DataMapHolder.getLogMap());
+        }
+        return ServiceStatus.SERVER_ERROR;
+    }
+
     private ServiceStatus handleApiCall(PrivateChangedResourcePost changedResourcePost) {
         try {
             changedResourcePost.execute();
             return ServiceStatus.SUCCESS;
         } catch (ApiErrorResponseException ex) {
-            if (!HttpStatus.valueOf(ex.getStatusCode()).is2xxSuccessful()) {
+            HttpStatus status = HttpStatus.valueOf(ex.getStatusCode());
+            if (!status.is2xxSuccessful()) {
                 LOGGER.error("Unsuccessful call to resource changed", ex, DataMapHolder.getLogMap());
             } else {
                 LOGGER.error("Error occurred while calling resource changed", ex, DataMapHolder.getLogMap());
             }
-            return ServiceStatus.SERVER_ERROR;
+            return status.is4xxClientError() ? ServiceStatus.CLIENT_ERROR : ServiceStatus.SERVER_ERROR;
         }
     }
+
+    /**
+     * An event chs-kafka-api rejected with a 4xx is reported as SERVER_ERROR, as before, so the write is answered with
+     * 503 and retried rather than with the 409 or 404 of CLIENT_ERROR.
+     */
+    private static ServiceStatus rejectedAsServerError(ServiceStatus serviceStatus) {
+        return ServiceStatus.CLIENT_ERROR.equals(serviceStatus) ? ServiceStatus.SERVER_ERROR : serviceStatus;
+    }
 }
@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.registers.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.registers.Registers;
+
+/**
+ * Optional content hashing of registers, used as the etag so that it only changes when the registers do. Upserts
+ * whose merged registers hash the same as the stored document are no-ops: only delta_at is advanced and no
+ * resource-changed event is published.
+ * <p>
+ * A delta re-sent with the same delta_at is usually a retry after resource-changed failed, so by default such retries
+ * still publish the event, although the document is not rewritten.
+ */
+@Component
+public class RegistersContentHash {
+
+    private final boolean enabled;
+    private final boolean republishRetries;
+    private final ObjectMapper canonicalMapper;
+    private final Counter skipped;
+    private final Counter republished;
+
+    public RegistersContentHash(@Value("${registers.content-hash.enabled}") boolean enabled,
+            @Value("${registers.content-hash.republish-retries}") boolean republishRetries,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.republishRetries = republishRetries;
+        // properties and map entries in a fixed order, and nulls left out, so equal registers serialise identically
+        this.canonicalMapper = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.canonicalMapper.setConfig(this.canonicalMapper.getSerializationConfig()
+                .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+        this.skipped = meterRegistry.counter("registers.upsert.no_op_deltas", "outcome", "skipped");
+        this.republished = meterRegistry.counter("registers.upsert.no_op_deltas", "outcome", "republished");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isRepublishRetries() {
+        return republishRetries;
+    }
+
+    /**
+     * @return the lower case hex SHA-1 of the canonical JSON form of the registers, the same length as a random etag
+     */
+    public String hash(Registers registers) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return HexFormat.of().formatHex(digest.digest(canonicalMapper.writeValueAsBytes(registers)));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Failed to serialise registers for hashing", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    public void recordNoOp(boolean republishedEvent) {
+        if (republishedEvent) {
+            republished.increment();
+        } else {
+            skipped.increment();
+        }
+    }
+}
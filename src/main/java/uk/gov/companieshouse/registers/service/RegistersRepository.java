@@ -1,9 +1,26 @@
 package uk.gov.companieshouse.registers.service;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
 import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
 
 @Repository
 public interface RegistersRepository extends MongoRepository<CompanyRegistersDocument, String> {
+
+    /**
+     * Moves delta_at forward, leaving it alone if a concurrent write has already stored a later one. The stored format
+     * is fixed-width digits, so string order is time order.
+     */
+    @Query("{ '_id' : ?0, 'delta_at' : { '$lt' : ?1 } }")
+    @Update("{ '$set' : { 'delta_at' : ?1 } }")
+    void updateDeltaAt(String companyNumber, String deltaAt);
+
+    /**
+     * Removes the document in a single findAndRemove.
+     *
+     * @return the removed document, or null if there was none
+     */
+    CompanyRegistersDocument removeById(String companyNumber);
 }
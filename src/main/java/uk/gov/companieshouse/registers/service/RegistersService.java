@@ -8,5 +8,5 @@ import uk.gov.companieshouse.registers.model.ServiceStatus;
 public interface RegistersService {
     ServiceStatus upsertCompanyRegisters(String companyNumber, InternalRegisters requestBody);
     Optional<CompanyRegistersDocument> getCompanyRegisters(String companyNumber);
-    ServiceStatus deleteCompanyRegisters(String companyNumber);
+    ServiceStatus deleteCompanyRegisters(String companyNumber, String deltaAt);
 }
@@ -3,23 +3,33 @@ package uk.gov.companieshouse.registers.service;
 
 import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
 
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 import uk.gov.companieshouse.api.registers.InternalRegisters;
 import uk.gov.companieshouse.logging.Logger;
 import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
 import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.registers.logging.DataMapHolder;
 import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
 import uk.gov.companieshouse.registers.model.Created;
 import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
 import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.RequestDeadlines.Phase;
+import uk.gov.companieshouse.registers.util.Deadline;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
 import uk.gov.companieshouse.registers.util.RegistersMapper;
+import uk.gov.companieshouse.registers.util.SingleFlight;
 
 @Service
 public class RegistersServiceImpl implements RegistersService {
@@ -31,27 +41,71 @@ public class RegistersServiceImpl implements RegistersService {
     private final RegistersRepository repository;
     private final RegistersMapper mapper;
     private final RegistersApiService registersApiService;
+    private final KnownCompaniesFilter knownCompaniesFilter;
+    private final SingleFlight<String, Optional<CompanyRegistersDocument>> singleFlight;
+    private final BatchingRegistersLoader batchingLoader;
+    private final DeltaWatermarks deltaWatermarks;
+    private final ResourceChangedOutbox outbox;
+    private final RegistersContentHash contentHash;
+    private final Tombstones tombstones;
+    private final MongoReadLane readLane;
+    private final RequestDeadlines deadlines;
+    private final CompanyLocks companyLocks;
 
     public RegistersServiceImpl(RegistersRepository repository, RegistersMapper mapper,
-            RegistersApiService registersApiService) {
+            RegistersApiService registersApiService, KnownCompaniesFilter knownCompaniesFilter,
+            SingleFlight<String, Optional<CompanyRegistersDocument>> singleFlight,
+            BatchingRegistersLoader batchingLoader, DeltaWatermarks deltaWatermarks,
+            ResourceChangedOutbox outbox, RegistersContentHash contentHash, Tombstones tombstones,
+            MongoReadLane readLane, RequestDeadlines deadlines, CompanyLocks companyLocks) {
         this.repository = repository;
         this.mapper = mapper;
         this.registersApiService = registersApiService;
+        this.knownCompaniesFilter = knownCompaniesFilter;
+        this.singleFlight = singleFlight;
+        this.batchingLoader = batchingLoader;
+        this.deltaWatermarks = deltaWatermarks;
+        this.outbox = outbox;
+        this.contentHash = contentHash;
+        this.tombstones = tombstones;
+        this.readLane = readLane;
+        this.deadlines = deadlines;
+        this.companyLocks = companyLocks;
     }
 
     @Override
     public ServiceStatus upsertCompanyRegisters(String companyNumber, InternalRegisters requestBody) {
+        // a concurrent write for the same company could otherwise land between reading the stored document and saving;
+        // the lock is released before resource-changed is called, so a slow chs-kafka-api does not hold up the stripe
+        Written written = companyLocks.isEnabled()
+                ? companyLocks.withLock(companyNumber, () -> upsert(companyNumber, requestBody),
+                        Written.done(ServiceStatus.SERVER_ERROR))
+                : upsert(companyNumber, requestBody);
+        return written.publish();
+    }
+
+    private Written upsert(String companyNumber, InternalRegisters requestBody) {
         try {
-            Optional<CompanyRegistersDocument> existingDocument = repository.findById(companyNumber);
+            deadlines.check(Phase.MONGO);
+            if (deltaWatermarks.isStale(companyNumber, requestBody.getInternalData().getDeltaAt())) {
+                LOGGER.error("Record not persisted as a newer delta has already been applied",
+                        DataMapHolder.getLogMap());
+                return Written.done(ServiceStatus.CLIENT_ERROR);
+            }
+
+            // a tombstone left by a delete only takes part in the delta_at check
+            Optional<CompanyRegistersDocument> storedDocument = repository.findById(companyNumber);
+            Optional<CompanyRegistersDocument> existingDocument =
+                    storedDocument.filter(stored -> !stored.isTombstone());
 
             // If the document does not exist OR if the delta_at in the request is after the delta_at on the document
-            if (existingDocument.isEmpty() ||
-                    StringUtils.isBlank(existingDocument.get().getDeltaAt()) ||
-                    // use compareTo >= 0 instead of isAfter to allow the same delta to be re-run to ensure the stream
-                    // always gets updated by a retry if any call to /resource-changed fails the delta
-                    !requestBody.getInternalData().getDeltaAt()
-                            .isBefore(ZonedDateTime.parse(existingDocument.get().getDeltaAt(), FORMATTER)
-                                    .toOffsetDateTime())) {
+            if (storedDocument.isEmpty()
+                    || isLatest(requestBody.getInternalData().getDeltaAt(), storedDocument.get())) {
+                // worked out before mapping, as the mapper updates the existing document's registers in place
+                List<String> changedSections = mapper.changedSections(existingDocument.orElse(null),
+                        requestBody.getExternalData());
+                ResourceChangedRequest changedRequest = new ResourceChangedRequest(companyNumber, null, false,
+                        changedSections.isEmpty() ? null : changedSections);
                 CompanyRegistersDocument document = mapper.map(companyNumber, existingDocument.orElse(null),
                         requestBody);
 
@@ -61,62 +115,264 @@ public class RegistersServiceImpl implements RegistersService {
                         .ifPresentOrElse(document::setCreated,
                                 () -> document.setCreated(new Created().setAt(document.getUpdated().at())));
 
+                if (contentHash.isEnabled()) {
+                    String hash = contentHash.hash(document.getData().getRegisters());
+                    document.getData().setEtag(hash);
+                    document.setContentHash(hash);
+                    if (existingDocument.isPresent() && hash.equals(existingDocument.get().getContentHash())) {
+                        return applyUnchangedDelta(companyNumber, requestBody, existingDocument.get(), document);
+                    }
+                }
+
+                if (outbox.isEnabled()) {
+                    // resource-changed is published by the outbox relay once the transaction has committed
+                    outbox.writeWithEvent(() -> repository.save(document), changedRequest);
+                    knownCompaniesFilter.add(companyNumber);
+                    deltaWatermarks.advance(companyNumber, requestBody.getInternalData().getDeltaAt());
+                    LOGGER.info("Company registers upserted in MongoDb with resource changed event queued",
+                            DataMapHolder.getLogMap());
+                    return Written.done(ServiceStatus.SUCCESS);
+                }
+
                 // save the document before calling resource-changed
                 repository.save(document);
+                knownCompaniesFilter.add(companyNumber);
+                deltaWatermarks.advance(companyNumber, requestBody.getInternalData().getDeltaAt());
                 LOGGER.info("Company registers upserted in MongoDb", DataMapHolder.getLogMap());
-
-                // call resource-changed after saving the document
-                ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(
-                        new ResourceChangedRequest(companyNumber, null, false));
-                LOGGER.info("ChsKafka api CHANGED invoked successfully", DataMapHolder.getLogMap());
-                return serviceStatus;
+                return new Written(ServiceStatus.SUCCESS, () -> publishChanged(changedRequest,
+                        "ChsKafka api CHANGED invoked successfully"));
             } else {
-                LOGGER.error("Record not persisted as it is not the latest record", DataMapHolder.getLogMap());
-                return ServiceStatus.CLIENT_ERROR;
+                deltaWatermarks.advance(companyNumber, ZonedDateTime.parse(storedDocument.get().getDeltaAt(),
+                        FORMATTER).toOffsetDateTime());
+                LOGGER.error(storedDocument.get().isTombstone()
+                        ? "Record not persisted as the company registers were deleted by a later delta"
+                        : "Record not persisted as it is not the latest record", DataMapHolder.getLogMap());
+                return Written.done(ServiceStatus.CLIENT_ERROR);
             }
         } catch (IllegalArgumentException ex) {
             LOGGER.error("Illegal argument exception caught when processing upsert", ex, DataMapHolder.getLogMap());
-            return ServiceStatus.SERVER_ERROR;
-        } catch (DataAccessException ex) {
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        } catch (DeadlineExceededException ex) {
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        } catch (DataAccessException | TransactionException ex) {
+            deadlines.recordIfExceeded(Phase.MONGO);
+            OverloadSignal.raiseCurrent();
             LOGGER.error("Error connecting to MongoDB", ex, DataMapHolder.getLogMap());
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Calls resource-changed after the document has been saved; if the deadline has passed the delta is retried.
+     */
+    private ServiceStatus publishChanged(ResourceChangedRequest changedRequest, String message) {
+        try {
+            deadlines.check(Phase.RESOURCE_CHANGED);
+            ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(changedRequest);
+            LOGGER.info(message, DataMapHolder.getLogMap());
+            return serviceStatus;
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Illegal argument exception caught when processing upsert", ex, DataMapHolder.getLogMap());
+            return ServiceStatus.SERVER_ERROR;
+        } catch (DeadlineExceededException ex) {
             return ServiceStatus.SERVER_ERROR;
         }
     }
 
+    private static boolean isLatest(OffsetDateTime deltaAt, CompanyRegistersDocument storedDocument) {
+        if (StringUtils.isBlank(storedDocument.getDeltaAt())) {
+            return true;
+        }
+        OffsetDateTime storedDeltaAt = ZonedDateTime.parse(storedDocument.getDeltaAt(), FORMATTER).toOffsetDateTime();
+        // deleted registers are only recreated by a delta after the delete
+        if (storedDocument.isTombstone()) {
+            return deltaAt.isAfter(storedDeltaAt);
+        }
+        // use compareTo >= 0 instead of isAfter to allow the same delta to be re-run to ensure the stream
+        // always gets updated by a retry if any call to /resource-changed fails the delta
+        return !deltaAt.isBefore(storedDeltaAt);
+    }
+
+    private Written applyUnchangedDelta(String companyNumber, InternalRegisters requestBody,
+            CompanyRegistersDocument existingDocument, CompanyRegistersDocument document) {
+        boolean retry = document.getDeltaAt().equals(existingDocument.getDeltaAt());
+        // the outbox has already stored the event for the original delta, so only direct publishing needs the retry
+        if (retry && contentHash.isRepublishRetries() && !outbox.isEnabled()) {
+            contentHash.recordNoOp(true);
+            return new Written(ServiceStatus.SUCCESS, () -> publishChanged(
+                    new ResourceChangedRequest(companyNumber, null, false),
+                    "Company registers unchanged, ChsKafka api CHANGED invoked for retried delta"));
+        }
+        if (!retry) {
+            repository.updateDeltaAt(companyNumber, document.getDeltaAt());
+        }
+        deltaWatermarks.advance(companyNumber, requestBody.getInternalData().getDeltaAt());
+        contentHash.recordNoOp(false);
+        LOGGER.info("Company registers unchanged, only delta_at updated in MongoDb", DataMapHolder.getLogMap());
+        return Written.done(ServiceStatus.SUCCESS);
+    }
+
     @Override
     public Optional<CompanyRegistersDocument> getCompanyRegisters(String companyNumber) {
+        if (knownCompaniesFilter.isDefinitelyAbsent(companyNumber)) {
+            LOGGER.info("Company registers not in known companies filter", DataMapHolder.getLogMap());
+            return Optional.empty();
+        }
+        deadlines.check(Phase.MONGO);
         try {
-            return repository.findById(companyNumber);
+            // concurrent GETs for the same company share one in-flight read, so the result must not be mutated
+            Optional<CompanyRegistersDocument> document = singleFlight.execute(companyNumber,
+                    () -> batchingLoader.isEnabled() ? batchingLoader.load(companyNumber)
+                            : readLane.isEnabled() ? readLane.findById(companyNumber)
+                            : repository.findById(companyNumber))
+                    .filter(stored -> !stored.isTombstone());
+            if (document.isEmpty()) {
+                knownCompaniesFilter.recordFalsePositive();
+            }
+            return document;
         } catch (DataAccessException ex) {
+            deadlines.recordIfExceeded(Phase.MONGO);
             LOGGER.error("Failed to connect to MongoDb", ex, DataMapHolder.getLogMap());
             throw new ServiceUnavailableException("Data access exception thrown when calling Mongo Repository");
         }
     }
 
     @Override
-    public ServiceStatus deleteCompanyRegisters(String companyNumber) {
+    public ServiceStatus deleteCompanyRegisters(String companyNumber, String deltaAt) {
+        if (deltaAt != null) {
+            // rejected as a bad request if it is not in the stored delta_at format
+            FORMATTER.parse(deltaAt);
+        }
+        Written written = companyLocks.isEnabled()
+                ? companyLocks.withLock(companyNumber, () -> delete(companyNumber, deltaAt),
+                        Written.done(ServiceStatus.SERVER_ERROR))
+                : delete(companyNumber, deltaAt);
+        return written.publish();
+    }
+
+    private Written delete(String companyNumber, String deltaAt) {
         try {
-            Optional<CompanyRegistersDocument> document = getCompanyRegisters(companyNumber);
-            if (document.isEmpty()) {
+            deadlines.check(Phase.MONGO);
+            if (knownCompaniesFilter.isDefinitelyAbsent(companyNumber)) {
+                LOGGER.info("Company registers do not exist", DataMapHolder.getLogMap());
+                return Written.done(ServiceStatus.CLIENT_ERROR);
+            }
+
+            if (outbox.isEnabled()) {
+                // the event is built from the document removed in the same transaction
+                CompanyRegistersDocument deleted = outbox.deleteWithEvent(() -> remove(companyNumber, deltaAt),
+                        removed -> new ResourceChangedRequest(companyNumber, removed.getData(), true));
+                if (deleted == null) {
+                    LOGGER.info("Company registers do not exist", DataMapHolder.getLogMap());
+                    return Written.done(ServiceStatus.CLIENT_ERROR);
+                }
+                deltaWatermarks.remove(companyNumber);
+                LOGGER.info("Company registers deleted in MongoDb with resource changed event queued",
+                        DataMapHolder.getLogMap());
+                return Written.done(ServiceStatus.SUCCESS);
+            }
+
+            CompanyRegistersDocument deleted = remove(companyNumber, deltaAt);
+            if (deleted == null) {
                 LOGGER.info("Company registers do not exist", DataMapHolder.getLogMap());
-                return ServiceStatus.CLIENT_ERROR;
+                return Written.done(ServiceStatus.CLIENT_ERROR);
             }
+            deltaWatermarks.remove(companyNumber);
+            LOGGER.info("Company registers deleted in MongoDb", DataMapHolder.getLogMap());
+            return new Written(ServiceStatus.SUCCESS, () -> publishDeleted(companyNumber, deleted));
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Illegal argument exception caught when processing delete", ex, DataMapHolder.getLogMap());
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        } catch (DeadlineExceededException ex) {
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        } catch (DataAccessException | TransactionException ex) {
+            deadlines.recordIfExceeded(Phase.MONGO);
+            OverloadSignal.raiseCurrent();
+            LOGGER.error("Error connecting to MongoDB", ex, DataMapHolder.getLogMap());
+            return Written.done(ServiceStatus.SERVER_ERROR);
+        }
+    }
 
-            ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(
-                    new ResourceChangedRequest(companyNumber, document.get().getData(), true));
-            LOGGER.info("ChsKafka api DELETED invoked successfully", DataMapHolder.getLogMap());
+    /**
+     * Removes the document and returns it in one operation, so the deleted data is exactly what was removed and an
+     * upsert cannot land between reading the document and deleting it.
+     *
+     * @return the removed document, or null if there was no live document
+     */
+    private CompanyRegistersDocument remove(String companyNumber, String deltaAt) {
+        return tombstones.isEnabled()
+                ? tombstones.replaceWithTombstone(companyNumber, deltaAt)
+                : repository.removeById(companyNumber);
+    }
 
+    /**
+     * Calls resource-changed once the company's lock has been released, putting the deleted document back if the
+     * event could not be published.
+     */
+    private ServiceStatus publishDeleted(String companyNumber, CompanyRegistersDocument deleted) {
+        try {
+            ServiceStatus serviceStatus;
+            try {
+                deadlines.check(Phase.RESOURCE_CHANGED);
+                serviceStatus = registersApiService.invokeChsKafkaApi(
+                        new ResourceChangedRequest(companyNumber, deleted.getData(), true));
+            } catch (IllegalArgumentException | DeadlineExceededException ex) {
+                restore(deleted);
+                throw ex;
+            }
             if (ServiceStatus.SUCCESS.equals(serviceStatus)) {
-                repository.deleteById(companyNumber);
-                LOGGER.info("Company registers deleted in MongoDb", DataMapHolder.getLogMap());
+                LOGGER.info("ChsKafka api DELETED invoked successfully", DataMapHolder.getLogMap());
+            } else {
+                restore(deleted);
             }
             return serviceStatus;
         } catch (IllegalArgumentException ex) {
             LOGGER.error("Error calling chs-kafka-api", ex, DataMapHolder.getLogMap());
             return ServiceStatus.SERVER_ERROR;
-        } catch (DataAccessException ex) {
+        } catch (DeadlineExceededException ex) {
+            return ServiceStatus.SERVER_ERROR;
+        } catch (DataAccessException | TransactionException ex) {
+            OverloadSignal.raiseCurrent();
             LOGGER.error("Error connecting to MongoDB", ex, DataMapHolder.getLogMap());
             return ServiceStatus.SERVER_ERROR;
         }
     }
+
+    /**
+     * Puts back a document whose deleted event could not be published, so the delete can be retried. A document
+     * recreated by a newer upsert in the meantime, which the company's lock no longer prevents, is left as it is: it
+     * is only inserted, or only replaces its own tombstone. This runs whatever the deadline, as the delete is only
+     * retried if the document is back.
+     */
+    private void restore(CompanyRegistersDocument deleted) {
+        boolean restored = Deadline.withoutDeadline(() -> {
+            if (tombstones.isEnabled()) {
+                return tombstones.restore(deleted);
+            }
+            try {
+                repository.insert(deleted);
+                return true;
+            } catch (DuplicateKeyException ex) {
+                return false;
+            }
+        });
+        LOGGER.info(restored ? "Company registers restored in MongoDb after chs-kafka-api failure"
+                : "Company registers not restored as they have been recreated by a newer delta",
+                DataMapHolder.getLogMap());
+    }
+
+    /**
+     * The outcome of a write made under the company's lock, with the resource-changed call to make once the lock has
+     * been released, if any.
+     */
+    private record Written(ServiceStatus status, Supplier<ServiceStatus> event) {
+
+        private static Written done(ServiceStatus status) {
+            return new Written(status, null);
+        }
+
+        private ServiceStatus publish() {
+            return event == null ? status : event.get();
+        }
+    }
 }
@@ -0,0 +1,222 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.util.RegistersSnapshot;
+import uk.gov.companieshouse.registers.util.RegistersSnapshotWriter;
+
+/**
+ * Maintains an optional local snapshot of company registers, used to keep serving GETs while MongoDB is unreachable.
+ * <p>
+ * The snapshot covers either the persisted hot set or the whole collection. Each refresh streams the live ids in
+ * order, re-reads documents that are new to the snapshot or were updated since the previous refresh in batches,
+ * copies every other body across from the current mapping and drops companies that no longer exist, then atomically
+ * replaces the file.
+ */
+@Component
+public class RegistersSnapshotService implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers";
+    private static final String ID = "_id";
+    private static final String UPDATED = "updated";
+    private static final String AT = "at";
+    private static final String UPDATED_AT = UPDATED + "." + AT;
+    private static final int FETCH_BATCH_SIZE = 500;
+    private static final int MAX_WINDOW_SIZE = 10_000;
+
+    private final boolean enabled;
+    private final Path path;
+    private final boolean hotSetOnly;
+    private final int hotSetSize;
+    private final Duration refreshOverlap;
+    private final MongoTemplate mongoTemplate;
+    private final RegistersRepository repository;
+    private final HotSetStore hotSetStore;
+    private final ObjectMapper objectMapper;
+    private final Counter served;
+
+    private volatile RegistersSnapshot current;
+
+    public RegistersSnapshotService(@Value("${registers.snapshot.enabled}") boolean enabled,
+            @Value("${registers.snapshot.path}") String path,
+            @Value("${registers.snapshot.hot-set-only}") boolean hotSetOnly,
+            @Value("${registers.snapshot.hot-set-size}") int hotSetSize,
+            @Value("${registers.snapshot.refresh-overlap-ms}") long refreshOverlapMillis,
+            MongoTemplate mongoTemplate, RegistersRepository repository, HotSetStore hotSetStore,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.hotSetOnly = hotSetOnly;
+        this.hotSetSize = hotSetSize;
+        this.refreshOverlap = Duration.ofMillis(refreshOverlapMillis);
+        this.mongoTemplate = mongoTemplate;
+        this.repository = repository;
+        this.hotSetStore = hotSetStore;
+        this.objectMapper = objectMapper;
+        this.served = meterRegistry.counter("registers.snapshot.served");
+        Gauge.builder("registers.snapshot.entries", this, s -> s.current == null ? 0 : s.current.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps any snapshot left by a previous run, so a restarted node can serve degraded reads before it first
+     * reaches MongoDB.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled && Files.exists(path)) {
+            try {
+                current = RegistersSnapshot.open(path);
+            } catch (IOException | IllegalArgumentException ex) {
+                LOGGER.error("Failed to open registers snapshot", ex, DataMapHolder.getLogMap());
+            }
+        }
+    }
+
+    public Optional<SnapshotEntry> find(String companyNumber) {
+        RegistersSnapshot snapshot = current;
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        Optional<SnapshotEntry> entry = snapshot.find(companyNumber)
+                .map(body -> new SnapshotEntry(body, snapshot.getCreatedAt()));
+        entry.ifPresent(found -> served.increment());
+        return entry;
+    }
+
+    @Scheduled(fixedDelayString = "${registers.snapshot.refresh-interval-ms}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Instant refreshStart = Instant.now();
+        RegistersSnapshot previous = current;
+        try {
+            Bson scope = hotSetOnly ? Filters.and(Filters.in(ID, hotSetStore.load(hotSetSize)), Tombstones.live())
+                    : Tombstones.live();
+            Date updatedSince = previous == null ? null : Date.from(previous.getCreatedAt().minus(refreshOverlap));
+            int reRead;
+            try (RegistersSnapshotWriter writer = new RegistersSnapshotWriter(path, refreshStart)) {
+                reRead = write(writer, scope, previous, updatedSince);
+                writer.commit();
+            }
+            current = RegistersSnapshot.open(path);
+            LOGGER.info("Registers snapshot refreshed with %d entries, %d re-read".formatted(
+                    current.size(), reRead), DataMapHolder.getLogMap());
+        } catch (IOException | DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to refresh registers snapshot", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    /**
+     * Streams the live ids in order into the writer, re-reading stale bodies a batch at a time, so memory is bounded
+     * by the batch rather than by the size of the collection.
+     *
+     * @return the number of bodies re-read from MongoDB
+     */
+    private int write(RegistersSnapshotWriter writer, Bson scope, RegistersSnapshot previous, Date updatedSince)
+            throws IOException {
+        // ids waiting to be written, in order; those in stale have their bodies re-read before the window is written
+        List<String> window = new ArrayList<>();
+        List<String> stale = new ArrayList<>(FETCH_BATCH_SIZE);
+        int reRead = 0;
+        for (Document document : mongoTemplate.getCollection(COLLECTION)
+                .find(scope)
+                .projection(Projections.include(ID, UPDATED_AT))
+                .sort(Sorts.ascending(ID))) {
+            String id = document.getString(ID);
+            if (!RegistersSnapshotWriter.isIndexable(id)) {
+                continue;
+            }
+            Optional<ByteBuffer> kept = previous == null || isUpdatedSince(document, updatedSince)
+                    ? Optional.empty() : previous.find(id);
+            if (kept.isEmpty()) {
+                stale.add(id);
+            } else if (stale.isEmpty()) {
+                writer.add(id, kept.get());
+                continue;
+            }
+            window.add(id);
+            if (stale.size() == FETCH_BATCH_SIZE || window.size() >= MAX_WINDOW_SIZE) {
+                reRead += flush(writer, window, stale, previous);
+            }
+        }
+        reRead += flush(writer, window, stale, previous);
+        return reRead;
+    }
+
+    private int flush(RegistersSnapshotWriter writer, List<String> window, List<String> stale,
+            RegistersSnapshot previous) throws IOException {
+        Map<String, ByteBuffer> fresh = fetch(stale);
+        for (String id : window) {
+            ByteBuffer body = fresh.get(id);
+            if (body == null && previous != null) {
+                body = previous.find(id).orElse(null);
+            }
+            if (body != null) {
+                writer.add(id, body);
+            }
+        }
+        window.clear();
+        stale.clear();
+        return fresh.size();
+    }
+
+    private static boolean isUpdatedSince(Document document, Date updatedSince) {
+        Document updated = document.get(UPDATED, Document.class);
+        Date updatedAt = updated == null ? null : updated.getDate(AT);
+        return updatedAt == null || !updatedAt.before(updatedSince);
+    }
+
+    private Map<String, ByteBuffer> fetch(List<String> ids) throws JsonProcessingException {
+        Map<String, ByteBuffer> bodies = new HashMap<>();
+        if (ids.isEmpty()) {
+            return bodies;
+        }
+        for (CompanyRegistersDocument document : repository.findAllById(ids)) {
+            // serialised with the web object mapper so the body is byte-for-byte what a live GET would return
+            bodies.put(document.getId(), ByteBuffer.wrap(objectMapper.writeValueAsBytes(document.getData())));
+        }
+        return bodies;
+    }
+
+    /**
+     * A company's JSON body as a read-only slice of the snapshot mapping, and when the snapshot was taken.
+     */
+    public record SnapshotEntry(ByteBuffer body, Instant snapshotAt) {
+    }
+}
@@ -0,0 +1,118 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.mongodb.MongoException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+
+/**
+ * Prefetches the persisted hot set of registers when the application starts, so that a newly deployed node does not
+ * take its first traffic against a cold MongoDB cache, an empty connection pool and an unwarmed decode path. The node
+ * reports itself out of service on the healthcheck until the prefetch has finished or its time budget has run out.
+ */
+@Component
+public class RegistersWarmUp implements HealthIndicator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final RegistersRepository repository;
+    private final HotSetStore hotSetStore;
+    private final HotKeyTracker hotKeyTracker;
+    private final boolean enabled;
+    private final int hotSetSize;
+    private final int batchSize;
+    private final int parallelism;
+    private final long timeBudgetMillis;
+
+    private volatile boolean ready;
+
+    public RegistersWarmUp(RegistersRepository repository, HotSetStore hotSetStore, HotKeyTracker hotKeyTracker,
+            @Value("${registers.warm-up.enabled}") boolean enabled,
+            @Value("${registers.warm-up.hot-set-size}") int hotSetSize,
+            @Value("${registers.warm-up.batch-size}") int batchSize,
+            @Value("${registers.warm-up.parallelism}") int parallelism,
+            @Value("${registers.warm-up.time-budget-ms}") long timeBudgetMillis) {
+        this.repository = repository;
+        this.hotSetStore = hotSetStore;
+        this.hotKeyTracker = hotKeyTracker;
+        this.enabled = enabled;
+        this.hotSetSize = hotSetSize;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.timeBudgetMillis = timeBudgetMillis;
+        this.ready = !enabled;
+    }
+
+    @Override
+    public Health health() {
+        return ready ? Health.up().build() : Health.outOfService().build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        Thread.ofPlatform().name("registers-warm-up").daemon().start(this::prefetch);
+    }
+
+    @Scheduled(fixedDelayString = "${registers.warm-up.persist-interval-ms}",
+            initialDelayString = "${registers.warm-up.persist-interval-ms}")
+    public void persistHotSet() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            hotSetStore.save(hotKeyTracker.top(Operation.GET));
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to persist hot set", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    void prefetch() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("registers-warm-up-", 0).daemon().factory());
+        AtomicLong prefetched = new AtomicLong();
+        try {
+            List<String> companyNumbers = executor.submit(() -> hotSetStore.load(hotSetSize))
+                    .get(timeBudgetMillis, TimeUnit.MILLISECONDS);
+            List<Future<?>> batches = new ArrayList<>();
+            for (int from = 0; from < companyNumbers.size(); from += batchSize) {
+                List<String> batch = companyNumbers.subList(from, Math.min(from + batchSize, companyNumbers.size()));
+                batches.add(executor.submit(
+                        () -> repository.findAllById(batch).forEach(document -> prefetched.incrementAndGet())));
+            }
+            for (Future<?> batch : batches) {
+                batch.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            LOGGER.info("Prefetched %d hot company registers".formatted(prefetched.get()), DataMapHolder.getLogMap());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            LOGGER.error("Warm-up abandoned after prefetching %d company registers".formatted(prefetched.get()), ex,
+                    DataMapHolder.getLogMap());
+        } finally {
+            executor.shutdownNow();
+            ready = true;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.logging.DataMapHolder.RequestContext;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.RequestDeadlines.Phase;
+import uk.gov.companieshouse.registers.util.Deadline;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
+
+/**
+ * Optional executor for PUT and DELETE, so the MongoDB reads and writes and the chs-kafka-api call of a write run off
+ * the container thread, which is handed back to serve GETs while the write is in progress. The executor has a fixed
+ * number of threads and a bounded queue; a write that cannot be queued, or that does not finish within the timeout,
+ * returns SERVER_ERROR, which the controller reports as 503. The timeout is shortened to the request's deadline and
+ * is the write's deadline on the executor thread, so a write is fenced off once its 503 has been sent: one still
+ * queued is not attempted, and one already running has its MongoDB operations and chs-kafka-api call cut short and is
+ * abandoned at its next phase, rather than racing the retry of the request.
+ * <p>
+ * When disabled, AsyncRegistersWriteController is not registered and writes run on the container thread as before.
+ */
+@Component
+public class RegistersWriteExecutor implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final boolean enabled;
+    private final int threads;
+    private final long timeoutMillis;
+    private final RequestDeadlines deadlines;
+    private final BlockingQueue<Runnable> queue;
+    private final Counter queueFullRejections;
+    private final Counter timeouts;
+
+    private ThreadPoolExecutor executor;
+
+    public RegistersWriteExecutor(@Value("${registers.write-executor.enabled}") boolean enabled,
+            @Value("${registers.write-executor.threads}") int threads,
+            @Value("${registers.write-executor.queue-capacity}") int queueCapacity,
+            @Value("${registers.write-executor.timeout-ms}") long timeoutMillis,
+            RequestDeadlines deadlines, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.threads = threads;
+        this.timeoutMillis = timeoutMillis;
+        this.deadlines = deadlines;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueFullRejections = meterRegistry.counter("registers.write_executor.rejected", "reason",
+                "queue_full");
+        this.timeouts = meterRegistry.counter("registers.write_executor.rejected", "reason", "timeout");
+        Gauge.builder("registers.write_executor.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+                Thread.ofPlatform().name("registers-write-", 0).daemon().factory());
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the write on the executor, with the caller's request id and the company number in DataMapHolder, a
+     * deadline at its timeout and the caller's OverloadSignal.
+     *
+     * @return the status returned by the write, or SERVER_ERROR if it was refused or timed out
+     */
+    public CompletableFuture<ServiceStatus> submit(String companyNumber, Supplier<ServiceStatus> write) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(write.get());
+        }
+        RequestContext context = DataMapHolder.capture().companyNumber(companyNumber);
+        // the timeout fires on another thread, so its log entry uses a copy of the caller's log map
+        Map<String, Object> logMap = new HashMap<>(DataMapHolder.getLogMap());
+        Duration maxTimeout = Duration.ofMillis(timeoutMillis);
+        Deadline fence = Deadline.current()
+                .filter(deadline -> deadline.remaining().compareTo(maxTimeout) <= 0)
+                .orElseGet(() -> Deadline.after(maxTimeout));
+        long timeout = fence.bound(maxTimeout).toMillis();
+        OverloadSignal signal = OverloadSignal.current().orElse(null);
+        CompletableFuture<ServiceStatus> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    // timed out while queued, so the caller has already been answered
+                    return;
+                }
+                Deadline.set(fence);
+                OverloadSignal.set(signal);
+                try {
+                    DataMapHolder.runWith(context, () -> {
+                        deadlines.check(Phase.QUEUED);
+                        return result.complete(write.get());
+                    });
+                } catch (DeadlineExceededException ex) {
+                    result.complete(ServiceStatus.SERVER_ERROR);
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                } finally {
+                    Deadline.clear();
+                    OverloadSignal.clear();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            queueFullRejections.increment();
+            LOGGER.error("Too many writes in progress, request not processed", DataMapHolder.getLogMap());
+            return CompletableFuture.completedFuture(ServiceStatus.SERVER_ERROR);
+        }
+        return result.orTimeout(timeout, TimeUnit.MILLISECONDS).exceptionally(ex -> {
+            if (ex instanceof TimeoutException) {
+                timeouts.increment();
+                if (signal != null) {
+                    signal.raise();
+                }
+                LOGGER.error("Write did not complete within %d ms".formatted(timeout), logMap);
+                return ServiceStatus.SERVER_ERROR;
+            }
+            throw ex instanceof CompletionException completionException ? completionException
+                    : new CompletionException(ex);
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.service.ConcurrencyLimitFilter.EndpointClass;
+import uk.gov.companieshouse.registers.util.Deadline;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
+
+/**
+ * Optional end-to-end deadlines for the registers endpoints. A request's budget is taken from a header, in
+ * milliseconds, or is the default for its endpoint; DeadlineFilter sets it as the current Deadline, which bounds each
+ * MongoDB operation and the chs-kafka-api call. A request is abandoned at the start of the next phase once its
+ * deadline has passed, rather than running work whose result nobody is waiting for. Deadlines exceeded are counted by
+ * the phase they were exceeded in.
+ */
+@Component
+public class RequestDeadlines {
+
+    public enum Phase {
+        QUEUED,
+        MONGO,
+        RESOURCE_CHANGED
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final boolean enabled;
+    private final String header;
+    private final Duration readBudget;
+    private final Duration writeBudget;
+    private final Map<Phase, Counter> exceeded = new EnumMap<>(Phase.class);
+
+    public RequestDeadlines(@Value("${registers.deadlines.enabled}") boolean enabled,
+            @Value("${registers.deadlines.header}") String header,
+            @Value("${registers.deadlines.read-ms}") long readMillis,
+            @Value("${registers.deadlines.write-ms}") long writeMillis,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.header = header;
+        this.readBudget = Duration.ofMillis(readMillis);
+        this.writeBudget = Duration.ofMillis(writeMillis);
+        for (Phase phase : Phase.values()) {
+            exceeded.put(phase, meterRegistry.counter("registers.deadlines.exceeded", "phase",
+                    phase.name().toLowerCase()));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @param headerValue the budget the caller sent, or null to use the endpoint's default. A caller can only shorten
+     *                    the default: a budget that is not a whole number of milliseconds from 1 up to the default is
+     *                    ignored
+     */
+    public Deadline forRequest(EndpointClass endpoint, String headerValue) {
+        Duration budget = endpoint == EndpointClass.READ ? readBudget : writeBudget;
+        if (headerValue != null) {
+            long millis = parseMillis(headerValue);
+            if (millis >= 1 && millis <= budget.toMillis()) {
+                budget = Duration.ofMillis(millis);
+            } else {
+                LOGGER.info("Ignoring invalid %s header: %s".formatted(header, headerValue),
+                        DataMapHolder.getLogMap());
+            }
+        }
+        return Deadline.after(budget);
+    }
+
+    /**
+     * @return the milliseconds, or -1 if the value is not a number
+     */
+    private static long parseMillis(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Abandons the request before the given phase if its deadline has passed.
+     *
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public void check(Phase phase) {
+        if (Deadline.isCurrentExpired()) {
+            exceeded.get(phase).increment();
+            OverloadSignal.raiseCurrent();
+            LOGGER.info("Request deadline passed before %s, request abandoned".formatted(
+                    phase.name().toLowerCase()), DataMapHolder.getLogMap());
+            throw new DeadlineExceededException("Request deadline passed before " + phase.name().toLowerCase());
+        }
+    }
+
+    /**
+     * Counts a failed operation against the phase if the deadline has passed, as the operation will have been cut
+     * short by it.
+     */
+    public void recordIfExceeded(Phase phase) {
+        if (Deadline.isCurrentExpired()) {
+            exceeded.get(phase).increment();
+            OverloadSignal.raiseCurrent();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.api.chskafka.ChangedResource;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+
+/**
+ * Optional dead-letter store for resource-changed events that still failed after every retry. Events are kept in the
+ * company_registers_resource_changed_dlq collection, serialised exactly as they would have been sent, until they are
+ * redriven.
+ * <p>
+ * A redrive claims the events it will send by leasing them to itself, so concurrent redrives, on this node or others,
+ * never send the same event twice. The lease of an event whose redrive failed, or whose redrive's node went away,
+ * expires, after which the event can be claimed again.
+ */
+@Component
+public class ResourceChangedDeadLetters {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers_resource_changed_dlq";
+    private static final String ID = "_id";
+    private static final String EVENT = "event";
+    private static final String REQUEST_ID = "request_id";
+    private static final String CREATED_AT = "created_at";
+    private static final String REDRIVE_ATTEMPTS = "redrive_attempts";
+    private static final String LEASE_OWNER = "lease_owner";
+    private static final String LEASED_UNTIL = "leased_until";
+
+    private final boolean enabled;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter deadLettered;
+
+    public ResourceChangedDeadLetters(@Value("${registers.dead-letters.enabled}") boolean enabled,
+            MongoTemplate mongoTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.deadLettered = meterRegistry.counter("registers.chs_kafka_api.dead_lettered");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true if the event was stored, false if it could not be, in which case the failure must be reported
+     */
+    public boolean add(ChangedResource event) {
+        try {
+            mongoTemplate.getCollection(COLLECTION).insertOne(new Document(EVENT,
+                    objectMapper.writeValueAsString(event))
+                    .append(REQUEST_ID, DataMapHolder.getRequestId())
+                    .append(CREATED_AT, new Date())
+                    .append(REDRIVE_ATTEMPTS, 0));
+            deadLettered.increment();
+            return true;
+        } catch (JsonProcessingException | DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to dead-letter resource changed event", ex, DataMapHolder.getLogMap());
+            return false;
+        }
+    }
+
+    /**
+     * Leases up to the given number of the oldest unleased events to the caller. Each event is leased by a single
+     * conditional update, so an event that another redrive claimed first is left out.
+     */
+    public List<DeadLetter> claim(int limit, Duration lease) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+        Date now = new Date();
+        Bson claimable = Filters.or(Filters.exists(LEASED_UNTIL, false), Filters.lt(LEASED_UNTIL, now));
+        List<ObjectId> ids = collection.find(claimable)
+                .projection(Projections.include(ID))
+                .sort(Sorts.ascending(CREATED_AT))
+                .limit(limit)
+                .map(document -> document.getObjectId(ID))
+                .into(new ArrayList<>());
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        ObjectId owner = new ObjectId();
+        collection.updateMany(Filters.and(Filters.in(ID, ids), claimable),
+                Updates.combine(Updates.set(LEASE_OWNER, owner),
+                        Updates.set(LEASED_UNTIL, new Date(now.getTime() + lease.toMillis()))));
+        List<DeadLetter> deadLetters = new ArrayList<>(ids.size());
+        for (Document document : collection.find(Filters.eq(LEASE_OWNER, owner)).sort(Sorts.ascending(CREATED_AT))) {
+            try {
+                deadLetters.add(new DeadLetter(document.getObjectId(ID),
+                        objectMapper.readValue(document.getString(EVENT), ChangedResource.class),
+                        document.getString(REQUEST_ID), document.getDate(CREATED_AT).toInstant()));
+            } catch (JsonProcessingException ex) {
+                LOGGER.error("Unreadable dead-lettered event %s".formatted(document.getObjectId(ID)), ex,
+                        DataMapHolder.getLogMap());
+            }
+        }
+        return deadLetters;
+    }
+
+    public void remove(ObjectId id) {
+        mongoTemplate.getCollection(COLLECTION).deleteOne(Filters.eq(ID, id));
+    }
+
+    /**
+     * Counts the failed attempt. The event stays leased, so the redrive that failed it does not claim it again, and
+     * can be claimed by another once the lease expires.
+     */
+    public void recordFailedRedrive(ObjectId id) {
+        mongoTemplate.getCollection(COLLECTION).updateOne(Filters.eq(ID, id), Updates.inc(REDRIVE_ATTEMPTS, 1));
+    }
+
+    public long count() {
+        return mongoTemplate.getCollection(COLLECTION).countDocuments();
+    }
+
+    /**
+     * @param createdAt when the event was dead-lettered
+     */
+    public record DeadLetter(ObjectId id, ChangedResource event, String requestId, Instant createdAt) {
+    }
+}
@@ -0,0 +1,408 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.InternalServerErrorException;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+
+/**
+ * Optional transactional outbox for resource-changed events. When enabled, upserts and deletes write their event to
+ * the company_registers_outbox collection in the same MongoDB transaction as the document change, and a scheduled
+ * relay publishes pending events to chs-kafka-api in the order they were written and marks them done.
+ * <p>
+ * The relay runs on a thread of its own, so it is not held up by other scheduled jobs. Each run claims a batch of the
+ * oldest entries that are not leased or backing off by taking a lease on them, so an entry whose publisher dies is
+ * picked up again once the lease runs out, and marks the published ones done together. A company with an earlier
+ * pending entry that is leased is skipped, so its events stay in order. The claimed entries are sent on a bounded pool
+ * of sender threads: each company's entries one after another, and different companies' in parallel.
+ * <p>
+ * A failed publish backs the entry off exponentially and hands the company's later entries back unsent; other
+ * companies' entries go ahead. After the maximum number of attempts an entry is moved to the failed status, where it
+ * is kept for investigation, and the company's later events go ahead. Relays on different nodes can publish
+ * neighbouring entries at the same time, so strict ordering only holds within a node. Done entries expire via a TTL
+ * index.
+ */
+@Component
+public class ResourceChangedOutbox implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers_outbox";
+    private static final String SERDES_ERROR_MSG = "Serialisation failed when writing deleted data to the outbox";
+    private static final String ID = "_id";
+    private static final String COMPANY_NUMBER = "company_number";
+    private static final String DELETED = "deleted";
+    private static final String DELETED_DATA = "deleted_data";
+    private static final String FIELDS_CHANGED = "fields_changed";
+    private static final String REQUEST_ID = "request_id";
+    private static final String STATUS = "status";
+    private static final String CREATED_AT = "created_at";
+    private static final String LEASE_UNTIL = "lease_until";
+    private static final String LEASE_OWNER = "lease_owner";
+    private static final String ATTEMPTS = "attempts";
+    private static final String DONE_AT = "done_at";
+    private static final String FAILED_AT = "failed_at";
+    private static final String PENDING = "pending";
+    private static final String DONE = "done";
+    private static final String FAILED = "failed";
+
+    private final boolean enabled;
+    private final long pollIntervalMillis;
+    private final Duration lease;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final long doneTtlSeconds;
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RegistersApiService registersApiService;
+    private final ObjectMapper objectMapper;
+    private final Counter failed;
+    private final ExecutorService senders;
+
+    private ScheduledExecutorService relayThread;
+    private volatile long depth;
+    private volatile Instant oldestPendingAt;
+    private boolean indexesCreated;
+
+    public ResourceChangedOutbox(@Value("${registers.outbox.enabled}") boolean enabled,
+            @Value("${registers.outbox.poll-interval-ms}") long pollIntervalMillis,
+            @Value("${registers.outbox.lease-ms}") long leaseMillis,
+            @Value("${registers.outbox.batch-size}") int batchSize,
+            @Value("${registers.outbox.parallelism}") int parallelism,
+            @Value("${registers.outbox.max-attempts}") int maxAttempts,
+            @Value("${registers.outbox.initial-backoff-ms}") long initialBackoffMillis,
+            @Value("${registers.outbox.max-backoff-ms}") long maxBackoffMillis,
+            @Value("${registers.outbox.done-ttl-seconds}") long doneTtlSeconds,
+            MongoTemplate mongoTemplate, ObjectProvider<MongoTransactionManager> transactionManager,
+            RegistersApiService registersApiService, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.batchSize = batchSize;
+        // threads are only started as entries are sent
+        this.senders = enabled ? Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("outbox-sender-", 0).daemon().factory()) : null;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.doneTtlSeconds = doneTtlSeconds;
+        this.mongoTemplate = mongoTemplate;
+        this.registersApiService = registersApiService;
+        this.objectMapper = objectMapper;
+
+        MongoTransactionManager manager = transactionManager.getIfAvailable();
+        if (enabled && manager == null) {
+            throw new IllegalStateException(
+                    "The outbox needs MongoDB transactions, but no MongoDB transaction manager is configured");
+        }
+        this.transactionTemplate = manager == null ? null : new TransactionTemplate(manager);
+        this.failed = meterRegistry.counter("registers.outbox.failed");
+
+        Gauge.builder("registers.outbox.depth", this, o -> o.depth)
+                .register(meterRegistry);
+        Gauge.builder("registers.outbox.oldest_age", this, ResourceChangedOutbox::oldestAgeSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        relayThread = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("outbox-relay").daemon().factory());
+        relayThread.scheduleWithFixedDelay(this::relay, pollIntervalMillis, pollIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (relayThread != null) {
+            relayThread.shutdownNow();
+        }
+        if (senders != null) {
+            senders.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs the document write and records the resource-changed event in one MongoDB transaction, so the event is
+     * stored if and only if the write is.
+     */
+    public void writeWithEvent(Runnable write, ResourceChangedRequest event) {
+        Document entry = toEntry(event);
+        transactionTemplate.executeWithoutResult(status -> {
+            write.run();
+            mongoTemplate.insert(entry, COLLECTION);
+        });
+    }
+
+    /**
+     * Runs the delete and records a resource-changed event built from what it removed in one MongoDB transaction, so
+     * the event describes exactly the document that was removed.
+     *
+     * @return what the delete removed, or null if there was nothing to remove, in which case no event is recorded
+     */
+    public <T> T deleteWithEvent(Supplier<T> delete, Function<T, ResourceChangedRequest> event) {
+        return transactionTemplate.execute(status -> {
+            T removed = delete.get();
+            if (removed != null) {
+                mongoTemplate.insert(toEntry(event.apply(removed)), COLLECTION);
+            }
+            return removed;
+        });
+    }
+
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+            createIndexes(collection);
+            Map<String, List<Document>> byCompany = claim(collection).stream()
+                    .collect(Collectors.groupingBy(entry -> entry.getString(COMPANY_NUMBER), LinkedHashMap::new,
+                            Collectors.toList()));
+            List<Callable<Relayed>> sends = byCompany.values().stream()
+                    .<Callable<Relayed>>map(entries -> () -> relay(collection, entries))
+                    .toList();
+            List<Object> published = new ArrayList<>();
+            List<Object> handedBack = new ArrayList<>();
+            for (Future<Relayed> future : senders.invokeAll(sends)) {
+                try {
+                    published.addAll(future.get().published());
+                    handedBack.addAll(future.get().handedBack());
+                } catch (ExecutionException ex) {
+                    // the company's entries are claimed again once their lease runs out
+                    LOGGER.error("Failed to relay resource changed outbox", ex.getCause(), DataMapHolder.getLogMap());
+                }
+            }
+            if (!published.isEmpty()) {
+                collection.updateMany(Filters.in(ID, published),
+                        Updates.combine(Updates.set(STATUS, DONE), Updates.set(DONE_AT, new Date())));
+            }
+            if (!handedBack.isEmpty()) {
+                // these entries were not attempted, so they are handed back as they were
+                collection.updateMany(Filters.in(ID, handedBack),
+                        Updates.combine(Updates.set(LEASE_UNTIL, new Date()), Updates.inc(ATTEMPTS, -1)));
+            }
+            refreshMetrics(collection);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to relay resource changed outbox", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    /**
+     * Publishes one company's claimed entries in order, stopping at the first that fails.
+     */
+    private Relayed relay(MongoCollection<Document> collection, List<Document> entries) {
+        List<Object> published = new ArrayList<>();
+        for (int next = 0; next < entries.size(); next++) {
+            Document entry = entries.get(next);
+            if (!publish(entry)) {
+                backOffOrFail(collection, entry);
+                return new Relayed(published, entries.subList(next + 1, entries.size()).stream()
+                        .map(later -> later.get(ID))
+                        .toList());
+            }
+            published.add(entry.get(ID));
+        }
+        return new Relayed(published, List.of());
+    }
+
+    private Document toEntry(ResourceChangedRequest event) {
+        Date now = new Date();
+        Document entry = new Document(COMPANY_NUMBER, event.companyNumber())
+                .append(DELETED, Boolean.TRUE.equals(event.isDelete()))
+                .append(REQUEST_ID, DataMapHolder.getRequestId())
+                .append(STATUS, PENDING)
+                .append(CREATED_AT, now)
+                .append(LEASE_UNTIL, now)
+                .append(ATTEMPTS, 0);
+        if (event.fieldsChanged() != null) {
+            entry.append(FIELDS_CHANGED, event.fieldsChanged());
+        }
+        if (Boolean.TRUE.equals(event.isDelete())) {
+            try {
+                // stored as JSON text, as the deleted data would otherwise be written with the MongoDB converters
+                entry.append(DELETED_DATA, objectMapper.writeValueAsString(event.registersData()));
+            } catch (JsonProcessingException ex) {
+                LOGGER.error(SERDES_ERROR_MSG, ex, DataMapHolder.getLogMap());
+                throw new InternalServerErrorException(SERDES_ERROR_MSG);
+            }
+        }
+        return entry;
+    }
+
+    private void createIndexes(MongoCollection<Document> collection) {
+        if (indexesCreated) {
+            return;
+        }
+        collection.createIndex(Indexes.ascending(STATUS, CREATED_AT));
+        collection.createIndex(Indexes.ascending(COMPANY_NUMBER, STATUS));
+        collection.createIndex(Indexes.ascending(DONE_AT),
+                new IndexOptions().expireAfter(doneTtlSeconds, TimeUnit.SECONDS));
+        indexesCreated = true;
+    }
+
+    /**
+     * Leases up to a batch of the oldest claimable entries in four round trips, however many are claimed. Entries that
+     * are leased or backing off are left out of the query rather than skipped after it, so however many there are,
+     * they cannot keep newer entries from being claimed.
+     *
+     * @return the entries this relay now holds the lease on, oldest first
+     */
+    private List<Document> claim(MongoCollection<Document> collection) {
+        Date now = new Date();
+        List<Document> candidates = collection.find(Filters.and(Filters.eq(STATUS, PENDING),
+                        Filters.lte(LEASE_UNTIL, now)))
+                .projection(Projections.include(ID, COMPANY_NUMBER, CREATED_AT))
+                .sort(Sorts.ascending(CREATED_AT))
+                .limit(batchSize)
+                .into(new ArrayList<>());
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        // a company's later events wait while an earlier one is leased by another relay or backing off
+        Map<String, Date> blockedFrom = new HashMap<>();
+        for (Document blocked : collection.find(Filters.and(Filters.eq(STATUS, PENDING), Filters.gt(LEASE_UNTIL, now),
+                        Filters.in(COMPANY_NUMBER, candidates.stream()
+                                .map(entry -> entry.getString(COMPANY_NUMBER))
+                                .distinct()
+                                .toList())))
+                .projection(Projections.include(COMPANY_NUMBER, CREATED_AT))
+                .into(new ArrayList<>())) {
+            blockedFrom.merge(blocked.getString(COMPANY_NUMBER), blocked.getDate(CREATED_AT),
+                    (first, second) -> first.before(second) ? first : second);
+        }
+        List<Object> claimable = candidates.stream()
+                .filter(entry -> {
+                    Date from = blockedFrom.get(entry.getString(COMPANY_NUMBER));
+                    return from == null || entry.getDate(CREATED_AT).before(from);
+                })
+                .map(entry -> entry.get(ID))
+                .toList();
+        if (claimable.isEmpty()) {
+            return List.of();
+        }
+        ObjectId owner = new ObjectId();
+        collection.updateMany(Filters.and(Filters.in(ID, claimable), Filters.eq(STATUS, PENDING),
+                        Filters.lte(LEASE_UNTIL, now)),
+                Updates.combine(Updates.set(LEASE_UNTIL, Date.from(now.toInstant().plus(lease))),
+                        Updates.set(LEASE_OWNER, owner), Updates.inc(ATTEMPTS, 1)));
+        return collection.find(Filters.and(Filters.in(ID, claimable), Filters.eq(LEASE_OWNER, owner)))
+                .sort(Sorts.ascending(CREATED_AT))
+                .into(new ArrayList<>());
+    }
+
+    private void backOffOrFail(MongoCollection<Document> collection, Document entry) {
+        int attempts = entry.getInteger(ATTEMPTS, 1);
+        if (attempts >= maxAttempts) {
+            collection.updateOne(Filters.eq(ID, entry.get(ID)),
+                    Updates.combine(Updates.set(STATUS, FAILED), Updates.set(FAILED_AT, new Date())));
+            failed.increment();
+            LOGGER.error("Outbox entry %s failed %d times and will not be retried".formatted(entry.get(ID),
+                    attempts), DataMapHolder.getLogMap());
+            return;
+        }
+        long backoffMillis = Math.min(maxBackoff.toMillis(),
+                initialBackoff.toMillis() << Math.min(attempts - 1, 30));
+        collection.updateOne(Filters.eq(ID, entry.get(ID)),
+                Updates.set(LEASE_UNTIL, new Date(System.currentTimeMillis() + backoffMillis)));
+    }
+
+    private boolean publish(Document entry) {
+        // publish under the request id of the PUT or DELETE that wrote the event, so it is carried as the context id
+        DataMapHolder.initialise(entry.getString(REQUEST_ID));
+        try {
+            Object deletedData = entry.getBoolean(DELETED)
+                    ? objectMapper.readValue(entry.getString(DELETED_DATA), Object.class) : null;
+            ServiceStatus status = registersApiService.invokeChsKafkaApi(new ResourceChangedRequest(
+                    entry.getString(COMPANY_NUMBER), deletedData, entry.getBoolean(DELETED),
+                    entry.getList(FIELDS_CHANGED, String.class)));
+            if (ServiceStatus.SUCCESS.equals(status)) {
+                return true;
+            }
+            LOGGER.error("Outbox relay failed to publish resource changed event", DataMapHolder.getLogMap());
+        } catch (JsonProcessingException | IllegalArgumentException ex) {
+            LOGGER.error("Outbox relay failed to publish resource changed event", ex, DataMapHolder.getLogMap());
+        } finally {
+            DataMapHolder.clear();
+        }
+        return false;
+    }
+
+    private void refreshMetrics(MongoCollection<Document> collection) {
+        depth = collection.countDocuments(Filters.eq(STATUS, PENDING));
+        Document oldest = collection.find(Filters.eq(STATUS, PENDING))
+                .sort(Sorts.ascending(CREATED_AT))
+                .limit(1)
+                .first();
+        oldestPendingAt = oldest == null ? null : oldest.getDate(CREATED_AT).toInstant();
+    }
+
+    private double oldestAgeSeconds() {
+        Instant oldest = oldestPendingAt;
+        return oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+
+    /**
+     * @param handedBack the ids of the entries that were not attempted as an earlier one for the company failed
+     */
+    private record Relayed(List<Object> published, List<Object> handedBack) {
+    }
+}
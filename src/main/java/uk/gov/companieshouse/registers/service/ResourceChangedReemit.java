@@ -0,0 +1,346 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.Sorts;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.RateLimiter;
+
+/**
+ * Admin-triggered job that re-emits a changed event for every company registers document, or for those matching a
+ * company number prefix and an updated.at range, so that a downstream index can be rebuilt without re-sending deltas.
+ * Documents are streamed in company number order with a cursor and emitted a page at a time, in parallel and at a
+ * bounded rate, through the same path as upserts.
+ * <p>
+ * After each page the last company number emitted is checkpointed in MongoDB, so a job that was cancelled or whose
+ * node went away can be resumed from where it stopped. Only one job runs per node, and jobs are not coordinated
+ * across nodes.
+ */
+@Component
+public class ResourceChangedReemit implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers";
+    private static final String CHECKPOINTS = "company_registers_reemit_checkpoints";
+    private static final String CHECKPOINT_ID = "reemit";
+    private static final String ID = "_id";
+    private static final String UPDATED_AT = "updated.at";
+    private static final String JOB_ID = "job_id";
+    private static final String STATUS = "status";
+    private static final String UPDATED_FROM = "updated_from";
+    private static final String UPDATED_TO = "updated_to";
+    private static final String COMPANY_NUMBER_PREFIX = "company_number_prefix";
+    private static final String LAST_COMPANY_NUMBER = "last_company_number";
+    private static final String EMITTED = "emitted";
+    private static final String FAILED = "failed";
+    private static final String STARTED_AT = "started_at";
+    private static final String CHECKPOINTED_AT = "checkpointed_at";
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final MongoTemplate mongoTemplate;
+    private final RegistersApiService registersApiService;
+    private final int parallelism;
+    private final double ratePerSecond;
+    private final int pageSize;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private Job job;
+    private Thread worker;
+
+    public ResourceChangedReemit(MongoTemplate mongoTemplate, RegistersApiService registersApiService,
+            @Value("${registers.reemit.parallelism}") int parallelism,
+            @Value("${registers.reemit.rate-per-second}") double ratePerSecond,
+            @Value("${registers.reemit.page-size}") int pageSize,
+            MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.registersApiService = registersApiService;
+        this.parallelism = parallelism;
+        this.ratePerSecond = ratePerSecond;
+        this.pageSize = pageSize;
+        this.succeeded = meterRegistry.counter("registers.reemit.events", "outcome", "success");
+        this.failed = meterRegistry.counter("registers.reemit.events", "outcome", "failure");
+    }
+
+    @Override
+    public void destroy() {
+        cancel();
+    }
+
+    /**
+     * Starts a job unless one is already running on this node, in which case its progress is returned instead. When
+     * resuming, the filter of the checkpointed job is used and the given one is ignored.
+     */
+    public Progress start(ReemitFilter filter, boolean resume) {
+        lock.lock();
+        try {
+            if (job != null && job.status == Status.RUNNING) {
+                return job.progress();
+            }
+            Document checkpoint = resume ? loadCheckpoint() : null;
+            job = checkpoint == null ? new Job(UUID.randomUUID().toString(), filter, null, 0, 0)
+                    : new Job(checkpoint.getString(JOB_ID), toFilter(checkpoint),
+                            checkpoint.getString(LAST_COMPANY_NUMBER), checkpoint.getLong(EMITTED),
+                            checkpoint.getLong(FAILED));
+            Job started = job;
+            worker = Thread.ofPlatform().name("resource-changed-reemit").daemon().start(() -> run(started));
+            LOGGER.info("Re-emit job %s started".formatted(started.id), DataMapHolder.getLogMap());
+            return started.progress();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void cancel() {
+        lock.lock();
+        try {
+            if (job != null) {
+                job.cancelled = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the progress of this node's current or last job, or failing that of the last checkpointed job, or null
+     *         if no job has ever run
+     */
+    public Progress progress() {
+        lock.lock();
+        try {
+            if (job != null) {
+                return job.progress();
+            }
+        } finally {
+            lock.unlock();
+        }
+        Document checkpoint = loadCheckpoint();
+        return checkpoint == null ? null : new Progress(checkpoint.getString(JOB_ID),
+                Status.valueOf(checkpoint.getString(STATUS)), toFilter(checkpoint),
+                checkpoint.getLong(EMITTED), checkpoint.getLong(FAILED), checkpoint.getString(LAST_COMPANY_NUMBER),
+                checkpoint.getDate(STARTED_AT).toInstant());
+    }
+
+    void awaitCompletion() throws InterruptedException {
+        Thread running;
+        lock.lock();
+        try {
+            running = worker;
+        } finally {
+            lock.unlock();
+        }
+        if (running != null) {
+            running.join();
+        }
+    }
+
+    private void run(Job job) {
+        DataMapHolder.initialise(job.id);
+        RateLimiter rateLimiter = new RateLimiter(ratePerSecond);
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("resource-changed-reemit-", 0).daemon().factory());
+        try {
+            MongoCollection<Document> collection = mongoTemplate.getCollection(COLLECTION);
+            try (MongoCursor<Document> cursor = collection.find(toBson(job.filter, job.lastCompanyNumber))
+                    .projection(Projections.include(ID))
+                    .sort(Sorts.ascending(ID))
+                    .batchSize(pageSize)
+                    .iterator()) {
+                List<String> page = new ArrayList<>(pageSize);
+                while (!job.cancelled && cursor.hasNext()) {
+                    page.add(cursor.next().getString(ID));
+                    if (page.size() == pageSize || !cursor.hasNext()) {
+                        emit(job, page, rateLimiter, executor);
+                        job.lastCompanyNumber = page.getLast();
+                        checkpoint(job);
+                        page.clear();
+                    }
+                }
+            }
+            job.status = job.cancelled ? Status.CANCELLED : Status.COMPLETED;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.status = Status.CANCELLED;
+        } catch (DataAccessException | MongoException | ExecutionException ex) {
+            LOGGER.error("Re-emit job %s failed".formatted(job.id), ex, DataMapHolder.getLogMap());
+            job.status = Status.FAILED;
+        } finally {
+            executor.shutdownNow();
+            saveFinalCheckpoint(job);
+            LOGGER.info("Re-emit job %s %s after emitting %d events with %d failures".formatted(job.id,
+                    job.status.name().toLowerCase(), job.emitted.get(), job.failed.get()), DataMapHolder.getLogMap());
+            DataMapHolder.clear();
+        }
+    }
+
+    private void emit(Job job, List<String> page, RateLimiter rateLimiter, ExecutorService executor)
+            throws InterruptedException, ExecutionException {
+        List<Future<?>> futures = new ArrayList<>(page.size());
+        for (String companyNumber : page) {
+            futures.add(executor.submit(() -> {
+                rateLimiter.acquire();
+                emit(job, companyNumber);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private void emit(Job job, String companyNumber) {
+        // every event of a job shares its id as the context id, so a rebuild can be traced downstream
+        DataMapHolder.initialise(job.id);
+        try {
+            ServiceStatus status = registersApiService.invokeChsKafkaApi(
+                    new ResourceChangedRequest(companyNumber, null, false));
+            if (ServiceStatus.SUCCESS.equals(status)) {
+                job.emitted.incrementAndGet();
+                succeeded.increment();
+            } else {
+                job.failed.incrementAndGet();
+                failed.increment();
+                LOGGER.error("Failed to re-emit changed event for %s".formatted(companyNumber),
+                        DataMapHolder.getLogMap());
+            }
+        } catch (RuntimeException ex) {
+            job.failed.incrementAndGet();
+            failed.increment();
+            LOGGER.error("Failed to re-emit changed event for %s".formatted(companyNumber), ex,
+                    DataMapHolder.getLogMap());
+        } finally {
+            DataMapHolder.clear();
+        }
+    }
+
+    private void saveFinalCheckpoint(Job job) {
+        try {
+            checkpoint(job);
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to checkpoint re-emit job %s".formatted(job.id), ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    private void checkpoint(Job job) {
+        ReemitFilter filter = job.filter;
+        Document checkpoint = new Document(ID, CHECKPOINT_ID)
+                .append(JOB_ID, job.id)
+                .append(STATUS, job.status.name())
+                .append(UPDATED_FROM, filter.updatedFrom() == null ? null : Date.from(filter.updatedFrom()))
+                .append(UPDATED_TO, filter.updatedTo() == null ? null : Date.from(filter.updatedTo()))
+                .append(COMPANY_NUMBER_PREFIX, filter.companyNumberPrefix())
+                .append(LAST_COMPANY_NUMBER, job.lastCompanyNumber)
+                .append(EMITTED, job.emitted.get())
+                .append(FAILED, job.failed.get())
+                .append(STARTED_AT, Date.from(job.startedAt))
+                .append(CHECKPOINTED_AT, new Date());
+        mongoTemplate.getCollection(CHECKPOINTS).replaceOne(Filters.eq(ID, CHECKPOINT_ID), checkpoint,
+                new ReplaceOptions().upsert(true));
+    }
+
+    private Document loadCheckpoint() {
+        return mongoTemplate.getCollection(CHECKPOINTS).find(Filters.eq(ID, CHECKPOINT_ID)).first();
+    }
+
+    private static ReemitFilter toFilter(Document checkpoint) {
+        Date from = checkpoint.getDate(UPDATED_FROM);
+        Date to = checkpoint.getDate(UPDATED_TO);
+        return new ReemitFilter(from == null ? null : from.toInstant(), to == null ? null : to.toInstant(),
+                checkpoint.getString(COMPANY_NUMBER_PREFIX));
+    }
+
+    static Bson toBson(ReemitFilter filter, String after) {
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Tombstones.live());
+        String prefix = filter.companyNumberPrefix();
+        if (prefix != null && !prefix.isEmpty()) {
+            // a range rather than a regex, so the _id index is used
+            filters.add(Filters.gte(ID, prefix));
+            filters.add(Filters.lt(ID, prefix + Character.MAX_VALUE));
+        }
+        if (after != null) {
+            filters.add(Filters.gt(ID, after));
+        }
+        if (filter.updatedFrom() != null) {
+            filters.add(Filters.gte(UPDATED_AT, Date.from(filter.updatedFrom())));
+        }
+        if (filter.updatedTo() != null) {
+            filters.add(Filters.lt(UPDATED_AT, Date.from(filter.updatedTo())));
+        }
+        return Filters.and(filters);
+    }
+
+    /**
+     * @param updatedFrom         inclusive, or null for no lower bound
+     * @param updatedTo           exclusive, or null for no upper bound
+     * @param companyNumberPrefix null or empty for every company
+     */
+    public record ReemitFilter(Instant updatedFrom, Instant updatedTo, String companyNumberPrefix) {
+    }
+
+    public record Progress(String jobId, Status status, ReemitFilter filter, long emitted, long failed,
+                           String lastCompanyNumber, Instant startedAt) {
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final ReemitFilter filter;
+        private final AtomicLong emitted;
+        private final AtomicLong failed;
+        private final Instant startedAt = Instant.now();
+        private volatile String lastCompanyNumber;
+        private volatile Status status = Status.RUNNING;
+        private volatile boolean cancelled;
+
+        private Job(String id, ReemitFilter filter, String lastCompanyNumber, long emitted, long failed) {
+            this.id = id;
+            this.filter = filter;
+            this.lastCompanyNumber = lastCompanyNumber;
+            this.emitted = new AtomicLong(emitted);
+            this.failed = new AtomicLong(failed);
+        }
+
+        private Progress progress() {
+            return new Progress(id, status, filter, emitted.get(), failed.get(), lastCompanyNumber, startedAt);
+        }
+    }
+}
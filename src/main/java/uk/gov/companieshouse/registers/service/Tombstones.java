@@ -0,0 +1,107 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+
+/**
+ * Optional tombstones for deleted company registers. A delete replaces the document with a compact tombstone holding
+ * only its id, the delete's delta_at and when it was deleted, so the findById an upsert already makes also finds the
+ * tombstone, and a late or replayed delta no newer than the delete is rejected without another query. Tombstones
+ * expire via a TTL index, after which a delta of any age can recreate the document.
+ */
+@Component
+public class Tombstones {
+
+    public static final String TOMBSTONED_AT = "tombstoned_at";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String COLLECTION = "company_registers";
+    private static final String ID = "_id";
+    private static final String DELTA_AT = "delta_at";
+
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final MongoTemplate mongoTemplate;
+
+    public Tombstones(@Value("${registers.tombstones.enabled}") boolean enabled,
+            @Value("${registers.tombstones.ttl-seconds}") long ttlSeconds, MongoTemplate mongoTemplate) {
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Matches documents that are not tombstones, for scans of the collection.
+     */
+    public static Bson live() {
+        return Filters.exists(TOMBSTONED_AT, false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndex() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // only tombstones have the field, so live documents never expire
+            mongoTemplate.getCollection(COLLECTION).createIndex(Indexes.ascending(TOMBSTONED_AT),
+                    new IndexOptions().expireAfter(ttlSeconds, TimeUnit.SECONDS));
+        } catch (DataAccessException | MongoException ex) {
+            LOGGER.error("Failed to create tombstone TTL index", ex, DataMapHolder.getLogMap());
+        }
+    }
+
+    /**
+     * Atomically replaces the live document with a tombstone.
+     *
+     * @param deltaAt the delete's delta_at, or null to keep the deleted document's
+     * @return the document that was replaced, or null if there was no live document
+     */
+    public CompanyRegistersDocument replaceWithTombstone(String companyNumber, String deltaAt) {
+        Document tombstone = new Document(ID, "$" + ID)
+                .append(DELTA_AT, deltaAt == null ? "$" + DELTA_AT : deltaAt)
+                .append(TOMBSTONED_AT, "$$NOW");
+        Document replaced = mongoTemplate.getCollection(COLLECTION).findOneAndUpdate(
+                Filters.and(Filters.eq(ID, companyNumber), live()),
+                List.of(new Document("$replaceWith", tombstone)),
+                new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE));
+        return replaced == null ? null : mongoTemplate.getConverter().read(CompanyRegistersDocument.class, replaced);
+    }
+
+    /**
+     * Puts back a document whose tombstone is still in place, for a delete that could not be completed.
+     *
+     * @return false if the tombstone has since been replaced by a newer upsert, which is kept
+     */
+    public boolean restore(CompanyRegistersDocument deleted) {
+        return mongoTemplate.findAndReplace(
+                Query.query(Criteria.where(ID).is(deleted.getId()).and(TOMBSTONED_AT).exists(true)),
+                deleted) != null;
+    }
+}
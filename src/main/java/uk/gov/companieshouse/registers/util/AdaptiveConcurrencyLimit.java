@@ -0,0 +1,130 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient-based adaptive concurrency limit. It keeps a short-term and a long-term average of request latency; while
+ * the short-term latency stays within a tolerance of the long-term one the limit grows by about its square root per
+ * sample, and as queueing pushes the short-term latency up the limit shrinks in proportion, by at most half. A request
+ * that fails counts as a sign of overload and cuts the limit by a tenth. The limit only grows while at least half of it
+ * is in use, so a quiet period does not leave it inflated ahead of the next burst.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final long MAX_RETRY_AFTER_SECONDS = 60;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double longAlpha;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile int limit;
+    private volatile double shortRttNanos;
+    private volatile double longRttNanos;
+    private double estimatedLimit;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+            double smoothing, int longWindow) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longAlpha = 2.0 / (longWindow + 1);
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return true if the request may go ahead, in which case {@link #release(long, boolean)} must follow
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a request acquired with {@link #tryAcquire()} and updates the limit from its latency.
+     *
+     * @param failed true if the request failed, in which case its latency is not sampled
+     */
+    public void release(long rttNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (failed) {
+                setLimit(estimatedLimit * BACKOFF_RATIO);
+                return;
+            }
+            sample(rttNanos);
+            if (inFlightBefore < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / shortRttNanos));
+            double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            setLimit(estimatedLimit * (1 - smoothing) + newLimit * smoothing);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a request acquired with {@link #tryAcquire()} without updating the limit, as its outcome says nothing
+     * about this service's load.
+     */
+    public void releaseUnsampled() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Estimates how long a rejected client should wait: the current latency of a request, plus the queueing delay it
+     * carries over the long-term latency, rounded up to whole seconds.
+     */
+    public long retryAfterSeconds() {
+        double queueingNanos = Math.max(0, shortRttNanos - longRttNanos);
+        long seconds = (long) Math.ceil((shortRttNanos + queueingNanos) / TimeUnit.SECONDS.toNanos(1));
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, seconds));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(long rttNanos) {
+        if (samples++ == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) * SHORT_ALPHA;
+        longRttNanos += (rttNanos - longRttNanos) * longAlpha;
+        if (longRttNanos / shortRttNanos > 2) {
+            // latency has dropped well below the long-term average, so let the average catch up faster
+            longRttNanos *= 0.95;
+        }
+    }
+
+    private void setLimit(double newLimit) {
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
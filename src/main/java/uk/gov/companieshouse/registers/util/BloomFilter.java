@@ -0,0 +1,84 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter over string keys. Keys can be added concurrently with lookups; keys are never removed, so
+ * the filter can only ever produce false positives, never false negatives.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0 || falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        long optimalBits = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = Math.toIntExact((optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds the key to the filter.
+     *
+     * @param key the key to add
+     * @return true if any bit changed, i.e. the key was definitely not present before
+     */
+    public boolean put(String key) {
+        long hash1 = Hashing.hash(key);
+        long hash2 = Hashing.mix(hash1 + Hashing.GOLDEN_GAMMA);
+        boolean changed = false;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+            if ((current & mask) == 0) {
+                bitsSet.incrementAndGet();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean mightContain(String key) {
+        long hash1 = Hashing.hash(key);
+        long hash2 = Hashing.mix(hash1 + Hashing.GOLDEN_GAMMA);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The probability that a key which was never added is reported as present, derived from the current fill ratio.
+     */
+    public double expectedFalsePositiveProbability() {
+        return Math.pow((double) bitsSet.get() / bitCount, hashFunctions);
+    }
+
+    public long sizeInBytes() {
+        return bits.length() * (long) Long.BYTES;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+}
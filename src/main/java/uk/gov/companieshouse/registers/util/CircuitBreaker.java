@@ -0,0 +1,152 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While closed it records the outcome of the most recent calls, and opens once the
+ * failure rate over them reaches the threshold. While open every call is refused until the open duration has passed,
+ * after which a limited number of trial calls are let through: if they all succeed the breaker closes again, and the
+ * first failure re-opens it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] outcomes;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenPermits;
+    private final LongSupplier nanoClock;
+    private final BiConsumer<State, State> onTransition;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+            int halfOpenPermits, LongSupplier nanoClock, BiConsumer<State, State> onTransition) {
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenPermits = halfOpenPermits;
+        this.nanoClock = nanoClock;
+        this.onTransition = onTransition;
+    }
+
+    /**
+     * @return true if the call may go ahead, in which case exactly one of {@link #onSuccess()}, {@link #onFailure()}
+     *         or {@link #releasePermission()} must follow
+     */
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoClock.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                trialsStarted = 0;
+                trialsSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialsStarted >= halfOpenPermits) {
+                    return false;
+                }
+                trialsStarted++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands back a permission without recording an outcome, for a call that was not made after all.
+     */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && trialsStarted > 0) {
+                trialsStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        record(false);
+    }
+
+    public void onFailure() {
+        record(true);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    if (recorded == outcomes.length) {
+                        failures -= outcomes[next] ? 1 : 0;
+                    } else {
+                        recorded++;
+                    }
+                    outcomes[next] = failed;
+                    failures += failed ? 1 : 0;
+                    next = (next + 1) % outcomes.length;
+                    if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (failed) {
+                        open();
+                    } else if (++trialsSucceeded >= halfOpenPermits) {
+                        recorded = 0;
+                        next = 0;
+                        failures = 0;
+                        transition(State.CLOSED);
+                    }
+                }
+                case OPEN -> {
+                    // a call that started before the breaker opened; its outcome no longer matters
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openedAt = nanoClock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        onTransition.accept(from, to);
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch over string keys. Estimates never under-count; with width w and total count N they
+ * over-count by at most e/w * N with probability 1 - e^-depth.
+ */
+public class CountMinSketch {
+
+    private final AtomicLongArray counters;
+    private final int depth;
+    private final int widthMask;
+
+    /**
+     * @param depth number of rows (independent hashes)
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Invalid count-min sketch sizing");
+        }
+        int roundedWidth = Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.widthMask = Math.max(roundedWidth, 1) - 1;
+        this.counters = new AtomicLongArray(depth * (widthMask + 1));
+    }
+
+    /**
+     * Increments the key's count and returns its new estimate.
+     */
+    public long increment(String key) {
+        long hash1 = Hashing.hash(key);
+        long hash2 = Hashing.mix(hash1 + Hashing.GOLDEN_GAMMA);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+
+    public long estimate(String key) {
+        long hash1 = Hashing.hash(key);
+        long hash2 = Hashing.mix(hash1 + Hashing.GOLDEN_GAMMA);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash1, hash2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter, so that counts decay exponentially and the sketch tracks recent traffic. Increments
+     * racing with a decay may or may not be halved.
+     */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    private int index(int row, long hash1, long hash2) {
+        return row * (widthMask + 1) + (int) ((hash1 + row * hash2) & widthMask);
+    }
+}
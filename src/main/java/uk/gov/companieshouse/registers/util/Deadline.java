@@ -0,0 +1,91 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The point by which a request must be answered, after which its caller has given up. The deadline of the request
+ * being handled is held for the current thread, in the same way as DataMapHolder, so that MongoDB operations and the
+ * chs-kafka-api call can be bounded by the time left without passing it through every method. Work that is not part of
+ * a request, such as the outbox relay, has no deadline.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAtNanos;
+
+    private Deadline(long expiresAtNanos) {
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<Deadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public static void set(Deadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return true if the current thread has a deadline and it has passed
+     */
+    public static boolean isCurrentExpired() {
+        Deadline deadline = CURRENT.get();
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * Runs work that has to finish whatever the deadline, such as putting back a document after a failed delete.
+     */
+    public static <T> T withoutDeadline(Supplier<T> work) {
+        return withDeadline(null, work);
+    }
+
+    /**
+     * Runs work on behalf of other requests under their deadline, or with none if null, restoring the current thread's
+     * own deadline afterwards.
+     */
+    public static <T> T withDeadline(Deadline deadline, Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+
+    public boolean isAfter(Deadline other) {
+        return expiresAtNanos - other.expiresAtNanos > 0;
+    }
+
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Shortens a timeout to the time left, keeping it at least a millisecond so an expired deadline is never taken as
+     * no timeout at all.
+     */
+    public Duration bound(Duration timeout) {
+        Duration remaining = remaining();
+        if (remaining.compareTo(timeout) >= 0) {
+            return timeout;
+        }
+        return remaining.toMillis() < 1 ? Duration.ofMillis(1) : remaining;
+    }
+}
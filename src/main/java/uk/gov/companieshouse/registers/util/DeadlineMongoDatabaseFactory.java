@@ -0,0 +1,62 @@
+package uk.gov.companieshouse.registers.util;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoDatabase;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.springframework.dao.support.PersistenceExceptionTranslator;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+/**
+ * Applies the deadline of the current request to every MongoDB operation as a client-side operation timeout. The
+ * driver sends the time left to the server as maxTimeMS, so the server stops work the caller is no longer waiting for,
+ * and fails the operation on the client if the server has not answered by then. Operations made outside a request are
+ * left as they are.
+ */
+public class DeadlineMongoDatabaseFactory implements MongoDatabaseFactory {
+
+    private static final Duration NO_TIMEOUT = Duration.ofMillis(Long.MAX_VALUE);
+
+    private final MongoDatabaseFactory delegate;
+
+    public DeadlineMongoDatabaseFactory(MongoDatabaseFactory delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase() {
+        return withDeadline(delegate.getMongoDatabase());
+    }
+
+    @Override
+    public MongoDatabase getMongoDatabase(String dbName) {
+        return withDeadline(delegate.getMongoDatabase(dbName));
+    }
+
+    @Override
+    public PersistenceExceptionTranslator getExceptionTranslator() {
+        return delegate.getExceptionTranslator();
+    }
+
+    @Override
+    public ClientSession getSession(ClientSessionOptions options) {
+        return delegate.getSession(options);
+    }
+
+    @Override
+    public MongoDatabaseFactory withSession(ClientSession session) {
+        return new DeadlineMongoDatabaseFactory(delegate.withSession(session));
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+        return delegate.isTransactionActive();
+    }
+
+    private static MongoDatabase withDeadline(MongoDatabase database) {
+        return Deadline.current()
+                .map(deadline -> database.withTimeout(deadline.bound(NO_TIMEOUT).toMillis(), TimeUnit.MILLISECONDS))
+                .orElse(database);
+    }
+}
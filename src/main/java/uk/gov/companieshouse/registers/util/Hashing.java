@@ -0,0 +1,32 @@
+package uk.gov.companieshouse.registers.util;
+
+/**
+ * 64-bit string hashing shared by the probabilistic structures, which derive their per-row or per-probe indexes from
+ * two such hashes (Kirsch-Mitzenmacher double hashing).
+ */
+final class Hashing {
+
+    static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private Hashing() {
+    }
+
+    static long hash(String key) {
+        // FNV-1a over the UTF-16 chars, finalised with a murmur3 mix to spread the short, numeric company numbers
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks the approximate top-K keys by count. Counts live in a {@link CountMinSketch}; keys whose estimate reaches the
+ * current admission threshold are remembered as candidates, and the candidate set is periodically pruned back to the
+ * top K, which raises the threshold. Recording a key is lock-free and, once the threshold has settled, allocation-free
+ * for keys that are not hot. Pruning sorts the candidates, so it is handed to the given executor rather than run by
+ * the recording thread.
+ */
+public class HeavyHitters {
+
+    private final CountMinSketch sketch;
+    private final int topK;
+    private final int maxCandidates;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pruning = new AtomicBoolean();
+    private final Executor pruner;
+
+    private volatile long threshold;
+
+    public HeavyHitters(int topK, int depth, int width) {
+        this(topK, depth, width, Runnable::run);
+    }
+
+    public HeavyHitters(int topK, int depth, int width, Executor pruner) {
+        this.sketch = new CountMinSketch(depth, width);
+        this.topK = topK;
+        this.maxCandidates = topK * 4;
+        this.pruner = pruner;
+    }
+
+    public void record(String key) {
+        long estimate = sketch.increment(key);
+        if (estimate >= threshold && !candidates.contains(key)) {
+            candidates.add(key);
+            if (candidates.size() > maxCandidates && pruning.compareAndSet(false, true)) {
+                try {
+                    pruner.execute(() -> {
+                        try {
+                            prune();
+                        } finally {
+                            pruning.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException ex) {
+                    pruning.set(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * The current top keys with their estimated counts, highest first.
+     */
+    public List<Map.Entry<String, Long>> top() {
+        return candidates.stream()
+                .map(key -> Map.entry(key, sketch.estimate(key)))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(topK)
+                .toList();
+    }
+
+    /**
+     * Halves all counts and the admission threshold, then drops candidates that are no longer in the top K.
+     */
+    public void decay() {
+        sketch.decay();
+        threshold = threshold >>> 1;
+        prune();
+    }
+
+    private void prune() {
+        List<Map.Entry<String, Long>> top = top();
+        if (top.size() < topK) {
+            threshold = 0;
+            return;
+        }
+        Set<String> keep = ConcurrentHashMap.newKeySet();
+        top.forEach(entry -> keep.add(entry.getKey()));
+        candidates.retainAll(keep);
+        threshold = top.get(top.size() - 1).getValue();
+    }
+}
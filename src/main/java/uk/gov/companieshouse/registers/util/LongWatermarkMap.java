@@ -0,0 +1,198 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent map from non-zero long keys to monotonically increasing long values, stored in primitive open-addressing
+ * tables with no boxing. The map is split into segments, each guarded by a {@link StampedLock}: reads are optimistic
+ * and lock-free unless they race with a write to the same segment.
+ * <p>
+ * Each slot costs 16 bytes and segments resize at 75% load, so a million entries occupy between 21 and 43 MB
+ * depending on where each segment sits in its resize cycle (around 33 MB on average).
+ */
+public class LongWatermarkMap {
+
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1024;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public LongWatermarkMap() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the value for the key, or {@link #MISSING}
+     */
+    public long get(long key) {
+        if (key == 0) {
+            return MISSING;
+        }
+        long hash = spread(key);
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))].get(key, hash);
+    }
+
+    /**
+     * Stores the value unless a greater one is already held for the key.
+     */
+    public void advance(long key, long value) {
+        requireKey(key);
+        long hash = spread(key);
+        segments[(int) (hash >>> (64 - SEGMENT_BITS))].advance(key, hash, value);
+    }
+
+    public void remove(long key) {
+        if (key == 0) {
+            return;
+        }
+        long hash = spread(key);
+        segments[(int) (hash >>> (64 - SEGMENT_BITS))].remove(key, hash);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public long sizeInBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += 2L * Long.BYTES * segment.keys.length;
+        }
+        return bytes;
+    }
+
+    private static void requireKey(long key) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Zero is reserved for empty slots");
+        }
+    }
+
+    private static long spread(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private long[] values = new long[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        long get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            long value = find(keys, values, key, hash);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void advance(long key, long hash, long value) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int slot = (int) hash & mask;
+                while (keys[slot] != 0) {
+                    if (keys[slot] == key) {
+                        values[slot] = Math.max(values[slot], value);
+                        return;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > keys.length * 3 / 4) {
+                    resize();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int slot = (int) hash & mask;
+                while (keys[slot] != key) {
+                    if (keys[slot] == 0) {
+                        return;
+                    }
+                    slot = (slot + 1) & mask;
+                }
+                // backward-shift deletion keeps every remaining key reachable from its home slot without tombstones
+                int gap = slot;
+                int next = (gap + 1) & mask;
+                while (keys[next] != 0) {
+                    int home = (int) spread(keys[next]) & mask;
+                    if (((next - home) & mask) >= ((next - gap) & mask)) {
+                        keys[gap] = keys[next];
+                        values[gap] = values[next];
+                        gap = next;
+                    }
+                    next = (next + 1) & mask;
+                }
+                keys[gap] = 0;
+                values[gap] = 0;
+                size--;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            long[] newValues = new long[oldKeys.length * 2];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = (int) spread(oldKeys[i]) & mask;
+                    while (newKeys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    newKeys[slot] = oldKeys[i];
+                    newValues[slot] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        private static long find(long[] keys, long[] values, long key, long hash) {
+            // bounded by the table length so that a torn optimistic read can never spin forever
+            int mask = Math.min(keys.length, values.length) - 1;
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = keys[slot];
+                if (candidate == key) {
+                    return values[slot];
+                }
+                if (candidate == 0) {
+                    return MISSING;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return MISSING;
+        }
+    }
+}
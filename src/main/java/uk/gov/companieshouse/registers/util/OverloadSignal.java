@@ -0,0 +1,46 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.Optional;
+
+/**
+ * Records that the request being handled failed in a way that shows this service is overloaded: its deadline passed
+ * or MongoDB failed. ConcurrencyLimitFilter cuts its limit only for these failures, and not for a 503 passed on from
+ * chs-kafka-api, its circuit breaker or its bulkhead, which a lower limit would do nothing for. The signal is held for
+ * the current thread in the same way as Deadline, and travels with a write handed to RegistersWriteExecutor.
+ */
+public final class OverloadSignal {
+
+    private static final ThreadLocal<OverloadSignal> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean raised;
+
+    public static Optional<OverloadSignal> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public static void set(OverloadSignal signal) {
+        CURRENT.set(signal);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Marks the current request as failed through overload. Does nothing outside a request tracked by the filter.
+     */
+    public static void raiseCurrent() {
+        OverloadSignal signal = CURRENT.get();
+        if (signal != null) {
+            signal.raise();
+        }
+    }
+
+    public void raise() {
+        raised = true;
+    }
+
+    public boolean isRaised() {
+        return raised;
+    }
+}
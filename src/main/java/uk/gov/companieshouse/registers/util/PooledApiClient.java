@@ -0,0 +1,92 @@
+package uk.gov.companieshouse.registers.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived, thread-safe JSON client for CHS internal APIs. A single {@link HttpClient} is shared by every caller so
+ * connections are kept alive and reused, and the number of concurrent requests, and therefore of open connections,
+ * is capped. Request ids are passed per request as headers rather than set on shared client state. A request waits
+ * for a free connection for at most the read timeout, and a request made with a Deadline gives up waiting, or times
+ * out, when the deadline passes if that is sooner.
+ */
+public class PooledApiClient {
+
+    private static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    private final HttpClient httpClient;
+    private final String basePath;
+    private final String authorization;
+    private final Duration readTimeout;
+    private final ObjectMapper objectMapper;
+    private final int maxConnections;
+    private final Semaphore connections;
+
+    public PooledApiClient(String basePath, String apiKey, Duration connectTimeout, Duration readTimeout,
+            int maxConnections, ObjectMapper objectMapper) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.basePath = basePath;
+        // same scheme as the SDK's API key client: the key is the basic auth user name with an empty password
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((apiKey + ":").getBytes(StandardCharsets.UTF_8));
+        this.readTimeout = readTimeout;
+        this.objectMapper = objectMapper;
+        this.maxConnections = maxConnections;
+        this.connections = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Posts the body as JSON.
+     *
+     * @return the HTTP status code of the response
+     * @throws IOException if no connection was free in time, or the request could not be sent or timed out
+     */
+    public int post(String uri, Object body, String requestId) throws IOException, InterruptedException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        if (!connections.tryAcquire(timeout().toNanos(), TimeUnit.NANOSECONDS)) {
+            throw new HttpTimeoutException("Timed out waiting for a connection");
+        }
+        try {
+            // the time spent waiting for a connection comes out of the deadline
+            HttpRequest request = HttpRequest.newBuilder(URI.create(basePath + uri))
+                    .timeout(timeout())
+                    .header("Authorization", authorization)
+                    .header("Content-Type", "application/json")
+                    .header(REQUEST_ID_HEADER, requestId)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(json))
+                    .build();
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } finally {
+            connections.release();
+        }
+    }
+
+    private Duration timeout() {
+        return Deadline.current().map(deadline -> deadline.bound(readTimeout)).orElse(readTimeout);
+    }
+
+    public int getInUse() {
+        return maxConnections - connections.availablePermits();
+    }
+
+    public int getWaiting() {
+        return connections.getQueueLength();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Smooth rate limiter that spaces permits evenly. Each caller reserves the next free slot atomically and then waits
+ * for it, so concurrent callers are released one interval apart without holding a lock while they wait.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextFreeSlot = new AtomicLong(Long.MIN_VALUE);
+
+    public RateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    public void acquire() throws InterruptedException {
+        long now = System.nanoTime();
+        long previous = nextFreeSlot.getAndAccumulate(now, (next, time) -> Math.max(next, time) + intervalNanos);
+        long slot = Math.max(previous, now);
+        while (System.nanoTime() < slot) {
+            LockSupport.parkNanos(slot - System.nanoTime());
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
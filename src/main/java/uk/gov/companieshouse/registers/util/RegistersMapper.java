@@ -4,6 +4,10 @@ import static uk.gov.companieshouse.api.registers.CompanyRegister.KindEnum.REGIS
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
 import org.springframework.stereotype.Component;
 import uk.gov.companieshouse.GenerateEtagUtil;
 import uk.gov.companieshouse.api.registers.CompanyRegister;
@@ -31,6 +35,35 @@ public class RegistersMapper {
                 .setDeltaAt(dateTimeFormatter.format(requestBody.getInternalData().getDeltaAt()));
     }
 
+    /**
+     * Lists the register sections in the delta that differ from the existing document, by their JSON names. Must be
+     * called before {@link #map}, which updates the existing document's registers in place.
+     */
+    public List<String> changedSections(CompanyRegistersDocument existingDocument, Registers externalData) {
+        Registers existingRegisters = existingDocument == null ? null : existingDocument.getData().getRegisters();
+        List<String> changed = new ArrayList<>();
+        addIfChanged(changed, "directors", existingRegisters, externalData, Registers::getDirectors);
+        addIfChanged(changed, "secretaries", existingRegisters, externalData, Registers::getSecretaries);
+        addIfChanged(changed, "persons_with_significant_control", existingRegisters, externalData,
+                Registers::getPersonsWithSignificantControl);
+        addIfChanged(changed, "members", existingRegisters, externalData, Registers::getMembers);
+        addIfChanged(changed, "usual_residential_address", existingRegisters, externalData,
+                Registers::getUsualResidentialAddress);
+        addIfChanged(changed, "llp_members", existingRegisters, externalData, Registers::getLlpMembers);
+        addIfChanged(changed, "llp_usual_residential_address", existingRegisters, externalData,
+                Registers::getLlpUsualResidentialAddress);
+        return changed;
+    }
+
+    private static void addIfChanged(List<String> changed, String section, Registers existingRegisters,
+            Registers externalData, Function<Registers, Object> getter) {
+        Object delta = getter.apply(externalData);
+        // sections missing from the delta are left as they are by map
+        if (delta != null && (existingRegisters == null || !Objects.equals(getter.apply(existingRegisters), delta))) {
+            changed.add(section);
+        }
+    }
+
     private Registers mapRegisters(CompanyRegistersDocument existingDocument, Registers externalData) {
         // no existing registers to add to or update so just return new registers from delta
         if (existingDocument == null) {
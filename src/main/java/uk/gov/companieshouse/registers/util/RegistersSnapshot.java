@@ -0,0 +1,121 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+
+/**
+ * Read-only, memory-mapped view of a registers snapshot file written by {@link RegistersSnapshotWriter}.
+ * <p>
+ * Layout: a fixed header (magic, version, entry count, creation time, index offset), then the JSON bodies back to
+ * back, then an index of fixed-width entries sorted by company number, each holding the zero-padded ASCII company
+ * number and the offset and length of its body. Lookups binary search the index in place and return a slice of the
+ * mapping, so finding a body copies nothing onto the heap. The servlet controller copies it through an 8KB buffer
+ * as it writes the response; the reactive controller wraps the slice without copying it.
+ */
+public class RegistersSnapshot {
+
+    static final int MAGIC = 0x52534E50;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 28;
+    static final int KEY_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = KEY_BYTES + Long.BYTES + Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int entryCount;
+    private final Instant createdAt;
+    private final int indexOffset;
+
+    private RegistersSnapshot(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a registers snapshot");
+        }
+        this.buffer = buffer;
+        this.entryCount = buffer.getInt(8);
+        this.createdAt = Instant.ofEpochMilli(buffer.getLong(12));
+        this.indexOffset = Math.toIntExact(buffer.getLong(20));
+    }
+
+    public static RegistersSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds the 2GB mapping limit");
+            }
+            MappedByteBuffer mapping = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            return new RegistersSnapshot(mapping);
+        }
+    }
+
+    /**
+     * Returns a read-only slice of the mapping holding the company's JSON body.
+     */
+    public Optional<ByteBuffer> find(String companyNumber) {
+        if (companyNumber.length() > KEY_BYTES) {
+            return Optional.empty();
+        }
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = indexOffset + mid * INDEX_ENTRY_BYTES;
+            int comparison = compareKey(entry, companyNumber);
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return Optional.of(body(entry));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Visits every entry in company number order.
+     */
+    public void forEach(BiConsumer<String, ByteBuffer> consumer) {
+        byte[] key = new byte[KEY_BYTES];
+        for (int i = 0; i < entryCount; i++) {
+            int entry = indexOffset + i * INDEX_ENTRY_BYTES;
+            buffer.get(entry, key);
+            int length = 0;
+            while (length < KEY_BYTES && key[length] != 0) {
+                length++;
+            }
+            consumer.accept(new String(key, 0, length, StandardCharsets.US_ASCII), body(entry));
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    private ByteBuffer body(int entry) {
+        int offset = Math.toIntExact(buffer.getLong(entry + KEY_BYTES));
+        int length = buffer.getInt(entry + KEY_BYTES + Long.BYTES);
+        return buffer.slice(offset, length).asReadOnlyBuffer();
+    }
+
+    private int compareKey(int entry, String companyNumber) {
+        for (int i = 0; i < KEY_BYTES; i++) {
+            int stored = buffer.get(entry + i) & 0xff;
+            int wanted = i < companyNumber.length() ? companyNumber.charAt(i) : 0;
+            if (stored != wanted) {
+                return stored - wanted;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.gov.companieshouse.registers.util;
+
+import static uk.gov.companieshouse.registers.util.RegistersSnapshot.HEADER_BYTES;
+import static uk.gov.companieshouse.registers.util.RegistersSnapshot.INDEX_ENTRY_BYTES;
+import static uk.gov.companieshouse.registers.util.RegistersSnapshot.KEY_BYTES;
+import static uk.gov.companieshouse.registers.util.RegistersSnapshot.MAGIC;
+import static uk.gov.companieshouse.registers.util.RegistersSnapshot.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Writes a {@link RegistersSnapshot} file. Entries must be added in ascending company number order. The file is
+ * written alongside the target and atomically moved into place on {@link #commit()}, so readers mapping the previous
+ * file are unaffected.
+ */
+public class RegistersSnapshotWriter implements AutoCloseable {
+
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final Instant createdAt;
+    private String lastKey;
+    private int entryCount;
+    private long position = HEADER_BYTES;
+    private boolean committed;
+
+    public RegistersSnapshotWriter(Path target, Instant createdAt) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.createdAt = createdAt;
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Keys that are not ASCII or are longer than 16 characters cannot be indexed.
+     */
+    public static boolean isIndexable(String companyNumber) {
+        return companyNumber.length() <= KEY_BYTES && companyNumber.chars().allMatch(c -> c > 0 && c < 0x80);
+    }
+
+    public void add(String companyNumber, ByteBuffer body) throws IOException {
+        if (!isIndexable(companyNumber)) {
+            throw new IllegalArgumentException("Company number cannot be indexed: " + companyNumber);
+        }
+        if (lastKey != null && lastKey.compareTo(companyNumber) >= 0) {
+            throw new IllegalArgumentException("Snapshot entries must be in ascending order");
+        }
+        ByteBuffer data = body.duplicate();
+        int length = data.remaining();
+        while (data.hasRemaining()) {
+            channel.write(data, position + length - data.remaining());
+        }
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        for (int i = 0; i < companyNumber.length(); i++) {
+            entry.put(i, (byte) companyNumber.charAt(i));
+        }
+        entry.putLong(KEY_BYTES, position).putInt(KEY_BYTES + Long.BYTES, length);
+        index.write(entry.array());
+
+        position += length;
+        lastKey = companyNumber;
+        entryCount++;
+    }
+
+    public void commit() throws IOException {
+        ByteBuffer indexBytes = ByteBuffer.wrap(index.toByteArray());
+        long indexOffset = position;
+        while (indexBytes.hasRemaining()) {
+            channel.write(indexBytes, indexOffset + indexBytes.position());
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(entryCount)
+                .putLong(createdAt.toEpochMilli())
+                .putLong(indexOffset)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            channel.close();
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
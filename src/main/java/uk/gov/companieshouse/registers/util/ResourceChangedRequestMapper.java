@@ -54,6 +54,9 @@ public class ResourceChangedRequestMapper {
             }
         } else {
             event.setType("changed");
+            if (request.fieldsChanged() != null) {
+                event.setFieldsChanged(request.fieldsChanged());
+            }
         }
         return changedResource;
     }
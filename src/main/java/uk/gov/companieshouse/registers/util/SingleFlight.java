@@ -0,0 +1,118 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+
+/**
+ * Coalesces concurrent calls for the same key so that only the first caller runs the supplier and every caller
+ * arriving while it is in flight shares its result (or its exception). Results are shared between threads, so they
+ * must be treated as read-only. Nothing is cached once the call completes.
+ * <p>
+ * A caller that joins an in-flight call waits no longer than its own Deadline. If the call fails after the deadline of
+ * the caller running it has passed, the failure is that caller's alone: callers that joined it and still have time
+ * left run the call again rather than fail with it.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    public V execute(K key, Supplier<V> supplier) {
+        while (true) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing == null) {
+                return lead(key, call, supplier);
+            }
+            joined.increment();
+            try {
+                return await(existing);
+            } catch (LeaderDeadlineExceeded ex) {
+                // the call was cut short by its leader's deadline, not this caller's, so it is run again
+            }
+        }
+    }
+
+    private V lead(K key, CompletableFuture<V> call, Supplier<V> supplier) {
+        executed.increment();
+        try {
+            V result = supplier.get();
+            inFlight.remove(key, call);
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(key, call);
+            call.completeExceptionally(Deadline.isCurrentExpired() ? new LeaderDeadlineExceeded(ex) : ex);
+            throw ex;
+        }
+    }
+
+    public long executedCount() {
+        return executed.sum();
+    }
+
+    public long joinedCount() {
+        return joined.sum();
+    }
+
+    /**
+     * The fraction of calls that were served by another caller's in-flight execution.
+     */
+    public double collapseRatio() {
+        long joinedCalls = joined.sum();
+        long total = executed.sum() + joinedCalls;
+        return total == 0 ? 0 : (double) joinedCalls / total;
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        Optional<Deadline> deadline = Deadline.current();
+        try {
+            return deadline.isPresent()
+                    ? call.get(deadline.get().remaining().toNanos(), TimeUnit.NANOSECONDS) : call.get();
+        } catch (TimeoutException ex) {
+            throw new DeadlineExceededException("Request deadline passed waiting for an in-flight call");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof LeaderDeadlineExceeded leaderDeadlineExceeded) {
+                if (!Deadline.isCurrentExpired()) {
+                    throw leaderDeadlineExceeded;
+                }
+                cause = leaderDeadlineExceeded.getCause();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Marks a failure of a call whose leader's deadline had passed, so joiners can tell it from a failure of the call
+     * itself.
+     */
+    private static class LeaderDeadlineExceeded extends RuntimeException {
+
+        LeaderDeadlineExceeded(Throwable cause) {
+            super(cause);
+        }
+    }
+}
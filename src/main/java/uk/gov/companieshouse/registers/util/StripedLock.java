@@ -0,0 +1,46 @@
+package uk.gov.companieshouse.registers.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared out between string keys by hash, so that operations on the same key are serialised while
+ * those on different keys almost always run in parallel. Memory is fixed however many keys are seen; the cost is that
+ * two keys sharing a stripe also wait for each other, which a few times more stripes than concurrent callers makes
+ * rare. The stripe count is rounded up to a power of two.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock get(String key) {
+        return stripes[(int) Hashing.hash(key) & mask];
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    /**
+     * @return an estimate of the number of threads waiting for any stripe
+     */
+    public int getQueueLength() {
+        int waiting = 0;
+        for (ReentrantLock stripe : stripes) {
+            waiting += stripe.getQueueLength();
+        }
+        return waiting;
+    }
+}
@@ -0,0 +1,91 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.registers.config.ReactiveExceptionHandlerConfig;
+import uk.gov.companieshouse.registers.config.ReactiveWebSecurityConfig;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.ReactiveRegistersService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
+
+@ExtendWith(SpringExtension.class)
+@WebFluxTest(controllers = ReactiveRegistersController.class)
+@ContextConfiguration(classes = {ReactiveRegistersController.class, ReactiveExceptionHandlerConfig.class})
+@Import({ReactiveWebSecurityConfig.class})
+class ReactiveRegistersApiContractTest extends RegistersApiContractTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveRegistersService registersService;
+
+    @MockBean
+    private HotKeyTracker hotKeyTracker;
+
+    @MockBean
+    private RegistersSnapshotService snapshotService;
+
+    @Test
+    @DisplayName("Test a cross-origin GET is allowed and a cross-origin PUT is refused")
+    void cors() {
+        client().options().uri(URI)
+                .header(HttpHeaders.ORIGIN, "https://find-and-update.company-information.service.gov.uk")
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpMethod.GET.name())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+
+        client().options().uri(URI)
+                .header(HttpHeaders.ORIGIN, "https://find-and-update.company-information.service.gov.uk")
+                .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, HttpMethod.PUT.name())
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Override
+    WebTestClient client() {
+        return webTestClient;
+    }
+
+    @Override
+    void givenStored(CompanyRegistersDocument document) {
+        when(registersService.getCompanyRegisters(any())).thenReturn(Mono.justOrEmpty(document));
+    }
+
+    @Override
+    void givenMongoUnavailable(Optional<SnapshotEntry> snapshot) {
+        when(registersService.getCompanyRegisters(any()))
+                .thenReturn(Mono.error(new ServiceUnavailableException("MongoDB is unavailable")));
+        when(snapshotService.find("12345678")).thenReturn(snapshot);
+    }
+
+    @Override
+    void givenUpsert(ServiceStatus status) {
+        when(registersService.upsertCompanyRegisters(any(), any(), any())).thenReturn(Mono.just(status));
+    }
+
+    @Override
+    void givenDelete(ServiceStatus status) {
+        when(registersService.deleteCompanyRegisters(any(), any(), any())).thenReturn(Mono.just(status));
+    }
+}
@@ -0,0 +1,158 @@
+package uk.gov.companieshouse.registers.controller;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.catalina.Context;
+import org.apache.catalina.startup.Tomcat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+
+/**
+ * Compares the servlet stack (Tomcat, a thread per request) with the reactive stack (Reactor Netty, an event loop)
+ * serving a GET whose MongoDB read takes a fixed time. Reports heap and threads held per open connection while
+ * requests are in flight, and throughput at high concurrency. The client runs in the same JVM and costs the same in
+ * both runs. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WebStackBenchmarkTest {
+
+    private static final String BODY = "{\"kind\":\"registers\",\"links\":{\"self\":\"/company/12345678/registers\"}}";
+    private static final long READ_MILLIS = 10;
+    private static final long HELD_MILLIS = 1_000;
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int[] CONCURRENCY = {200, 1_000, 4_000};
+    private static final Duration RUN = Duration.ofSeconds(10);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @Test
+    @DisplayName("Benchmark memory per connection and throughput of the servlet and reactive stacks")
+    void benchmark() throws Exception {
+        Tomcat tomcat = servletStack();
+        try {
+            run("servlet", "http://localhost:" + tomcat.getConnector().getLocalPort());
+        } finally {
+            tomcat.stop();
+            tomcat.destroy();
+        }
+        DisposableServer netty = reactiveStack();
+        try {
+            run("reactive", "http://localhost:" + netty.port());
+        } finally {
+            netty.disposeNow();
+        }
+    }
+
+    private void run(String name, String baseUrl) throws Exception {
+        int connections = CONCURRENCY[CONCURRENCY.length - 1];
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        // hold requests open on the server, then measure what they cost while in flight; Tomcat serves at most
+        // maxThreads of them at once and queues the rest on their connections
+        List<CompletableFuture<HttpResponse<String>>> held = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            held.add(client.sendAsync(request(baseUrl + "/held"), HttpResponse.BodyHandlers.ofString()));
+        }
+        Thread.sleep(HELD_MILLIS / 2);
+        System.gc();
+        long heapPerConnection = (memory.getHeapMemoryUsage().getUsed() - heapBefore) / connections;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+        CompletableFuture.allOf(held.toArray(CompletableFuture[]::new)).join();
+        System.out.printf("%s: %d bytes of heap and %d threads in total for %d in-flight requests (%d bytes each)%n",
+                name, heapPerConnection * connections, threads, connections, heapPerConnection);
+
+        for (int concurrency : CONCURRENCY) {
+            LongAdder completed = new LongAdder();
+            long deadline = System.nanoTime() + RUN.toNanos();
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < concurrency; c++) {
+                    clients.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            client.send(request(baseUrl + "/registers"), HttpResponse.BodyHandlers.ofString());
+                            completed.increment();
+                        }
+                        return null;
+                    });
+                }
+            }
+            System.out.printf("%s, %d concurrent: %.0f requests/s%n", name, concurrency,
+                    completed.sum() / (double) RUN.toSeconds());
+        }
+    }
+
+    private static HttpRequest request(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private static Tomcat servletStack() throws Exception {
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(Files.createTempDirectory("tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxThreads", String.valueOf(TOMCAT_MAX_THREADS));
+        tomcat.getConnector().setProperty("maxConnections", "10000");
+        Context context = tomcat.addContext("", null);
+        Tomcat.addServlet(context, "registers", new BlockingServlet(READ_MILLIS));
+        Tomcat.addServlet(context, "held", new BlockingServlet(HELD_MILLIS));
+        context.addServletMappingDecoded("/registers", "registers");
+        context.addServletMappingDecoded("/held", "held");
+        tomcat.start();
+        return tomcat;
+    }
+
+    private static DisposableServer reactiveStack() {
+        return reactor.netty.http.server.HttpServer.create()
+                .port(0)
+                .route(routes -> routes
+                        .get("/registers", (request, response) -> response.sendString(
+                                Mono.delay(Duration.ofMillis(READ_MILLIS)).thenReturn(BODY)))
+                        .get("/held", (request, response) -> response.sendString(
+                                Mono.delay(Duration.ofMillis(HELD_MILLIS)).thenReturn(BODY))))
+                .bindNow();
+    }
+
+    private static class BlockingServlet extends HttpServlet {
+
+        private final long millis;
+
+        BlockingServlet(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            response.setContentType("application/json");
+            response.getWriter().write(BODY);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package uk.gov.companieshouse.registers.config;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.BadRequestException;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.logging.ReactiveRequestLoggingFilter;
+
+/**
+ * The reactive counterpart of ExceptionHandlerConfig, with the same status codes and response bodies.
+ */
+@ControllerAdvice
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveExceptionHandlerConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    @ExceptionHandler(value = {BadRequestException.class, DateTimeParseException.class,
+            ServerWebInputException.class})
+    public ResponseEntity<Object> handleBadRequestException(Exception ex, ServerWebExchange exchange) {
+        LOGGER.error("Bad request, response code: %s".formatted(HttpStatus.BAD_REQUEST), ex,
+                ReactiveRequestLoggingFilter.logMap(exchange, null));
+        return response("Bad request.", HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(value = {ServiceUnavailableException.class, DataAccessException.class})
+    public ResponseEntity<Object> handleServiceUnavailableException(ServerWebExchange exchange) {
+        LOGGER.info("Service unavailable, response code: %s".formatted(HttpStatus.SERVICE_UNAVAILABLE),
+                ReactiveRequestLoggingFilter.logMap(exchange, null));
+        return response("Service unavailable.", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    private static ResponseEntity<Object> response(String message, HttpStatus status) {
+        Map<String, Object> responseBody = new LinkedHashMap<>();
+        responseBody.put("timestamp", LocalDateTime.now());
+        responseBody.put("message", message);
+        return new ResponseEntity<>(responseBody, status);
+    }
+}
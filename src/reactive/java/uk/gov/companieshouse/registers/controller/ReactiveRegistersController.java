@@ -0,0 +1,127 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.logging.ReactiveRequestLoggingFilter;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+import uk.gov.companieshouse.registers.service.ReactiveRegistersService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
+
+/**
+ * The registers API on the reactive stack, selected with the reactive profile. Responses match RegistersController.
+ */
+@RestController
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveRegistersController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String STALE_HEADER = "X-Stale-Response";
+
+    private final ReactiveRegistersService service;
+    private final HotKeyTracker hotKeyTracker;
+    private final RegistersSnapshotService snapshotService;
+    private final long retryAfterSeconds;
+
+    public ReactiveRegistersController(ReactiveRegistersService service, HotKeyTracker hotKeyTracker,
+            RegistersSnapshotService snapshotService,
+            @Value("${chs.kafka.api.circuit-breaker.open-duration-ms}") long circuitOpenMillis) {
+        this.service = service;
+        this.hotKeyTracker = hotKeyTracker;
+        this.snapshotService = snapshotService;
+        this.retryAfterSeconds = RegistersWriteController.retryAfterSeconds(circuitOpenMillis);
+    }
+
+    @GetMapping("/company/{company_number}/registers")
+    public Mono<ResponseEntity<Object>> companyRegistersGet(@PathVariable("company_number") String companyNumber,
+            ServerWebExchange exchange) {
+        LOGGER.info("Getting company registers", ReactiveRequestLoggingFilter.logMap(exchange, companyNumber));
+        hotKeyTracker.record(Operation.GET, companyNumber);
+
+        return service.getCompanyRegisters(companyNumber)
+                .map(document -> ResponseEntity.ok().body(document.getData()))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(ServiceUnavailableException.class, ex -> {
+                    // MongoDB is unreachable, so serve the last snapshot if it holds this company, flagged as stale
+                    return snapshotService.find(companyNumber)
+                            .map(entry -> {
+                                LOGGER.info("Serving company registers from snapshot",
+                                        ReactiveRequestLoggingFilter.logMap(exchange, companyNumber));
+                                return Mono.just(staleResponse(entry));
+                            })
+                            .orElseGet(() -> Mono.error(ex));
+                });
+    }
+
+    @PutMapping("/company/{company_number}/registers")
+    public Mono<ResponseEntity<Void>> companyRegistersUpsert(
+            @PathVariable("company_number") String companyNumber,
+            @RequestBody InternalRegisters requestBody,
+            ServerWebExchange exchange) {
+        LOGGER.info("Upserting company registers", ReactiveRequestLoggingFilter.logMap(exchange, companyNumber));
+        hotKeyTracker.record(Operation.PUT, companyNumber);
+
+        return service.upsertCompanyRegisters(companyNumber, requestBody,
+                        ReactiveRequestLoggingFilter.requestId(exchange))
+                .map(serviceStatus -> switch (serviceStatus) {
+                    case SERVER_ERROR -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<Void>build();
+                    case CIRCUIT_OPEN -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)).<Void>build();
+                    case CLIENT_ERROR -> ResponseEntity.status(HttpStatus.CONFLICT).<Void>build();
+                    default -> ResponseEntity.ok().<Void>build();
+                });
+    }
+
+    @DeleteMapping("/company/{company_number}/registers")
+    public Mono<ResponseEntity<Void>> companyRegistersDelete(
+            @PathVariable("company_number") String companyNumber,
+            @RequestHeader(value = "X-DELTA-AT", required = false) String deltaAt,
+            ServerWebExchange exchange) {
+        LOGGER.info("Deleting company registers", ReactiveRequestLoggingFilter.logMap(exchange, companyNumber));
+        hotKeyTracker.record(Operation.DELETE, companyNumber);
+
+        return service.deleteCompanyRegisters(companyNumber, deltaAt,
+                        ReactiveRequestLoggingFilter.requestId(exchange))
+                .map(serviceStatus -> switch (serviceStatus) {
+                    case SERVER_ERROR -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<Void>build();
+                    case CIRCUIT_OPEN -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds)).<Void>build();
+                    case CLIENT_ERROR -> ResponseEntity.notFound().<Void>build();
+                    default -> ResponseEntity.ok().<Void>build();
+                });
+    }
+
+    private static ResponseEntity<Object> staleResponse(SnapshotEntry entry) {
+        long ageSeconds = Math.max(0, Duration.between(entry.snapshotAt(), Instant.now()).toSeconds());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(entry.body().remaining())
+                .header(HttpHeaders.AGE, String.valueOf(ageSeconds))
+                .header(STALE_HEADER, "true")
+                .body(entry.body());
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.companieshouse.registers.logging;
+
+import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
+import static uk.gov.companieshouse.logging.util.LogContextProperties.REQUEST_ID;
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.logging.util.DataMap;
+
+/**
+ * The reactive counterpart of RequestLoggingFilter. A request may move between event loop threads, so its request id
+ * is carried as an exchange attribute rather than in DataMapHolder, and log maps are built from the exchange.
+ */
+@Component
+@Order(value = HIGHEST_PRECEDENCE)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveRequestLoggingFilter implements WebFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+    private static final String REQUEST_ID_ATTRIBUTE = ReactiveRequestLoggingFilter.class.getName() + ".requestId";
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        exchange.getAttributes().put(REQUEST_ID_ATTRIBUTE, Optional
+                .ofNullable(exchange.getRequest().getHeaders().getFirst(REQUEST_ID.value()))
+                .orElseGet(RequestIds::next));
+        LOGGER.info("Start of request %s %s".formatted(exchange.getRequest().getMethod(),
+                exchange.getRequest().getPath()), logMap(exchange, null));
+        return chain.filter(exchange)
+                .doOnError(ex -> LOGGER.error(ex.getMessage(), ex, logMap(exchange, null)))
+                .doFinally(signal -> LOGGER.info("End of request %s %s with status %s".formatted(
+                        exchange.getRequest().getMethod(), exchange.getRequest().getPath(),
+                        exchange.getResponse().getStatusCode()), logMap(exchange, null)));
+    }
+
+    /**
+     * Builds the log map for a request, falling back to the request id header when the filter has not run.
+     */
+    public static Map<String, Object> logMap(ServerWebExchange exchange, String companyNumber) {
+        DataMap.Builder builder = new DataMap.Builder().requestId(requestId(exchange));
+        if (companyNumber != null) {
+            builder.companyNumber(companyNumber);
+        }
+        return builder.build().getLogMap();
+    }
+
+    public static String requestId(ServerWebExchange exchange) {
+        return Optional.ofNullable(exchange.<String>getAttribute(REQUEST_ID_ATTRIBUTE))
+                .or(() -> Optional.ofNullable(exchange.getRequest().getHeaders().getFirst(REQUEST_ID.value())))
+                .orElse("uninitialised");
+    }
+}
@@ -0,0 +1,69 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.util.Optional;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.logging.ReactiveRequestLoggingFilter;
+
+/**
+ * The reactive counterpart of AuthenticationFilter, applying the same ERIC identity and key privilege checks.
+ */
+public class ReactiveAuthenticationFilter implements WebFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    @Override
+    @NonNull
+    public Mono<Void> filter(@NonNull ServerWebExchange exchange, @NonNull WebFilterChain chain) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+
+        if (StringUtils.isBlank(headers.getFirst("ERIC-Identity"))) {
+            LOGGER.error("Eric identity is blank", ReactiveRequestLoggingFilter.logMap(exchange, null));
+            return reject(exchange, HttpStatus.UNAUTHORIZED);
+        }
+
+        String ericIdentityType = headers.getFirst("ERIC-Identity-Type");
+
+        if (!("key".equalsIgnoreCase(ericIdentityType)
+                || ("oauth2".equalsIgnoreCase(ericIdentityType)))) {
+            LOGGER.error("Incorrect eric identity type", ReactiveRequestLoggingFilter.logMap(exchange, null));
+            return reject(exchange, HttpStatus.UNAUTHORIZED);
+        }
+
+        if (!isKeyAuthorised(exchange, headers, ericIdentityType)) {
+            LOGGER.error("Key is not authorised", ReactiveRequestLoggingFilter.logMap(exchange, null));
+            return reject(exchange, HttpStatus.FORBIDDEN);
+        }
+
+        return chain.filter(exchange);
+    }
+
+    private static boolean isKeyAuthorised(ServerWebExchange exchange, HttpHeaders headers,
+            String ericIdentityType) {
+        String[] privileges = Optional.ofNullable(headers.getFirst("ERIC-Authorised-Key-Privileges"))
+                .map(s -> s.split(","))
+                .orElse(new String[]{});
+
+        return (HttpMethod.GET.equals(exchange.getRequest().getMethod())
+                && !AuthenticationFilter.isInternalPath(exchange.getRequest().getPath().value()))
+                || (ericIdentityType.equalsIgnoreCase("key")
+                && ArrayUtils.contains(privileges, "internal-app"));
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().setComplete();
+    }
+}
@@ -0,0 +1,81 @@
+package uk.gov.companieshouse.registers.service;
+
+import static uk.gov.companieshouse.registers.RegistersApplication.NAMESPACE;
+
+import java.util.function.Supplier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.logging.Logger;
+import uk.gov.companieshouse.logging.LoggerFactory;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.logging.DataMapHolder.RequestContext;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+
+/**
+ * Registers service for the reactive profile. Reads go through the reactive MongoDB driver and never block an event
+ * loop thread. Writes are not non-blocking: to keep a single implementation of the upsert and delete rules they run
+ * RegistersService, with its blocking MongoDB calls and SDK call to chs-kafka-api, on the bounded elastic scheduler
+ * with the request id restored in DataMapHolder. Concurrent writes are therefore limited by that scheduler's threads,
+ * as on the servlet stack they are by Tomcat's.
+ */
+@Service
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveRegistersService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NAMESPACE);
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final RegistersService registersService;
+    private final KnownCompaniesFilter knownCompaniesFilter;
+
+    public ReactiveRegistersService(ReactiveMongoTemplate mongoTemplate, RegistersService registersService,
+            KnownCompaniesFilter knownCompaniesFilter) {
+        this.mongoTemplate = mongoTemplate;
+        this.registersService = registersService;
+        this.knownCompaniesFilter = knownCompaniesFilter;
+    }
+
+    public Mono<CompanyRegistersDocument> getCompanyRegisters(String companyNumber) {
+        if (knownCompaniesFilter.isDefinitelyAbsent(companyNumber)) {
+            return Mono.empty();
+        }
+        return mongoTemplate.findById(companyNumber, CompanyRegistersDocument.class)
+                .filter(stored -> !stored.isTombstone())
+                .switchIfEmpty(Mono.fromRunnable(knownCompaniesFilter::recordFalsePositive))
+                .onErrorMap(ex -> ex instanceof DataAccessException && !(ex instanceof ServiceUnavailableException),
+                        ex -> new ServiceUnavailableException(
+                                "Data access exception thrown when calling reactive Mongo template"));
+    }
+
+    public Mono<ServiceStatus> upsertCompanyRegisters(String companyNumber, InternalRegisters requestBody,
+            String requestId) {
+        return offload(companyNumber, requestId,
+                () -> registersService.upsertCompanyRegisters(companyNumber, requestBody));
+    }
+
+    public Mono<ServiceStatus> deleteCompanyRegisters(String companyNumber, String deltaAt, String requestId) {
+        return offload(companyNumber, requestId,
+                () -> registersService.deleteCompanyRegisters(companyNumber, deltaAt));
+    }
+
+    private static Mono<ServiceStatus> offload(String companyNumber, String requestId,
+            Supplier<ServiceStatus> write) {
+        RequestContext context = RequestContext.of(requestId, companyNumber);
+        return Mono.fromCallable(() -> DataMapHolder.runWith(context, () -> {
+            try {
+                return write.get();
+            } catch (DataAccessException ex) {
+                LOGGER.error("Failed to write company registers", ex, DataMapHolder.getLogMap());
+                throw ex;
+            }
+        })).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,135 @@
+package uk.gov.companieshouse.registers;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MongoDBContainer;
+
+/**
+ * Compares the application with spring.threads.virtual.enabled off, so Tomcat serves requests on its default pool of
+ * 200 platform threads, and on, so each request runs on a virtual thread. Each run starts the whole application
+ * against MongoDB in a container and a stub chs-kafka-api that takes a fixed time to answer, and sends PUTs for
+ * distinct companies, so every request passes through Tomcat, a MongoDB read and save, and the SDK's call to
+ * chs-kafka-api. Concurrency is raised step by step and, for each mode, the best throughput whose p99 stays within the
+ * budget is reported. Needs Docker. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadsBenchmarkTest {
+
+    private static final long CHS_KAFKA_API_MILLIS = 20;
+    private static final long P99_BUDGET_MILLIS = 100;
+    private static final int[] CONCURRENCY = {50, 100, 200, 400, 800};
+    private static final int REQUESTS_PER_CLIENT = 50;
+    private static final String BODY =
+            "{\"internal_data\":{\"delta_at\":\"2024-01-01T00:00:00.000Z\"},\"external_data\":{}}";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final AtomicLong companyNumbers = new AtomicLong();
+
+    @Test
+    @DisplayName("Benchmark the application on platform and virtual request threads at a fixed p99")
+    void benchmark() throws Exception {
+        HttpServer chsKafkaApi = HttpServer.create(new InetSocketAddress("localhost", 0), 4096);
+        chsKafkaApi.createContext("/private/resource-changed", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(CHS_KAFKA_API_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        chsKafkaApi.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        chsKafkaApi.start();
+        try (MongoDBContainer mongo = new MongoDBContainer("mongo:7.0")) {
+            mongo.start();
+            String chsKafkaApiUrl = "http://localhost:" + chsKafkaApi.getAddress().getPort();
+            run("platform", false, mongo.getConnectionString(), chsKafkaApiUrl);
+            run("virtual", true, mongo.getConnectionString(), chsKafkaApiUrl);
+        } finally {
+            chsKafkaApi.stop(0);
+        }
+    }
+
+    private void run(String name, boolean virtualThreads, String mongoUrl, String chsKafkaApiUrl)
+            throws Exception {
+        try (ConfigurableApplicationContext application = new SpringApplicationBuilder(RegistersApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.data.mongodb.uri=" + mongoUrl + "/company_registers",
+                        "--chs.kafka.api.endpoint=" + chsKafkaApiUrl)) {
+            String baseUrl = "http://localhost:"
+                    + ((WebServerApplicationContext) application).getWebServer().getPort();
+            double best = 0;
+            for (int concurrency : CONCURRENCY) {
+                long[] latencies = new long[concurrency * REQUESTS_PER_CLIENT];
+                long start = System.nanoTime();
+                try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<?>> futures = new ArrayList<>();
+                    for (int c = 0; c < concurrency; c++) {
+                        int offset = c * REQUESTS_PER_CLIENT;
+                        futures.add(clients.submit(() -> {
+                            for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                                long sent = System.nanoTime();
+                                HttpResponse<Void> response = client.send(put(baseUrl),
+                                        HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() != 200) {
+                                    throw new IllegalStateException("PUT returned " + response.statusCode());
+                                }
+                                latencies[offset + i] = System.nanoTime() - sent;
+                            }
+                            return null;
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        future.get();
+                    }
+                }
+                double throughput = latencies.length / ((System.nanoTime() - start) / 1e9);
+                Arrays.sort(latencies);
+                long p99Millis = TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.99)]);
+                System.out.printf("%s, %d concurrent: %.0f requests/s, p99 %d ms%n", name, concurrency, throughput,
+                        p99Millis);
+                if (p99Millis <= P99_BUDGET_MILLIS) {
+                    best = Math.max(best, throughput);
+                }
+            }
+            System.out.printf("%s: %.0f requests/s within a p99 of %d ms%n", name, best, P99_BUDGET_MILLIS);
+        }
+    }
+
+    private HttpRequest put(String baseUrl) {
+        String companyNumber = "%08d".formatted(companyNumbers.incrementAndGet());
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/company/" + companyNumber + "/registers"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .header("x-request-id", "benchmark-" + companyNumber)
+                .header("ERIC-Identity", "benchmark")
+                .header("ERIC-Identity-Type", "key")
+                .header("ERIC-Authorised-Key-Privileges", "internal-app")
+                .PUT(HttpRequest.BodyPublishers.ofString(BODY))
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import uk.gov.companieshouse.api.registers.InternalData;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.api.registers.Registers;
+import uk.gov.companieshouse.registers.config.ExceptionHandlerConfig;
+import uk.gov.companieshouse.registers.config.WebSecurityConfig;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.RegistersService;
+import uk.gov.companieshouse.registers.service.RegistersWriteExecutor;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = AsyncRegistersWriteController.class)
+@ContextConfiguration(classes = {AsyncRegistersWriteController.class, ExceptionHandlerConfig.class})
+@Import({WebSecurityConfig.class})
+@TestPropertySource(properties = "registers.write-executor.enabled=true")
+class AsyncRegistersWriteControllerTest {
+    private static final String URI = "/company/12345678/registers";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RegistersService registersService;
+
+    @MockBean
+    private HotKeyTracker hotKeyTracker;
+
+    @MockBean
+    private RegistersWriteExecutor writeExecutor;
+
+    @Test
+    @DisplayName("Successful upsert request run on the write executor")
+    void upsertCompanyRegisters() throws Exception {
+        when(registersService.upsertCompanyRegisters(any(), any())).thenReturn(ServiceStatus.SUCCESS);
+        when(writeExecutor.submit(eq("12345678"), any())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                invocation.<Supplier<ServiceStatus>>getArgument(1).get()));
+
+        MvcResult result = mockMvc.perform(put(URI)
+                .contentType(APPLICATION_JSON)
+                .header("x-request-id", "5342342")
+                .header("ERIC-Identity", "Test-Identity")
+                .header("ERIC-Identity-Type", "Key")
+                .header("ERIC-Authorised-Key-Privileges", "internal-app")
+                .content(new Gson().toJson(getRequestBody())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Delete request refused or timed out by the write executor")
+    void deleteCompanyRegistersRejected() throws Exception {
+        when(writeExecutor.submit(eq("12345678"), any()))
+                .thenReturn(CompletableFuture.completedFuture(ServiceStatus.SERVER_ERROR));
+
+        MvcResult result = mockMvc.perform(delete(URI)
+                .contentType(APPLICATION_JSON)
+                .header("x-request-id", "5342342")
+                .header("ERIC-Identity", "Test-Identity")
+                .header("ERIC-Identity-Type", "Key")
+                .header("ERIC-Authorised-Key-Privileges", "internal-app"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isServiceUnavailable());
+    }
+
+    private InternalRegisters getRequestBody() {
+        InternalRegisters request = new InternalRegisters();
+        request.setInternalData(new InternalData());
+        request.setExternalData(new Registers());
+        return request;
+    }
+}
@@ -0,0 +1,52 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.ReemitFilter;
+
+@ExtendWith(MockitoExtension.class)
+class ReemitEndpointTest {
+
+    @Mock
+    private ResourceChangedReemit reemit;
+
+    @InjectMocks
+    private ReemitEndpoint endpoint;
+
+    @Test
+    @DisplayName("Test a job is started with the parsed updated range")
+    void start() {
+        endpoint.start("2024-01-01T00:00:00Z", "2024-02-01T00:00:00Z", "00", null);
+
+        verify(reemit).start(new ReemitFilter(Instant.parse("2024-01-01T00:00:00Z"),
+                Instant.parse("2024-02-01T00:00:00Z"), "00"), false);
+    }
+
+    @Test
+    @DisplayName("Test an unparseable instant is rejected as an invalid request")
+    void rejectsInvalidInstant() {
+        assertThrows(InvalidEndpointRequestException.class,
+                () -> endpoint.start("2024-01-01", null, null, null));
+        verify(reemit, never()).start(any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Test an empty updated range is rejected as an invalid request")
+    void rejectsEmptyRange() {
+        assertThrows(InvalidEndpointRequestException.class,
+                () -> endpoint.start("2024-02-01T00:00:00Z", "2024-01-01T00:00:00Z", null, null));
+    }
+}
@@ -0,0 +1,159 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import uk.gov.companieshouse.api.registers.CompanyRegister;
+import uk.gov.companieshouse.api.registers.InternalData;
+import uk.gov.companieshouse.api.registers.InternalRegisters;
+import uk.gov.companieshouse.api.registers.Registers;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
+
+/**
+ * The registers API contract, run against the servlet stack and, in a build with the reactive profile, the reactive
+ * stack.
+ */
+abstract class RegistersApiContractTest {
+
+    static final String URI = "/company/12345678/registers";
+
+    abstract WebTestClient client();
+
+    abstract void givenStored(CompanyRegistersDocument document);
+
+    abstract void givenMongoUnavailable(Optional<SnapshotEntry> snapshot);
+
+    abstract void givenUpsert(ServiceStatus status);
+
+    abstract void givenDelete(ServiceStatus status);
+
+    @Test
+    @DisplayName("Contract: get returns the stored registers data")
+    void getCompanyRegisters() {
+        CompanyRegistersDocument document = new CompanyRegistersDocument();
+        document.setData(new CompanyRegister().kind(CompanyRegister.KindEnum.REGISTERS));
+        givenStored(document);
+
+        client().get().uri(URI).headers(this::readHeaders).exchange()
+                .expectStatus().isOk()
+                .expectBody().json("{\"kind\":\"registers\"}");
+    }
+
+    @Test
+    @DisplayName("Contract: get returns 404 when nothing is stored")
+    void getCompanyRegistersNotFound() {
+        givenStored(null);
+
+        client().get().uri(URI).headers(this::readHeaders).exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Contract: get returns 503 when MongoDB is unavailable and there is no snapshot")
+    void getCompanyRegistersMongoUnavailable() {
+        givenMongoUnavailable(Optional.empty());
+
+        client().get().uri(URI).headers(this::readHeaders).exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("Contract: get serves a stale snapshot when MongoDB is unavailable")
+    void getCompanyRegistersFromSnapshot() {
+        givenMongoUnavailable(Optional.of(new SnapshotEntry(
+                ByteBuffer.wrap("{\"kind\":\"registers\"}".getBytes(StandardCharsets.UTF_8)),
+                Instant.now().minusSeconds(120))));
+
+        client().get().uri(URI).headers(this::readHeaders).exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Stale-Response", "true")
+                .expectHeader().exists(HttpHeaders.AGE)
+                .expectBody().json("{\"kind\":\"registers\"}");
+    }
+
+    @Test
+    @DisplayName("Contract: get without an ERIC identity is unauthorised")
+    void getCompanyRegistersUnauthorised() {
+        client().get().uri(URI).exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    @DisplayName("Contract: upsert maps service status to 200, 409 and 503")
+    void upsertCompanyRegisters() {
+        givenUpsert(ServiceStatus.SUCCESS);
+        put().expectStatus().isOk();
+
+        givenUpsert(ServiceStatus.CLIENT_ERROR);
+        put().expectStatus().isEqualTo(409);
+
+        givenUpsert(ServiceStatus.SERVER_ERROR);
+        put().expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    @DisplayName("Contract: upsert without the internal-app privilege is forbidden")
+    void upsertCompanyRegistersForbidden() {
+        givenUpsert(ServiceStatus.SUCCESS);
+
+        client().put().uri(URI).contentType(APPLICATION_JSON)
+                .header("ERIC-Identity", "Test-Identity")
+                .header("ERIC-Identity-Type", "Key")
+                .bodyValue(requestBody())
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    @DisplayName("Contract: delete maps service status to 200, 404 and 503")
+    void deleteCompanyRegisters() {
+        givenDelete(ServiceStatus.SUCCESS);
+        delete().expectStatus().isOk();
+
+        givenDelete(ServiceStatus.CLIENT_ERROR);
+        delete().expectStatus().isNotFound();
+
+        givenDelete(ServiceStatus.SERVER_ERROR);
+        delete().expectStatus().isEqualTo(503);
+    }
+
+    private WebTestClient.ResponseSpec put() {
+        return client().put().uri(URI).contentType(APPLICATION_JSON)
+                .headers(this::writeHeaders)
+                .bodyValue(requestBody())
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec delete() {
+        return client().delete().uri(URI).headers(this::writeHeaders).exchange();
+    }
+
+    private void readHeaders(HttpHeaders headers) {
+        headers.add("x-request-id", "5342342");
+        headers.add("ERIC-Identity", "Test-Identity");
+        headers.add("ERIC-Identity-Type", "oauth2");
+    }
+
+    private void writeHeaders(HttpHeaders headers) {
+        headers.add("x-request-id", "5342342");
+        headers.add("ERIC-Identity", "Test-Identity");
+        headers.add("ERIC-Identity-Type", "Key");
+        headers.add("ERIC-Authorised-Key-Privileges", "internal-app");
+    }
+
+    private static InternalRegisters requestBody() {
+        InternalRegisters request = new InternalRegisters();
+        request.setInternalData(new InternalData());
+        request.setExternalData(new Registers());
+        return request;
+    }
+}
@@ -18,6 +18,9 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -41,11 +44,15 @@ import uk.gov.companieshouse.registers.config.WebSecurityConfig;
 import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
 import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
 import uk.gov.companieshouse.registers.service.RegistersService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
 
 @ExtendWith(SpringExtension.class)
-@WebMvcTest(controllers = RegistersController.class)
-@ContextConfiguration(classes = {RegistersController.class, ExceptionHandlerConfig.class})
+@WebMvcTest(controllers = {RegistersController.class, RegistersWriteController.class})
+@ContextConfiguration(classes = {RegistersController.class, RegistersWriteController.class,
+        ExceptionHandlerConfig.class})
 @Import({WebSecurityConfig.class})
 class RegistersControllerTest {
     private static final String URI = "/company/12345678/registers";
@@ -59,6 +66,12 @@ class RegistersControllerTest {
     @MockBean
     private RegistersService registersService;
 
+    @MockBean
+    private HotKeyTracker hotKeyTracker;
+
+    @MockBean
+    private RegistersSnapshotService snapshotService;
+
     private final Gson gson = new GsonBuilder().setPrettyPrinting()
             .excludeFieldsWithoutExposeAnnotation()
             .create();
@@ -128,6 +141,22 @@ class RegistersControllerTest {
                 .andExpect(status().isServiceUnavailable());
     }
 
+    @Test
+    @DisplayName("Upsert request refused by the open chs-kafka-api circuit")
+    void upsertCompanyRegistersCircuitOpen() throws Exception {
+        when(registersService.upsertCompanyRegisters(any(), any())).thenReturn(ServiceStatus.CIRCUIT_OPEN);
+
+        mockMvc.perform(put(URI)
+                .contentType(APPLICATION_JSON)
+                .header("x-request-id", "5342342")
+                .header("ERIC-Identity", "Test-Identity")
+                .header("ERIC-Identity-Type", "Key")
+                .header("ERIC-Authorised-Key-Privileges", "internal-app")
+                .content(gson.toJson(getRequestBody())))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"));
+    }
+
     @Test
     @DisplayName("Client error upsert request")
     void upsertCompanyRegistersClientError() throws Exception {
@@ -197,10 +226,29 @@ class RegistersControllerTest {
                 .andExpect(status().isServiceUnavailable());
     }
 
+    @Test
+    @DisplayName("MongoDB is unavailable for get company registers request held in the snapshot")
+    void getCompanyRegistersFromSnapshot() throws Exception {
+        when(registersService.getCompanyRegisters(any())).thenThrow(ServiceUnavailableException.class);
+        when(snapshotService.find("12345678")).thenReturn(Optional.of(new SnapshotEntry(
+                ByteBuffer.wrap("{\"kind\":\"registers\"}".getBytes(StandardCharsets.UTF_8)),
+                Instant.now().minusSeconds(120))));
+
+        mockMvc.perform(get(URI)
+                .contentType(APPLICATION_JSON)
+                .header("x-request-id", "5342342")
+                .header("ERIC-Identity", "Test-Identity")
+                .header("ERIC-Identity-Type", "Key"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Stale-Response", "true"))
+                .andExpect(header().exists(HttpHeaders.AGE))
+                .andExpect(content().json("{\"kind\":\"registers\"}"));
+    }
+
     @Test
     @DisplayName("Successful delete company registers request")
     void deleteCompanyRegisters() throws Exception {
-        when(registersService.deleteCompanyRegisters(any())).thenReturn(ServiceStatus.SUCCESS);
+        when(registersService.deleteCompanyRegisters(any(), any())).thenReturn(ServiceStatus.SUCCESS);
 
         mockMvc.perform(delete(URI)
                 .contentType(APPLICATION_JSON)
@@ -214,7 +262,7 @@ class RegistersControllerTest {
     @Test
     @DisplayName("Server error delete request")
     void deleteCompanyRegistersServerError() throws Exception {
-        when(registersService.deleteCompanyRegisters(any())).thenReturn(ServiceStatus.SERVER_ERROR);
+        when(registersService.deleteCompanyRegisters(any(), any())).thenReturn(ServiceStatus.SERVER_ERROR);
 
         mockMvc.perform(delete(URI)
                 .contentType(APPLICATION_JSON)
@@ -228,7 +276,7 @@ class RegistersControllerTest {
     @Test
     @DisplayName("Not found delete request")
     void deleteCompanyRegistersNotFound() throws Exception {
-        when(registersService.deleteCompanyRegisters(any())).thenReturn(ServiceStatus.CLIENT_ERROR);
+        when(registersService.deleteCompanyRegisters(any(), any())).thenReturn(ServiceStatus.CLIENT_ERROR);
 
         mockMvc.perform(delete(URI)
                 .contentType(APPLICATION_JSON)
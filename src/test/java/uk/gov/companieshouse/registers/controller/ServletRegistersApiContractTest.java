@@ -0,0 +1,71 @@
+package uk.gov.companieshouse.registers.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+import uk.gov.companieshouse.registers.config.ExceptionHandlerConfig;
+import uk.gov.companieshouse.registers.config.WebSecurityConfig;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.HotKeyTracker;
+import uk.gov.companieshouse.registers.service.RegistersService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService;
+import uk.gov.companieshouse.registers.service.RegistersSnapshotService.SnapshotEntry;
+
+@ExtendWith(SpringExtension.class)
+@WebMvcTest(controllers = {RegistersController.class, RegistersWriteController.class})
+@ContextConfiguration(classes = {RegistersController.class, RegistersWriteController.class,
+        ExceptionHandlerConfig.class})
+@Import({WebSecurityConfig.class})
+class ServletRegistersApiContractTest extends RegistersApiContractTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RegistersService registersService;
+
+    @MockBean
+    private HotKeyTracker hotKeyTracker;
+
+    @MockBean
+    private RegistersSnapshotService snapshotService;
+
+    @Override
+    WebTestClient client() {
+        return MockMvcWebTestClient.bindTo(mockMvc).build();
+    }
+
+    @Override
+    void givenStored(CompanyRegistersDocument document) {
+        when(registersService.getCompanyRegisters(any())).thenReturn(Optional.ofNullable(document));
+    }
+
+    @Override
+    void givenMongoUnavailable(Optional<SnapshotEntry> snapshot) {
+        when(registersService.getCompanyRegisters(any())).thenThrow(ServiceUnavailableException.class);
+        when(snapshotService.find("12345678")).thenReturn(snapshot);
+    }
+
+    @Override
+    void givenUpsert(ServiceStatus status) {
+        when(registersService.upsertCompanyRegisters(any(), any())).thenReturn(status);
+    }
+
+    @Override
+    void givenDelete(ServiceStatus status) {
+        when(registersService.deleteCompanyRegisters(any(), any())).thenReturn(status);
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.companieshouse.registers.logging;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DataMapHolderTest {
+
+    @AfterEach
+    void tearDown() {
+        DataMapHolder.clear();
+    }
+
+    @Test
+    @DisplayName("Test the log map follows the request id and company number, and entries the logger adds are dropped")
+    void logMap() {
+        DataMapHolder.initialise("request-1");
+        assertEquals("request-1", DataMapHolder.getLogMap().get("request_id"));
+        assertFalse(DataMapHolder.getLogMap().containsKey("company_number"));
+        assertSame(DataMapHolder.getLogMap(), DataMapHolder.getLogMap());
+
+        DataMapHolder.get().companyNumber("12345678");
+        Map<String, Object> logMap = DataMapHolder.getLogMap();
+        logMap.put("error", "added by the logger");
+
+        assertEquals("12345678", DataMapHolder.getLogMap().get("company_number"));
+        assertFalse(DataMapHolder.getLogMap().containsKey("error"));
+        assertEquals("request-1", DataMapHolder.getRequestId());
+    }
+
+    @Test
+    @DisplayName("Test a captured context runs on another thread and is cleared afterwards")
+    void captureAndRunWith() {
+        DataMapHolder.initialise("request-1");
+        DataMapHolder.get().companyNumber("12345678");
+        DataMapHolder.RequestContext context = DataMapHolder.capture();
+
+        Map<String, Object> logMap = CompletableFuture.supplyAsync(() -> {
+            Map<String, Object> during = DataMapHolder.runWith(context, DataMapHolder::getLogMap);
+            assertEquals("uninitialised", DataMapHolder.getRequestId());
+            return during;
+        }).join();
+
+        assertEquals("request-1", logMap.get("request_id"));
+        assertEquals("12345678", logMap.get("company_number"));
+    }
+
+    @Test
+    @DisplayName("Test running with a context on the request thread puts back the request's own context")
+    void runWithRestoresContext() {
+        DataMapHolder.initialise("request-1");
+        DataMapHolder.RequestContext context = DataMapHolder.RequestContext.of("request-2", "12345678");
+
+        String during = DataMapHolder.runWith(context, DataMapHolder::getRequestId);
+
+        assertEquals("request-2", during);
+        assertEquals("request-1", DataMapHolder.getRequestId());
+    }
+
+    @Test
+    @DisplayName("Test generated request ids are distinct version 4 UUIDs")
+    void requestIds() {
+        UUID first = UUID.fromString(RequestIds.next());
+        UUID second = UUID.fromString(RequestIds.next());
+
+        assertEquals(4, first.version());
+        assertEquals(2, first.variant());
+        assertNotEquals(first, second);
+        assertTrue(RequestIds.next().matches("[0-9a-f]{8}-[0-9a-f]{4}-4[0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}"));
+    }
+}
@@ -0,0 +1,101 @@
+package uk.gov.companieshouse.registers.logging;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import uk.gov.companieshouse.logging.util.DataMap;
+
+/**
+ * Measures the per-request cost of the log context: time and bytes allocated for a request that gets a new request
+ * id, sets the company number, logs six times and reads the request id three times, as a PUT does. The previous
+ * approach, which built a DataMap for every log entry and request id lookup and drew ids from UUID.randomUUID(), is
+ * measured alongside. Request id generation is also measured across 32 virtual threads, where the SecureRandom behind
+ * UUID.randomUUID() is shared. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RequestContextBenchmarkTest {
+
+    private static final int REQUESTS = 1_000_000;
+    private static final int LOG_ENTRIES = 6;
+    private static final int REQUEST_ID_READS = 3;
+    private static final int THREADS = 32;
+
+    private static volatile Object sink;
+
+    @Test
+    @DisplayName("Benchmark the log context cost per request, against a DataMap built for every entry")
+    void benchmark() {
+        report("previous", RequestContextBenchmarkTest::previousRequest);
+        report("current", RequestContextBenchmarkTest::currentRequest);
+        reportIds("UUID.randomUUID", () -> UUID.randomUUID().toString());
+        reportIds("RequestIds", RequestIds::next);
+    }
+
+    private static void previousRequest() {
+        String requestId = UUID.randomUUID().toString();
+        for (int i = 0; i < LOG_ENTRIES; i++) {
+            sink = new DataMap.Builder().requestId(requestId).companyNumber("12345678").build().getLogMap();
+        }
+        for (int i = 0; i < REQUEST_ID_READS; i++) {
+            sink = new DataMap.Builder().requestId(requestId).companyNumber("12345678").build().getLogMap()
+                    .get("request_id");
+        }
+    }
+
+    private static void currentRequest() {
+        DataMapHolder.initialise(RequestIds.next());
+        DataMapHolder.get().companyNumber("12345678");
+        for (int i = 0; i < LOG_ENTRIES; i++) {
+            Map<String, Object> logMap = DataMapHolder.getLogMap();
+            sink = logMap;
+        }
+        for (int i = 0; i < REQUEST_ID_READS; i++) {
+            sink = DataMapHolder.getRequestId();
+        }
+        DataMapHolder.clear();
+    }
+
+    private static void report(String name, Runnable request) {
+        for (int i = 0; i < REQUESTS; i++) {
+            request.run();
+        }
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.printf("%s: %.0f ns and %d bytes per request%n", name, (double) elapsedNanos / REQUESTS,
+                bytes / REQUESTS);
+    }
+
+    private static void reportIds(String name, Supplier<String> generator) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            CompletableFuture.allOf(IntStream.range(0, THREADS)
+                    .mapToObj(thread -> CompletableFuture.runAsync(() -> {
+                        for (int i = 0; i < REQUESTS / THREADS; i++) {
+                            sink = generator.get();
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+            long elapsedNanos = System.nanoTime() - start;
+            System.out.printf("%s: %.0f ns per request id across %d threads%n", name,
+                    (double) elapsedNanos / REQUESTS, THREADS);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+}
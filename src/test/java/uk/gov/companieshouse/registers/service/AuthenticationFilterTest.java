@@ -193,4 +193,31 @@ class AuthenticationFilterTest {
 
         verify(filterChain, times(0)).doFilter(request, response);
     }
+
+    @Test
+    @DisplayName("GET request for a management endpoint without internal app privileges fails")
+    void doFilterInternalManagementEndpointWithoutPrivileges() throws ServletException, IOException {
+        when(request.getHeader("ERIC-Identity")).thenReturn("SOME-IDENTITY");
+        when(request.getHeader("ERIC-Identity-Type")).thenReturn("KEY");
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/hotkeys");
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(0)).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("GET request for a management endpoint with internal app privileges passes filter")
+    void doFilterInternalManagementEndpointWithPrivileges() throws ServletException, IOException {
+        when(request.getHeader("ERIC-Identity")).thenReturn("SOME-IDENTITY");
+        when(request.getHeader("ERIC-Identity-Type")).thenReturn("KEY");
+        when(request.getHeader("ERIC-Authorised-Key-Privileges")).thenReturn("internal-app");
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getRequestURI()).thenReturn("/hotkeys");
+
+        filter.doFilterInternal(request, response, filterChain);
+
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
 }
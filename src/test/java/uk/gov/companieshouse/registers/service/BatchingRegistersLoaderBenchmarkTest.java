@@ -0,0 +1,101 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+
+/**
+ * Compares batched and unbatched GET lookups against a repository that simulates a fixed MongoDB round trip, a small
+ * per-document cost and a bounded connection pool. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchingRegistersLoaderBenchmarkTest {
+
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(400);
+    private static final long PER_DOCUMENT_NANOS = TimeUnit.MICROSECONDS.toNanos(5);
+    private static final int CONNECTIONS = 10;
+    private static final int THREADS = 64;
+    private static final int LOOKUPS_PER_THREAD = 500;
+
+    @Test
+    @DisplayName("Benchmark batched against unbatched lookups")
+    void benchmark() throws Exception {
+        Semaphore connections = new Semaphore(CONNECTIONS);
+        RegistersRepository repository = mock(RegistersRepository.class, withSettings().stubOnly());
+        when(repository.findById(anyString())).thenAnswer(invocation -> {
+            roundTrip(connections, ROUND_TRIP_NANOS + PER_DOCUMENT_NANOS);
+            return Optional.of(new CompanyRegistersDocument().setId(invocation.getArgument(0)));
+        });
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            List<CompanyRegistersDocument> documents = StreamSupport.stream(ids.spliterator(), false)
+                    .map(id -> new CompanyRegistersDocument().setId(id))
+                    .toList();
+            roundTrip(connections, ROUND_TRIP_NANOS + PER_DOCUMENT_NANOS * documents.size());
+            return documents;
+        });
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, mock(MongoReadLane.class), true,
+                250, 100, new SimpleMeterRegistry());
+
+        run("unbatched", repository::findById);
+        run("batched", loader::load);
+    }
+
+    private static void roundTrip(Semaphore connections, long nanos) throws InterruptedException {
+        connections.acquire();
+        try {
+            LockSupport.parkNanos(nanos);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private static void run(String name, Function<String, Optional<CompanyRegistersDocument>> lookup)
+            throws Exception {
+        LongAdder latencyNanos = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int offset = thread * LOOKUPS_PER_THREAD;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < LOOKUPS_PER_THREAD; i++) {
+                        long lookupStart = System.nanoTime();
+                        lookup.apply("%08d".formatted(offset + i));
+                        latencyNanos.add(System.nanoTime() - lookupStart);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int lookups = THREADS * LOOKUPS_PER_THREAD;
+        System.out.printf("%s: %.0f lookups/s, mean latency %.1f us%n", name,
+                lookups / (elapsedNanos / 1e9), latencyNanos.sum() / 1e3 / lookups);
+    }
+}
@@ -0,0 +1,188 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.StreamSupport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingRegistersLoaderTest {
+
+    @Mock
+    private RegistersRepository repository;
+    @Mock
+    private MongoReadLane readLane;
+
+    @Test
+    @DisplayName("Test concurrent lookups within the window are served by one query")
+    void batchesConcurrentLookups() throws Exception {
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false)
+                    .filter(id -> !id.equals("00000003"))
+                    .map(id -> new CompanyRegistersDocument().setId(id))
+                    .toList();
+        });
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 200_000, 4,
+                new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Optional<CompanyRegistersDocument>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String companyNumber = "%08d".formatted(i);
+                futures.add(executor.submit(() -> loader.load(companyNumber)));
+            }
+
+            for (int i = 0; i < 4; i++) {
+                Optional<CompanyRegistersDocument> document = futures.get(i).get(5, TimeUnit.SECONDS);
+                if (i == 3) {
+                    assertTrue(document.isEmpty());
+                } else {
+                    assertEquals("%08d".formatted(i), document.orElseThrow().getId());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // the batch fills up before the 200ms window expires
+        verify(repository, times(1)).findAllById(any());
+    }
+
+    @Test
+    @DisplayName("Test a lone lookup is queried once the window elapses")
+    void singleLookup() {
+        when(repository.findAllById(any())).thenReturn(List.of(new CompanyRegistersDocument().setId("12345678")));
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 100, 100,
+                new SimpleMeterRegistry());
+
+        Optional<CompanyRegistersDocument> document = loader.load("12345678");
+
+        assertEquals("12345678", document.orElseThrow().getId());
+        verify(repository).findAllById(Set.of("12345678"));
+    }
+
+    @Test
+    @DisplayName("Test query failures are rethrown to every caller")
+    void propagatesFailures() {
+        when(repository.findAllById(any())).thenThrow(new ServiceUnavailableException("down"));
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 100, 100,
+                new SimpleMeterRegistry());
+
+        assertThrows(ServiceUnavailableException.class, () -> loader.load("12345678"));
+    }
+
+    @Test
+    @DisplayName("Test a batch is queried under the latest deadline of its callers, not the leader's")
+    void queriesUnderLatestDeadline() throws Exception {
+        Deadline leaderDeadline = Deadline.after(Duration.ofMillis(500));
+        Deadline followerDeadline = Deadline.after(Duration.ofSeconds(10));
+        AtomicReference<Deadline> queriedUnder = new AtomicReference<>();
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            queriedUnder.set(Deadline.current().orElse(null));
+            return List.of();
+        });
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 200_000, 2,
+                new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Deadline> leader = executor.submit(() -> loadWith(loader, "00000001", leaderDeadline));
+            // the first caller into the batch leads it
+            Thread.sleep(50);
+            Future<Deadline> follower = executor.submit(() -> loadWith(loader, "00000002", followerDeadline));
+
+            assertSame(leaderDeadline, leader.get(5, TimeUnit.SECONDS));
+            assertSame(followerDeadline, follower.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertSame(followerDeadline, queriedUnder.get());
+    }
+
+    @Test
+    @DisplayName("Test a caller waits for a batch no longer than its own deadline")
+    void waitBoundedByDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findAllById(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 1_000_000, 2,
+                new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<CompanyRegistersDocument>> leader = executor.submit(() -> loader.load("00000001"));
+            // the first caller into the batch leads it
+            Thread.sleep(50);
+            Deadline.set(Deadline.after(Duration.ofMillis(100)));
+
+            assertThrows(DeadlineExceededException.class, () -> loader.load("00000002"));
+
+            release.countDown();
+            assertTrue(leader.get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            Deadline.clear();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test batches are queried on the read lane when it is enabled")
+    void usesReadLane() {
+        when(readLane.isEnabled()).thenReturn(true);
+        when(readLane.findAllById(any())).thenReturn(List.of(new CompanyRegistersDocument().setId("12345678")));
+        BatchingRegistersLoader loader = new BatchingRegistersLoader(repository, readLane, true, 100, 100,
+                new SimpleMeterRegistry());
+
+        Optional<CompanyRegistersDocument> document = loader.load("12345678");
+
+        assertEquals("12345678", document.orElseThrow().getId());
+        verify(readLane).findAllById(Set.of("12345678"));
+        verifyNoInteractions(repository);
+    }
+
+    /**
+     * @return the caller's deadline after the lookup, which must be its own again
+     */
+    private static Deadline loadWith(BatchingRegistersLoader loader, String companyNumber, Deadline deadline) {
+        Deadline.set(deadline);
+        try {
+            loader.load(companyNumber);
+            return Deadline.current().orElse(null);
+        } finally {
+            Deadline.clear();
+        }
+    }
+}
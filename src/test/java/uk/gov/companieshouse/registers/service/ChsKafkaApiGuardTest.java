@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.CircuitBreaker;
+
+class ChsKafkaApiGuardTest {
+
+    @Test
+    @DisplayName("Test failed calls are retried until one succeeds")
+    void retriesUntilSuccess() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 20, 10, 0.5, 60_000, 1, 2, 10, 3, 1, 2, 1_000,
+                meterRegistry);
+        AtomicInteger calls = new AtomicInteger();
+
+        ServiceStatus status = guard.call(() -> calls.incrementAndGet() < 3
+                ? ServiceStatus.SERVER_ERROR : ServiceStatus.SUCCESS);
+
+        assertEquals(ServiceStatus.SUCCESS, status);
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.counter("registers.chs_kafka_api.retries").count());
+    }
+
+    @Test
+    @DisplayName("Test retrying stops once the circuit breaker opens")
+    void stopsRetryingWhenCircuitOpens() {
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 2, 2, 0.5, 60_000, 1, 2, 10, 5, 1, 2, 1_000,
+                new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        ServiceStatus status = guard.call(() -> {
+            calls.incrementAndGet();
+            return ServiceStatus.SERVER_ERROR;
+        });
+
+        assertEquals(ServiceStatus.SERVER_ERROR, status);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test a call answered with a 4xx is neither retried nor counted against the breaker")
+    void clientErrorNotCounted() {
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 2, 2, 0.5, 60_000, 1, 2, 10, 5, 1, 2, 1_000,
+                new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ServiceStatus.CLIENT_ERROR, guard.call(() -> {
+                calls.incrementAndGet();
+                return ServiceStatus.CLIENT_ERROR;
+            }));
+        }
+
+        assertEquals(3, calls.get());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    @DisplayName("Test a call refused by the open circuit returns CIRCUIT_OPEN without being made")
+    void circuitOpenRejects() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 2, 2, 0.5, 60_000, 1, 2, 10, 1, 1, 1, 1_000,
+                meterRegistry);
+        guard.call(() -> ServiceStatus.SERVER_ERROR);
+        guard.call(() -> ServiceStatus.SERVER_ERROR);
+        AtomicInteger calls = new AtomicInteger();
+
+        ServiceStatus status = guard.call(() -> {
+            calls.incrementAndGet();
+            return ServiceStatus.SUCCESS;
+        });
+
+        assertEquals(ServiceStatus.CIRCUIT_OPEN, status);
+        assertEquals(0, calls.get());
+        assertEquals(1.0, meterRegistry.counter("registers.chs_kafka_api.rejected", "reason", "circuit_open")
+                .count());
+    }
+
+    @Test
+    @DisplayName("Test retrying stops once the retry budget is spent")
+    void stopsRetryingWhenBudgetSpent() {
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 20, 10, 0.5, 60_000, 1, 2, 10, 5, 1_000, 1_000, 0,
+                new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+
+        ServiceStatus status = guard.call(() -> {
+            calls.incrementAndGet();
+            return ServiceStatus.SERVER_ERROR;
+        });
+
+        assertEquals(ServiceStatus.SERVER_ERROR, status);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("Test calls beyond the bulkhead limit are refused without being made")
+    void bulkheadRejects() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 20, 10, 0.5, 60_000, 1, 1, 10, 1, 1, 1, 1_000,
+                meterRegistry);
+        CountDownLatch inFlight = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ServiceStatus> blocked = executor.submit(() -> guard.call(() -> {
+                inFlight.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return ServiceStatus.SUCCESS;
+            }));
+            inFlight.await(5, TimeUnit.SECONDS);
+
+            assertEquals(ServiceStatus.SERVER_ERROR, guard.call(() -> ServiceStatus.SUCCESS));
+            assertEquals(1.0, meterRegistry.counter("registers.chs_kafka_api.rejected", "reason", "bulkhead_full")
+                    .count());
+
+            release.countDown();
+            assertEquals(ServiceStatus.SUCCESS, blocked.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.StripedLock;
+
+class CompanyLocksTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test writes for the same company never overlap")
+    void sameCompany() {
+        CompanyLocks locks = new CompanyLocks(true, 16, 10_000, meterRegistry);
+        AtomicInteger running = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+
+        CompletableFuture<?>[] writes = new CompletableFuture<?>[8];
+        for (int i = 0; i < writes.length; i++) {
+            writes[i] = CompletableFuture.runAsync(() -> locks.withLock("12345678", () -> {
+                if (running.incrementAndGet() > 1) {
+                    overlapped.set(true);
+                }
+                sleep(5);
+                running.decrementAndGet();
+                return ServiceStatus.SUCCESS;
+            }));
+        }
+        CompletableFuture.allOf(writes).join();
+
+        assertFalse(overlapped.get());
+        assertEquals(8, meterRegistry.get("registers.company_locks.acquired").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum());
+    }
+
+    @Test
+    @DisplayName("Test a write for another company is not held up")
+    void otherCompany() throws Exception {
+        CompanyLocks locks = new CompanyLocks(true, 1024, 10_000, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ServiceStatus> held = CompletableFuture.supplyAsync(() -> locks.withLock("00000001", () -> {
+            holding.countDown();
+            await(release);
+            return ServiceStatus.SUCCESS;
+        }));
+        holding.await(5, TimeUnit.SECONDS);
+
+        ServiceStatus other = locks.withLock(otherStripeThan("00000001"), () -> ServiceStatus.SUCCESS);
+
+        assertEquals(ServiceStatus.SUCCESS, other);
+        release.countDown();
+        assertEquals(ServiceStatus.SUCCESS, held.join());
+        assertEquals(0, meterRegistry.counter("registers.company_locks.acquired", "contended", "true").count());
+    }
+
+    @Test
+    @DisplayName("Test a write that cannot get its company's lock in time returns SERVER_ERROR without running")
+    void timeout() throws Exception {
+        CompanyLocks locks = new CompanyLocks(true, 16, 20, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ServiceStatus> held = CompletableFuture.supplyAsync(() -> locks.withLock("12345678", () -> {
+            holding.countDown();
+            await(release);
+            return ServiceStatus.SUCCESS;
+        }));
+        holding.await(5, TimeUnit.SECONDS);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        ServiceStatus status = locks.withLock("12345678", () -> {
+            ran.set(true);
+            return ServiceStatus.SUCCESS;
+        });
+
+        assertEquals(ServiceStatus.SERVER_ERROR, status);
+        assertFalse(ran.get());
+        assertEquals(1, meterRegistry.counter("registers.company_locks.timeouts").count());
+        release.countDown();
+        held.join();
+    }
+
+    private static String otherStripeThan(String companyNumber) {
+        // company numbers can share a stripe, so pick one that does not, using the same stripe count
+        StripedLock stripes = new StripedLock(1024);
+        for (int i = 2; ; i++) {
+            String candidate = "%08d".formatted(i);
+            if (stripes.get(candidate) != stripes.get(companyNumber)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
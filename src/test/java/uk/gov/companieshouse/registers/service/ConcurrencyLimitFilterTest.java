@@ -0,0 +1,127 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.gov.companieshouse.registers.service.ConcurrencyLimitFilter.EndpointClass;
+import uk.gov.companieshouse.registers.util.OverloadSignal;
+
+class ConcurrencyLimitFilterTest {
+
+    private static final String URI = "/company/12345678/registers";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test requests are classified as reads and writes, and other paths are not limited")
+    void classify() {
+        assertEquals(EndpointClass.READ, ConcurrencyLimitFilter.classify(new MockHttpServletRequest("GET", URI)));
+        assertEquals(EndpointClass.WRITE, ConcurrencyLimitFilter.classify(new MockHttpServletRequest("PUT", URI)));
+        assertEquals(EndpointClass.WRITE,
+                ConcurrencyLimitFilter.classify(new MockHttpServletRequest("DELETE", URI)));
+        assertNull(ConcurrencyLimitFilter.classify(new MockHttpServletRequest("GET", "/healthcheck")));
+        assertNull(ConcurrencyLimitFilter.classify(new MockHttpServletRequest("POST", "/reemit")));
+    }
+
+    @Test
+    @DisplayName("Test a GET over the read limit is rejected with 429 and Retry-After, leaving writes alone")
+    void rejectsRead() throws Exception {
+        ConcurrencyLimitFilter filter = filter(true);
+        filter.getLimit(EndpointClass.READ).tryAcquire();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockHttpServletResponse write = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", URI), rejected, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("PUT", URI), write, new MockFilterChain());
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, write.getStatus());
+        assertEquals(1, meterRegistry.counter("registers.concurrency_limit.rejected", "endpoint", "read").count());
+    }
+
+    @Test
+    @DisplayName("Test a PUT over the write limit is rejected with 503")
+    void rejectsWrite() throws Exception {
+        ConcurrencyLimitFilter filter = filter(true);
+        filter.getLimit(EndpointClass.WRITE).tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", URI), response, new MockFilterChain());
+
+        assertEquals(503, response.getStatus());
+        assertTrue(response.containsHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    @DisplayName("Test an asynchronous write holds its place until the response is complete")
+    void asyncWrite() throws Exception {
+        ConcurrencyLimitFilter filter = filter(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", URI);
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> req.startAsync(req, res));
+
+        assertEquals(1, filter.getLimit(EndpointClass.WRITE).getInFlight());
+        AsyncContext asyncContext = request.getAsyncContext();
+        asyncContext.complete();
+        assertEquals(0, filter.getLimit(EndpointClass.WRITE).getInFlight());
+    }
+
+    @Test
+    @DisplayName("Test a 503 passed on from a dependency releases its place without cutting the limit")
+    void downstreamRejection() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 10, 1, 20, 1.5, 0.2, 600, meterRegistry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", URI), response,
+                (req, res) -> ((HttpServletResponse) res).setStatus(503));
+
+        assertEquals(503, response.getStatus());
+        assertEquals(10, filter.getLimit(EndpointClass.WRITE).getLimit());
+        assertEquals(0, filter.getLimit(EndpointClass.WRITE).getInFlight());
+    }
+
+    @Test
+    @DisplayName("Test a request that timed out or hit a MongoDB failure cuts the limit")
+    void overload() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 10, 1, 20, 1.5, 0.2, 600, meterRegistry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", URI), response, (req, res) -> {
+            OverloadSignal.raiseCurrent();
+            ((HttpServletResponse) res).setStatus(503);
+        });
+
+        assertEquals(9, filter.getLimit(EndpointClass.WRITE).getLimit());
+        assertEquals(0, filter.getLimit(EndpointClass.WRITE).getInFlight());
+        assertTrue(OverloadSignal.current().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test nothing is limited when disabled")
+    void disabled() throws Exception {
+        ConcurrencyLimitFilter filter = filter(false);
+        filter.getLimit(EndpointClass.READ).tryAcquire();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", URI), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    private ConcurrencyLimitFilter filter(boolean enabled) {
+        return new ConcurrencyLimitFilter(enabled, 1, 1, 10, 1.5, 0.2, 600, meterRegistry);
+    }
+}
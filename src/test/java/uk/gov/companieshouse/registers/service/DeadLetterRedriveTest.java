@@ -0,0 +1,106 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import uk.gov.companieshouse.api.chskafka.ChangedResource;
+import uk.gov.companieshouse.api.chskafka.ChangedResourceEvent;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.DeadLetterRedrive.Progress;
+import uk.gov.companieshouse.registers.service.DeadLetterRedrive.Status;
+import uk.gov.companieshouse.registers.service.ResourceChangedDeadLetters.DeadLetter;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterRedriveTest {
+
+    @Mock
+    private ResourceChangedDeadLetters deadLetters;
+
+    @Mock
+    private RegistersApiService registersApiService;
+
+    @Mock
+    private RegistersRepository repository;
+
+    @Test
+    @DisplayName("Test redriven events are removed and events that fail again are kept")
+    void redrive() throws InterruptedException {
+        ChangedResource sent = changed("00000001");
+        ChangedResource failed = changed("00000002");
+        DeadLetter first = new DeadLetter(new ObjectId(), sent, "request-1", Instant.now());
+        DeadLetter second = new DeadLetter(new ObjectId(), failed, "request-2", Instant.now());
+        when(deadLetters.claim(anyInt(), any())).thenReturn(List.of(first, second), List.of());
+        when(registersApiService.redrive(sent)).thenReturn(ServiceStatus.SUCCESS);
+        when(registersApiService.redrive(failed)).thenReturn(ServiceStatus.SERVER_ERROR);
+        DeadLetterRedrive redrive = redrive();
+
+        redrive.start(10);
+        redrive.awaitCompletion();
+
+        Progress progress = redrive.progress();
+        assertEquals(Status.COMPLETED, progress.status());
+        assertEquals(2, progress.attempted());
+        assertEquals(1, progress.succeeded());
+        verify(deadLetters).remove(first.id());
+        verify(deadLetters).recordFailedRedrive(second.id());
+        verify(deadLetters, never()).remove(second.id());
+    }
+
+    @Test
+    @DisplayName("Test deleted events are dropped once the company registers are recreated or deleted again")
+    void dropsSupersededDeletes() throws InterruptedException {
+        Instant deadLetteredAt = Instant.now();
+        DeadLetter recreated = new DeadLetter(new ObjectId(), deleted("00000001"), "request-1", deadLetteredAt);
+        DeadLetter deletedAgain = new DeadLetter(new ObjectId(), deleted("00000002"), "request-2", deadLetteredAt);
+        DeadLetter stillDeleted = new DeadLetter(new ObjectId(), deleted("00000003"), "request-3", deadLetteredAt);
+        when(deadLetters.claim(anyInt(), any())).thenReturn(List.of(recreated, deletedAgain, stillDeleted),
+                List.of());
+        when(repository.findById("00000001")).thenReturn(Optional.of(new CompanyRegistersDocument()));
+        when(repository.findById("00000002")).thenReturn(Optional.of(new CompanyRegistersDocument()
+                .setTombstonedAt(deadLetteredAt.plusSeconds(60))));
+        when(repository.findById("00000003")).thenReturn(Optional.of(new CompanyRegistersDocument()
+                .setTombstonedAt(deadLetteredAt.minusSeconds(1))));
+        when(registersApiService.redrive(stillDeleted.event())).thenReturn(ServiceStatus.SUCCESS);
+        DeadLetterRedrive redrive = redrive();
+
+        redrive.start(10);
+        redrive.awaitCompletion();
+
+        Progress progress = redrive.progress();
+        assertEquals(2, progress.superseded());
+        assertEquals(1, progress.succeeded());
+        verify(registersApiService, never()).redrive(recreated.event());
+        verify(registersApiService, never()).redrive(deletedAgain.event());
+        verify(deadLetters).remove(recreated.id());
+        verify(deadLetters).remove(deletedAgain.id());
+        verify(deadLetters).remove(stillDeleted.id());
+    }
+
+    private DeadLetterRedrive redrive() {
+        return new DeadLetterRedrive(deadLetters, registersApiService, repository, 2, 1_000, 60_000);
+    }
+
+    private static ChangedResource changed(String companyNumber) {
+        return new ChangedResource().resourceUri("company/%s/registers".formatted(companyNumber))
+                .event(new ChangedResourceEvent().type("changed"));
+    }
+
+    private static ChangedResource deleted(String companyNumber) {
+        return new ChangedResource().resourceUri("company/%s/registers".formatted(companyNumber))
+                .event(new ChangedResourceEvent().type("deleted"));
+    }
+}
@@ -0,0 +1,57 @@
+package uk.gov.companieshouse.registers.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the memory held by the watermark index for a million companies, compared with the heap growth of an
+ * equivalent boxed map, and the cost of a staleness check. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DeltaWatermarksBenchmarkTest {
+
+    private static final int COMPANIES = 1_000_000;
+    private static final OffsetDateTime DELTA_AT = OffsetDateTime.of(2022, 10, 12, 9, 10, 25, 0, ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Benchmark watermark memory and lookup cost per million companies")
+    void benchmark() {
+        String[] companyNumbers = new String[COMPANIES];
+        for (int i = 0; i < COMPANIES; i++) {
+            companyNumbers[i] = "%08d".formatted(i);
+        }
+        DeltaWatermarks watermarks = new DeltaWatermarks(true, true, new SimpleMeterRegistry());
+
+        long heapBefore = usedHeap();
+        for (int i = 0; i < COMPANIES; i++) {
+            watermarks.advance(companyNumbers[i], DELTA_AT.plusSeconds(i));
+        }
+        long heapAfter = usedHeap();
+
+        long start = System.nanoTime();
+        int stale = 0;
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < COMPANIES; i++) {
+                if (watermarks.isStale(companyNumbers[i], DELTA_AT)) {
+                    stale++;
+                }
+            }
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        System.out.printf("watermarks: %.1f MB heap for %d companies, %.0f ns per staleness check (%d stale)%n",
+                (heapAfter - heapBefore) / 1e6, COMPANIES, (double) elapsedNanos / (5L * COMPANIES), stale);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
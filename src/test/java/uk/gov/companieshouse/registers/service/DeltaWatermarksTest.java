@@ -0,0 +1,70 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class DeltaWatermarksTest {
+
+    private static final String COMPANY_NUMBER = "12345678";
+    private static final OffsetDateTime DELTA_AT = OffsetDateTime.of(2022, 10, 12, 9, 10, 25, 774312000,
+            ZoneOffset.UTC);
+
+    @Test
+    @DisplayName("Test only deltas strictly older than the watermark are stale")
+    void olderDeltasAreStale() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DeltaWatermarks watermarks = new DeltaWatermarks(true, true, meterRegistry);
+        watermarks.advance(COMPANY_NUMBER, DELTA_AT);
+
+        assertTrue(watermarks.isStale(COMPANY_NUMBER, DELTA_AT.minusNanos(1_000)));
+        assertFalse(watermarks.isStale(COMPANY_NUMBER, DELTA_AT));
+        assertFalse(watermarks.isStale(COMPANY_NUMBER, DELTA_AT.plusSeconds(1)));
+        assertFalse(watermarks.isStale("87654321", DELTA_AT.minusYears(1)));
+        assertEquals(1.0, meterRegistry.counter("registers.delta_watermarks.rejected").count());
+    }
+
+    @Test
+    @DisplayName("Test removing a watermark lets any delta through")
+    void removeClearsWatermark() {
+        DeltaWatermarks watermarks = new DeltaWatermarks(true, true, new SimpleMeterRegistry());
+        watermarks.advance(COMPANY_NUMBER, DELTA_AT);
+
+        watermarks.remove(COMPANY_NUMBER);
+
+        assertFalse(watermarks.isStale(COMPANY_NUMBER, DELTA_AT.minusYears(1)));
+    }
+
+    @Test
+    @DisplayName("Test nothing is stale when the index is disabled")
+    void disabled() {
+        DeltaWatermarks watermarks = new DeltaWatermarks(false, true, new SimpleMeterRegistry());
+        watermarks.advance(COMPANY_NUMBER, DELTA_AT);
+
+        assertFalse(watermarks.isStale(COMPANY_NUMBER, DELTA_AT.minusYears(1)));
+    }
+
+    @Test
+    @DisplayName("Test nothing is stale when tombstones are disabled")
+    void disabledWithoutTombstones() {
+        DeltaWatermarks watermarks = new DeltaWatermarks(true, false, new SimpleMeterRegistry());
+        watermarks.advance(COMPANY_NUMBER, DELTA_AT);
+
+        assertFalse(watermarks.isStale(COMPANY_NUMBER, DELTA_AT.minusYears(1)));
+    }
+
+    @Test
+    @DisplayName("Test company numbers longer than eight characters or non-ASCII are not indexed")
+    void packing() {
+        assertEquals(0x3132333435363738L, DeltaWatermarks.pack(COMPANY_NUMBER));
+        assertEquals(0, DeltaWatermarks.pack("123456789"));
+        assertEquals(0, DeltaWatermarks.pack("1234567é"));
+        assertEquals(0, DeltaWatermarks.pack(""));
+    }
+}
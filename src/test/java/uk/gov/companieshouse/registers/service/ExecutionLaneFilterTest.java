@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.gov.companieshouse.registers.service.ConcurrencyLimitFilter.EndpointClass;
+
+class ExecutionLaneFilterTest {
+
+    private static final String URI = "/company/12345678/registers";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Test a full write lane rejects PUTs with 503 while GETs still get through")
+    void fullWriteLane() throws Exception {
+        ExecutionLaneFilter filter = filter(true);
+        filter.getLane(EndpointClass.WRITE).acquire();
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        MockHttpServletResponse read = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", URI), rejected, new MockFilterChain());
+        filter.doFilter(new MockHttpServletRequest("GET", URI), read, new MockFilterChain());
+
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(200, read.getStatus());
+        assertEquals(1, meterRegistry.counter("registers.lanes.rejected", "lane", "write").count());
+        assertEquals(1.0, meterRegistry.get("registers.lanes.saturation").tag("lane", "write").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test a full read lane rejects GETs with 429")
+    void fullReadLane() throws Exception {
+        ExecutionLaneFilter filter = filter(true);
+        filter.getLane(EndpointClass.READ).acquire(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", URI), response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("Test a permit is held while the request runs and released when it completes")
+    void holdsPermit() throws Exception {
+        ExecutionLaneFilter filter = filter(true);
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", URI);
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync(req, res));
+
+        assertEquals(1, meterRegistry.get("registers.lanes.in_use").tag("lane", "write").gauge().value());
+        request.getAsyncContext().complete();
+        assertEquals(0, meterRegistry.get("registers.lanes.in_use").tag("lane", "write").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test nothing is rejected when lanes are disabled")
+    void disabled() throws Exception {
+        ExecutionLaneFilter filter = filter(false);
+        filter.getLane(EndpointClass.READ).acquire(2);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", URI), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+
+    private ExecutionLaneFilter filter(boolean enabled) {
+        return new ExecutionLaneFilter(enabled, 2, 1, 0, meterRegistry);
+    }
+}
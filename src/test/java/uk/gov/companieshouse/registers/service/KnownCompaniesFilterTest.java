@@ -0,0 +1,172 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class KnownCompaniesFilterTest {
+
+    private static final String COLLECTION = "company_registers";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private FindIterable<Document> findIterable;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Test nothing is reported absent and MongoDB is not read when the filter is disabled")
+    void disabled() {
+        KnownCompaniesFilter filter = filter(false);
+
+        filter.rebuild();
+        filter.refresh();
+
+        assertFalse(filter.isDefinitelyAbsent("00000001"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Test nothing is reported absent before the first rebuild")
+    void absentBeforeFirstRebuild() {
+        KnownCompaniesFilter filter = filter(true);
+
+        filter.refresh();
+
+        assertFalse(filter.isDefinitelyAbsent("00000001"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Test a rebuild loads every id and indexes updated.at for the refresh")
+    void rebuild() {
+        stubScans(new String[] {"00000001", "00000002"});
+        KnownCompaniesFilter filter = filter(true);
+
+        filter.rebuild();
+
+        assertFalse(filter.isDefinitelyAbsent("00000001"));
+        assertFalse(filter.isDefinitelyAbsent("00000002"));
+        assertTrue(filter.isDefinitelyAbsent("00000003"));
+        assertEquals(1.0, meterRegistry.counter("registers.known_companies.short_circuited").count());
+        verify(collection).find(Filters.empty());
+        ArgumentCaptor<Bson> index = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).createIndex(index.capture());
+        assertEquals(BsonDocument.parse("{'updated.at': 1}"), index.getValue().toBsonDocument());
+    }
+
+    @Test
+    @DisplayName("Test a refresh adds ids updated since the last scan, overlapping the window")
+    void refresh() {
+        stubScans(new String[] {"00000001"}, new String[] {"00000002"});
+        KnownCompaniesFilter filter = filter(true);
+        Instant beforeRebuild = Instant.now();
+        filter.rebuild();
+        assertTrue(filter.isDefinitelyAbsent("00000002"));
+
+        filter.refresh();
+
+        assertFalse(filter.isDefinitelyAbsent("00000002"));
+        ArgumentCaptor<Bson> query = ArgumentCaptor.forClass(Bson.class);
+        verify(collection, times(2)).find(query.capture());
+        BsonDocument window = query.getAllValues().get(1).toBsonDocument().getDocument("updated.at");
+        long since = window.getDateTime("$gte").getValue();
+        assertTrue(since <= beforeRebuild.minusMillis(60_000).toEpochMilli() + 1_000);
+        assertTrue(since >= beforeRebuild.minusMillis(60_000).toEpochMilli());
+    }
+
+    @Test
+    @DisplayName("Test a company added while a rebuild is scanning is in the rebuilt filter")
+    void addDuringRebuild() {
+        KnownCompaniesFilter filter = filter(true);
+        MongoCursor<Document> scan = cursor("00000001");
+        when(mongoTemplate.getCollection(COLLECTION)).thenReturn(collection);
+        when(collection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any())).thenReturn(findIterable);
+        when(findIterable.iterator()).thenAnswer(invocation -> {
+            filter.add("00000009");
+            return scan;
+        });
+
+        filter.rebuild();
+
+        assertFalse(filter.isDefinitelyAbsent("00000009"));
+        assertFalse(filter.isDefinitelyAbsent("00000001"));
+    }
+
+    @Test
+    @DisplayName("Test false positives are only counted once the filter is built")
+    void recordFalsePositive() {
+        stubScans(new String[] {"00000001"});
+        KnownCompaniesFilter filter = filter(true);
+        filter.recordFalsePositive();
+
+        filter.rebuild();
+        filter.recordFalsePositive();
+
+        assertEquals(1.0, meterRegistry.counter("registers.known_companies.false_positives").count());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubScans(String[]... scans) {
+        when(mongoTemplate.getCollection(COLLECTION)).thenReturn(collection);
+        when(collection.find(any(Bson.class))).thenReturn(findIterable);
+        when(findIterable.projection(any())).thenReturn(findIterable);
+        MongoCursor<Document>[] cursors = Arrays.stream(scans)
+                .map(KnownCompaniesFilterTest::cursor)
+                .toArray(MongoCursor[]::new);
+        when(findIterable.iterator()).thenReturn(cursors[0], Arrays.copyOfRange(cursors, 1, cursors.length));
+    }
+
+    private KnownCompaniesFilter filter(boolean enabled) {
+        return new KnownCompaniesFilter(enabled, 1_000, 0.001, 60_000, mongoTemplate, meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCursor<Document> cursor(String... ids) {
+        Iterator<Document> documents = Arrays.stream(ids).map(id -> new Document("_id", id)).iterator();
+        MongoCursor<Document> cursor = mock(MongoCursor.class, withSettings().strictness(Strictness.LENIENT));
+        when(cursor.hasNext()).thenAnswer(invocation -> documents.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> documents.next());
+        return cursor;
+    }
+}
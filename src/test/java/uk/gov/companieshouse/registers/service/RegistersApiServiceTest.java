@@ -2,18 +2,22 @@ package uk.gov.companieshouse.registers.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpResponseException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.http.HttpTimeoutException;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.gov.companieshouse.api.InternalApiClient;
 import uk.gov.companieshouse.api.chskafka.ChangedResource;
@@ -24,6 +28,8 @@ import uk.gov.companieshouse.api.http.HttpClient;
 import uk.gov.companieshouse.api.model.ApiResponse;
 import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
 import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.CircuitBreaker;
+import uk.gov.companieshouse.registers.util.PooledApiClient;
 import uk.gov.companieshouse.registers.util.ResourceChangedRequestMapper;
 
 @ExtendWith(MockitoExtension.class)
@@ -59,6 +65,19 @@ class RegistersApiServiceTest {
     @Mock
     private ChangedResource changedResource;
 
+    @Mock
+    private PooledApiClient pooledApiClient;
+
+    @Mock
+    private ResourceChangedDeadLetters deadLetters;
+
+    @Mock
+    private RequestDeadlines deadlines;
+
+    @Spy
+    private ChsKafkaApiGuard guard = new ChsKafkaApiGuard(true, 4, 2, 0.5, 60_000, 1, 2, 10, 1, 1, 1, 1_000,
+            new SimpleMeterRegistry());
+
     @InjectMocks
     private RegistersApiService registersApiService;
 
@@ -82,6 +101,99 @@ class RegistersApiServiceTest {
         verify(changedResourcePost).execute();
     }
 
+    @Test
+    @DisplayName("Test should post through the pooled client when it is enabled")
+    void invokeChsKafkaApiPooled() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(eq("/private/resource-changed"), eq(changedResource), any())).thenReturn(200);
+
+        ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(resourceChangedRequest);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(apiClientService, times(0)).getInternalApiClient();
+    }
+
+    @Test
+    @DisplayName("Test should return server error when the pooled client gets a non 2xx response or times out")
+    void invokeChsKafkaApiPooledFailure() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(any(), any(), any()))
+                .thenReturn(503)
+                .thenThrow(new HttpTimeoutException("request timed out"));
+
+        assertEquals(ServiceStatus.SERVER_ERROR, registersApiService.invokeChsKafkaApi(resourceChangedRequest));
+        assertEquals(ServiceStatus.SERVER_ERROR, registersApiService.invokeChsKafkaApi(resourceChangedRequest));
+    }
+
+    @Test
+    @DisplayName("Test should fail fast without calling chs-kafka-api once the circuit breaker has opened")
+    void invokeChsKafkaApiCircuitOpen() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(any(), any(), any())).thenReturn(503);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(ServiceStatus.SERVER_ERROR, registersApiService.invokeChsKafkaApi(resourceChangedRequest));
+        }
+        assertEquals(ServiceStatus.CIRCUIT_OPEN, registersApiService.invokeChsKafkaApi(resourceChangedRequest));
+
+        // the breaker opens after the minimum of two failed calls, so the third is never made
+        verify(pooledApiClient, times(2)).post(any(), any(), any());
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+    }
+
+    @Test
+    @DisplayName("Test should report a 4xx as a server error without opening the circuit breaker")
+    void invokeChsKafkaApiClientError() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(any(), any(), any())).thenReturn(400);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ServiceStatus.SERVER_ERROR, registersApiService.invokeChsKafkaApi(resourceChangedRequest));
+        }
+
+        verify(pooledApiClient, times(3)).post(any(), any(), any());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    @DisplayName("Test should dead-letter an event that still fails and report success")
+    void invokeChsKafkaApiDeadLettered() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(any(), any(), any())).thenReturn(500);
+        when(deadLetters.isEnabled()).thenReturn(true);
+        when(deadLetters.add(changedResource)).thenReturn(true);
+
+        ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(resourceChangedRequest);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(deadLetters).add(changedResource);
+    }
+
+    @Test
+    @DisplayName("Test should report the failure when the event cannot be dead-lettered")
+    void invokeChsKafkaApiDeadLetterFails() throws Exception {
+        when(mapper.mapChangedResource(resourceChangedRequest)).thenReturn(changedResource);
+        when(apiClientService.isPooledClientEnabled()).thenReturn(true);
+        when(apiClientService.getPooledApiClient()).thenReturn(pooledApiClient);
+        when(pooledApiClient.post(any(), any(), any())).thenReturn(500);
+        when(deadLetters.isEnabled()).thenReturn(true);
+        when(deadLetters.add(changedResource)).thenReturn(false);
+
+        ServiceStatus serviceStatus = registersApiService.invokeChsKafkaApi(resourceChangedRequest);
+
+        assertEquals(ServiceStatus.SERVER_ERROR, serviceStatus);
+    }
+
     @Test
     @DisplayName("Test should handle a service unavailable exception when response code is HTTP 503")
     void invokeChsKafkaApi503() throws ApiErrorResponseException {
@@ -0,0 +1,64 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static uk.gov.companieshouse.api.registers.RegisterListDirectors.RegisterTypeEnum.DIRECTORS;
+import static uk.gov.companieshouse.api.registers.RegisteredItems.RegisterMovedToEnum.PUBLIC_REGISTER;
+import static uk.gov.companieshouse.api.registers.RegisteredItems.RegisterMovedToEnum.UNSPECIFIED_LOCATION;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.api.registers.RegisterListDirectors;
+import uk.gov.companieshouse.api.registers.RegisteredItems;
+import uk.gov.companieshouse.api.registers.Registers;
+
+class RegistersContentHashTest {
+
+    private static final LocalDate DATE = LocalDate.of(2022, 11, 3);
+
+    private final RegistersContentHash contentHash = new RegistersContentHash(true, true,
+            new ObjectMapper().registerModule(new JavaTimeModule()), new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Test equal registers hash the same, as a 40 character hex etag")
+    void equalRegistersHashTheSame() {
+        String hash = contentHash.hash(directors(UNSPECIFIED_LOCATION));
+
+        assertEquals(hash, contentHash.hash(directors(UNSPECIFIED_LOCATION)));
+        assertEquals(40, hash.length());
+        assertEquals(hash, hash.toLowerCase());
+    }
+
+    @Test
+    @DisplayName("Test different registers hash differently")
+    void differentRegistersHashDifferently() {
+        assertNotEquals(contentHash.hash(directors(UNSPECIFIED_LOCATION)),
+                contentHash.hash(directors(PUBLIC_REGISTER)));
+    }
+
+    @Test
+    @DisplayName("Test no-op deltas are counted by outcome")
+    void recordNoOp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RegistersContentHash hash = new RegistersContentHash(true, true, new ObjectMapper(), meterRegistry);
+
+        hash.recordNoOp(false);
+        hash.recordNoOp(false);
+        hash.recordNoOp(true);
+
+        assertEquals(2.0, meterRegistry.counter("registers.upsert.no_op_deltas", "outcome", "skipped").count());
+        assertEquals(1.0, meterRegistry.counter("registers.upsert.no_op_deltas", "outcome", "republished").count());
+    }
+
+    private static Registers directors(RegisteredItems.RegisterMovedToEnum movedTo) {
+        List<RegisteredItems> items = new ArrayList<>();
+        items.add(new RegisteredItems(DATE, movedTo));
+        return new Registers().directors(new RegisterListDirectors(DIRECTORS, items));
+    }
+}
@@ -5,17 +5,25 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,18 +31,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.TransactionSystemException;
 import uk.gov.companieshouse.api.registers.CompanyRegister;
 import uk.gov.companieshouse.api.registers.InternalData;
 import uk.gov.companieshouse.api.registers.InternalRegisters;
 import uk.gov.companieshouse.api.registers.Registers;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
 import uk.gov.companieshouse.registers.exception.ServiceUnavailableException;
 import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
 import uk.gov.companieshouse.registers.model.Created;
 import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
 import uk.gov.companieshouse.registers.model.ServiceStatus;
 import uk.gov.companieshouse.registers.model.Updated;
+import uk.gov.companieshouse.registers.service.RequestDeadlines.Phase;
 import uk.gov.companieshouse.registers.util.RegistersMapper;
+import uk.gov.companieshouse.registers.util.SingleFlight;
 
 @ExtendWith(MockitoExtension.class)
 class RegistersServiceImplTest {
@@ -50,6 +64,36 @@ class RegistersServiceImplTest {
     @Mock
     private RegistersApiService registersApiService;
 
+    @Mock
+    private KnownCompaniesFilter knownCompaniesFilter;
+
+    @Mock
+    private BatchingRegistersLoader batchingLoader;
+
+    @Mock
+    private DeltaWatermarks deltaWatermarks;
+
+    @Mock
+    private ResourceChangedOutbox outbox;
+
+    @Mock
+    private RegistersContentHash contentHash;
+
+    @Mock
+    private Tombstones tombstones;
+
+    @Mock
+    private MongoReadLane readLane;
+
+    @Mock
+    private RequestDeadlines deadlines;
+
+    @Mock
+    private CompanyLocks companyLocks;
+
+    @Spy
+    private SingleFlight<String, Optional<CompanyRegistersDocument>> singleFlight = new SingleFlight<>();
+
     @InjectMocks
     private RegistersServiceImpl service;
 
@@ -88,6 +132,89 @@ class RegistersServiceImplTest {
         assertNotNull(document.getCreated().getAt());
         verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, null, false));
         verify(repository).save(document);
+        verify(knownCompaniesFilter).add(COMPANY_NUMBER);
+        verify(deltaWatermarks).advance(COMPANY_NUMBER, requestBody.getInternalData().getDeltaAt());
+    }
+
+    @Test
+    @DisplayName("Test upsert runs under the company's lock when enabled")
+    void insertCompanyRegistersUnderCompanyLock() {
+        when(companyLocks.isEnabled()).thenReturn(true);
+        // the lock could not be had in time
+        when(companyLocks.withLock(eq(COMPANY_NUMBER), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SERVER_ERROR, serviceStatus);
+        verifyNoInteractions(repository, registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test upsert calls chs kafka api only after releasing the company's lock")
+    void insertCompanyRegistersPublishesAfterCompanyLock() {
+        when(companyLocks.isEnabled()).thenReturn(true);
+        when(companyLocks.withLock(eq(COMPANY_NUMBER), any(), any())).thenAnswer(invocation -> {
+            Object written = invocation.getArgument(1, Supplier.class).get();
+            verify(repository).save(document);
+            verifyNoInteractions(registersApiService);
+            return written;
+        });
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(mapper.map(COMPANY_NUMBER, null, requestBody)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, null, false));
+    }
+
+    @Test
+    @DisplayName("Test upsert is abandoned before calling chs kafka api once the deadline has passed")
+    void insertCompanyRegistersDeadlineExceeded() {
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(mapper.map(COMPANY_NUMBER, null, requestBody)).thenReturn(document);
+        doThrow(new DeadlineExceededException("deadline passed")).when(deadlines).check(Phase.RESOURCE_CHANGED);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SERVER_ERROR, serviceStatus);
+        verify(repository).save(document);
+        verifyNoInteractions(registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test upsert writes the document and its event through the outbox without calling chs kafka api")
+    void insertCompanyRegistersThroughOutbox() {
+        when(outbox.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(outbox).writeWithEvent(any(), any());
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(mapper.map(COMPANY_NUMBER, null, requestBody)).thenReturn(document);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(repository).save(document);
+        verify(outbox).writeWithEvent(any(), eq(new ResourceChangedRequest(COMPANY_NUMBER, null, false)));
+        verifyNoInteractions(registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test upsert returns server error when the outbox transaction fails")
+    void insertCompanyRegistersOutboxTransactionFails() {
+        when(outbox.isEnabled()).thenReturn(true);
+        doThrow(new TransactionSystemException("commit failed")).when(outbox).writeWithEvent(any(), any());
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.empty());
+        when(mapper.map(COMPANY_NUMBER, null, requestBody)).thenReturn(document);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SERVER_ERROR, serviceStatus);
+        verifyNoInteractions(registersApiService, knownCompaniesFilter);
     }
 
     @Test
@@ -106,6 +233,85 @@ class RegistersServiceImplTest {
         verify(repository).save(document);
     }
 
+    @Test
+    @DisplayName("Test update passes the changed register sections to chs kafka api")
+    void updateCompanyRegistersWithChangedSections() {
+        existingDocument.setCreated(new Created().setAt(LocalDateTime.of(2022, 11, 2, 15, 55)));
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(existingDocument));
+        when(mapper.changedSections(existingDocument, requestBody.getExternalData()))
+                .thenReturn(List.of("directors", "members"));
+        when(mapper.map(COMPANY_NUMBER, existingDocument, requestBody)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, null, false,
+                List.of("directors", "members")));
+    }
+
+    @Test
+    @DisplayName("Test update with changed content is saved with its content hash as the etag")
+    void updateCompanyRegistersWithContentHash() {
+        existingDocument.setContentHash("old-hash");
+        document.setData(new CompanyRegister().registers(new Registers()));
+        when(contentHash.isEnabled()).thenReturn(true);
+        when(contentHash.hash(document.getData().getRegisters())).thenReturn("new-hash");
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(existingDocument));
+        when(mapper.map(COMPANY_NUMBER, existingDocument, requestBody)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        assertEquals("new-hash", document.getData().getEtag());
+        assertEquals("new-hash", document.getContentHash());
+        verify(repository).save(document);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, null, false));
+    }
+
+    @Test
+    @DisplayName("Test newer delta with unchanged content only advances delta_at and publishes nothing")
+    void unchangedContentOnlyAdvancesDeltaAt() {
+        existingDocument.setContentHash("same-hash");
+        document.setData(new CompanyRegister().registers(new Registers()));
+        when(contentHash.isEnabled()).thenReturn(true);
+        when(contentHash.hash(document.getData().getRegisters())).thenReturn("same-hash");
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(existingDocument));
+        when(mapper.map(COMPANY_NUMBER, existingDocument, requestBody)).thenReturn(document);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(repository).updateDeltaAt(COMPANY_NUMBER, document.getDeltaAt());
+        verify(deltaWatermarks).advance(COMPANY_NUMBER, requestBody.getInternalData().getDeltaAt());
+        verify(contentHash).recordNoOp(false);
+        verify(repository, never()).save(any());
+        verifyNoInteractions(registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test retried delta with unchanged content republishes without rewriting the document")
+    void unchangedContentRetryRepublishes() {
+        existingDocument.setContentHash("same-hash");
+        document.setData(new CompanyRegister().registers(new Registers()));
+        document.setDeltaAt(existingDocument.getDeltaAt());
+        when(contentHash.isEnabled()).thenReturn(true);
+        when(contentHash.isRepublishRetries()).thenReturn(true);
+        when(contentHash.hash(document.getData().getRegisters())).thenReturn("same-hash");
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(existingDocument));
+        when(mapper.map(COMPANY_NUMBER, existingDocument, requestBody)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, null, false));
+        verify(contentHash).recordNoOp(true);
+        verify(repository, never()).save(any());
+        verify(repository, never()).updateDeltaAt(any(), any());
+    }
+
     @Test
     @DisplayName("Test should not update registers record from out of date delta")
     void outOfDateDelta() {
@@ -116,6 +322,51 @@ class RegistersServiceImplTest {
         assertEquals(ServiceStatus.CLIENT_ERROR, serviceStatus);
         verifyNoInteractions(registersApiService);
         verifyNoMoreInteractions(repository);
+        verify(deltaWatermarks).advance(COMPANY_NUMBER, OffsetDateTime.of(2022, 10, 12, 9, 10, 25, 774312000,
+                ZoneOffset.UTC));
+    }
+
+    @Test
+    @DisplayName("Test should not recreate deleted registers from a delta no newer than the delete")
+    void deltaNotAfterTombstone() {
+        existingDocument.setTombstonedAt(Instant.now());
+        requestBody.getInternalData().setDeltaAt(OffsetDateTime.of(2022, 10, 12, 9, 10, 25, 774312000,
+                ZoneOffset.UTC));
+        when(repository.findById(any())).thenReturn(Optional.of(existingDocument));
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.CLIENT_ERROR, serviceStatus);
+        verifyNoInteractions(registersApiService, mapper);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test delta after the delete recreates deleted registers without merging into the tombstone")
+    void deltaAfterTombstone() {
+        existingDocument.setTombstonedAt(Instant.now());
+        existingDocument.setData(null);
+        when(repository.findById(COMPANY_NUMBER)).thenReturn(Optional.of(existingDocument));
+        when(mapper.map(COMPANY_NUMBER, null, requestBody)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.SUCCESS, serviceStatus);
+        assertEquals(document.getUpdated().at(), document.getCreated().getAt());
+        verify(mapper).changedSections(null, requestBody.getExternalData());
+        verify(repository).save(document);
+    }
+
+    @Test
+    @DisplayName("Test should reject a delta older than the watermark without reading MongoDB")
+    void staleDeltaRejectedByWatermark() {
+        when(deltaWatermarks.isStale(COMPANY_NUMBER, requestBody.getInternalData().getDeltaAt())).thenReturn(true);
+
+        ServiceStatus serviceStatus = service.upsertCompanyRegisters(COMPANY_NUMBER, requestBody);
+
+        assertEquals(ServiceStatus.CLIENT_ERROR, serviceStatus);
+        verifyNoInteractions(repository, registersApiService);
     }
 
     @Test
@@ -208,6 +459,17 @@ class RegistersServiceImplTest {
         verify(repository).findById(COMPANY_NUMBER);
     }
 
+    @Test
+    @DisplayName("Test call to get deleted company registers returns not found")
+    void getCompanyRegistersTombstone() {
+        existingDocument.setTombstonedAt(Instant.now());
+        when(repository.findById(any())).thenReturn(Optional.of(existingDocument));
+
+        Optional<CompanyRegistersDocument> actual = service.getCompanyRegisters(COMPANY_NUMBER);
+
+        assertEquals(Optional.empty(), actual);
+    }
+
     @Test
     @DisplayName("Test call to get company registers returns not found")
     void getCompanyRegistersNotFound() {
@@ -217,6 +479,42 @@ class RegistersServiceImplTest {
 
         assertEquals(Optional.empty(), actual);
         verify(repository).findById(COMPANY_NUMBER);
+        verify(knownCompaniesFilter).recordFalsePositive();
+    }
+
+    @Test
+    @DisplayName("Test call to get company registers goes through the batching loader when enabled")
+    void getCompanyRegistersBatched() {
+        when(batchingLoader.isEnabled()).thenReturn(true);
+        when(batchingLoader.load(COMPANY_NUMBER)).thenReturn(Optional.of(document));
+
+        Optional<CompanyRegistersDocument> actual = service.getCompanyRegisters(COMPANY_NUMBER);
+
+        assertEquals(Optional.of(document), actual);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test call to get company registers uses the read lane's connection pool when enabled")
+    void getCompanyRegistersReadLane() {
+        when(readLane.isEnabled()).thenReturn(true);
+        when(readLane.findById(COMPANY_NUMBER)).thenReturn(Optional.of(document));
+
+        Optional<CompanyRegistersDocument> actual = service.getCompanyRegisters(COMPANY_NUMBER);
+
+        assertEquals(Optional.of(document), actual);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test call to get company registers absent from known companies filter skips MongoDB")
+    void getCompanyRegistersDefinitelyAbsent() {
+        when(knownCompaniesFilter.isDefinitelyAbsent(COMPANY_NUMBER)).thenReturn(true);
+
+        Optional<CompanyRegistersDocument> actual = service.getCompanyRegisters(COMPANY_NUMBER);
+
+        assertEquals(Optional.empty(), actual);
+        verifyNoInteractions(repository);
     }
 
     @Test
@@ -236,103 +534,225 @@ class RegistersServiceImplTest {
     void deleteCompanyRegisters() {
         // given
         document.setData(new CompanyRegister());
-        when(repository.findById(any())).thenReturn(Optional.of(document));
+        when(repository.removeById(any())).thenReturn(document);
         when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        // then
+        assertEquals(ServiceStatus.SUCCESS, actual);
+        verify(repository).removeById(COMPANY_NUMBER);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
+        verify(deltaWatermarks).remove(COMPANY_NUMBER);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test delete writes the removal and its event through the outbox without calling chs kafka api")
+    void deleteCompanyRegistersThroughOutbox() {
+        document.setData(new CompanyRegister());
+        when(outbox.isEnabled()).thenReturn(true);
+        ResourceChangedRequest[] event = new ResourceChangedRequest[1];
+        when(outbox.deleteWithEvent(any(), any())).thenAnswer(invocation -> {
+            Object removed = invocation.<Supplier<?>>getArgument(0).get();
+            event[0] = invocation.<Function<Object, ResourceChangedRequest>>getArgument(1).apply(removed);
+            return removed;
+        });
+        when(repository.removeById(COMPANY_NUMBER)).thenReturn(document);
+
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        assertEquals(ServiceStatus.SUCCESS, actual);
+        assertEquals(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true), event[0]);
+        verify(repository).removeById(COMPANY_NUMBER);
+        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test delete through the outbox returns not found when nothing was removed")
+    void deleteCompanyRegistersThroughOutboxNotFound() {
+        when(outbox.isEnabled()).thenReturn(true);
+        when(outbox.deleteWithEvent(any(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        assertEquals(ServiceStatus.CLIENT_ERROR, actual);
+        verify(repository).removeById(COMPANY_NUMBER);
+        verifyNoInteractions(registersApiService, deltaWatermarks);
+    }
+
+    @Test
+    @DisplayName("Test delete leaves a tombstone with the delete's delta_at")
+    void deleteCompanyRegistersLeavesTombstone() {
+        // given
+        document.setData(new CompanyRegister());
+        when(tombstones.isEnabled()).thenReturn(true);
+        when(tombstones.replaceWithTombstone(COMPANY_NUMBER, "20240101120000000000")).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        // when
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, "20240101120000000000");
 
         // then
         assertEquals(ServiceStatus.SUCCESS, actual);
-        verify(repository).findById(COMPANY_NUMBER);
         verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
-        verify(repository).deleteById(COMPANY_NUMBER);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test tombstone is replaced by the deleted document when chs-kafka-api is unavailable")
+    void deleteCompanyRegistersRestoresFromTombstone() {
+        // given
+        document.setData(new CompanyRegister());
+        when(tombstones.isEnabled()).thenReturn(true);
+        when(tombstones.replaceWithTombstone(COMPANY_NUMBER, null)).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SERVER_ERROR);
+
+        // when
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        // then
+        assertEquals(ServiceStatus.SERVER_ERROR, actual);
+        verify(tombstones).restore(document);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test deleted document is restored when the deadline passes before calling chs-kafka-api")
+    void deleteCompanyRegistersDeadlineExceeded() {
+        // given
+        document.setData(new CompanyRegister());
+        when(repository.removeById(COMPANY_NUMBER)).thenReturn(document);
+        doThrow(new DeadlineExceededException("deadline passed")).when(deadlines).check(Phase.RESOURCE_CHANGED);
+
+        // when
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        // then
+        assertEquals(ServiceStatus.SERVER_ERROR, actual);
+        verify(repository).insert(document);
+        verifyNoInteractions(registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test get company registers is abandoned without reading once the deadline has passed")
+    void getCompanyRegistersDeadlineExceeded() {
+        doThrow(new DeadlineExceededException("deadline passed")).when(deadlines).check(Phase.MONGO);
+
+        assertThrows(DeadlineExceededException.class, () -> service.getCompanyRegisters(COMPANY_NUMBER));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Test delete with a malformed delta_at is rejected")
+    void deleteCompanyRegistersBadDeltaAt() {
+        assertThrows(DateTimeParseException.class,
+                () -> service.deleteCompanyRegisters(COMPANY_NUMBER, "2024-01-01"));
+        verifyNoInteractions(repository, tombstones, registersApiService);
     }
 
     @Test
     @DisplayName("Test call to delete company registers when document not found returns client error")
     void deleteCompanyRegistersNotFound() {
         // given
-        when(repository.findById(any())).thenReturn(Optional.empty());
+        when(repository.removeById(any())).thenReturn(null);
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
 
         // then
         assertEquals(ServiceStatus.CLIENT_ERROR, actual);
-        verify(repository).findById(COMPANY_NUMBER);
+        verify(repository).removeById(COMPANY_NUMBER);
         verifyNoInteractions(registersApiService);
         verifyNoMoreInteractions(repository);
     }
 
     @Test
-    @DisplayName("Test call to delete company registers when chs-kafka-api unavailable returns server error")
+    @DisplayName("Test call to delete company registers not in the known companies filter returns client error")
+    void deleteCompanyRegistersDefinitelyAbsent() {
+        // given
+        when(knownCompaniesFilter.isDefinitelyAbsent(COMPANY_NUMBER)).thenReturn(true);
+
+        // when
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
+
+        // then
+        assertEquals(ServiceStatus.CLIENT_ERROR, actual);
+        verifyNoInteractions(repository, registersApiService);
+    }
+
+    @Test
+    @DisplayName("Test call to delete company registers when chs-kafka-api unavailable restores the document and returns server error")
     void deleteCompanyRegistersServerError() {
         // given
         document.setData(new CompanyRegister());
-        when(repository.findById(any())).thenReturn(Optional.of(document));
+        when(repository.removeById(any())).thenReturn(document);
         when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SERVER_ERROR);
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
 
         // then
         assertEquals(ServiceStatus.SERVER_ERROR, actual);
-        verify(repository).findById(COMPANY_NUMBER);
+        verify(repository).removeById(COMPANY_NUMBER);
         verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
+        verify(repository).insert(document);
         verifyNoMoreInteractions(repository);
     }
 
     @Test
-    @DisplayName("Test call to delete company registers, when chs-kafka-api unavailable and throws illegal argument exception, returns server error")
-    void deleteCompanyRegistersServerErrorIllegalArg() {
+    @DisplayName("Test document recreated by a newer delta is not overwritten when chs-kafka-api is unavailable")
+    void deleteCompanyRegistersServerErrorAfterRecreate() {
         // given
         document.setData(new CompanyRegister());
-        when(repository.findById(any())).thenReturn(Optional.of(document));
-        when(registersApiService.invokeChsKafkaApi(any())).thenThrow(IllegalArgumentException.class);
+        when(repository.removeById(any())).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SERVER_ERROR);
+        when(repository.insert(document)).thenThrow(new DuplicateKeyException("recreated"));
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
 
         // then
         assertEquals(ServiceStatus.SERVER_ERROR, actual);
-        verify(repository).findById(COMPANY_NUMBER);
-        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
-        verifyNoMoreInteractions(repository);
+        verify(repository).insert(document);
+        verify(repository, never()).save(any());
     }
 
     @Test
-    @DisplayName("Test call to delete company registers, when MongoDB unavailable and throws data access exception at findById, returns server error")
-    void deleteCompanyRegistersServerErrorDataAccessExceptionFindById() {
+    @DisplayName("Test call to delete company registers, when chs-kafka-api unavailable and throws illegal argument exception, returns server error")
+    void deleteCompanyRegistersServerErrorIllegalArg() {
         // given
-        when(repository.findById(any())).thenThrow(ServiceUnavailableException.class);
+        document.setData(new CompanyRegister());
+        when(repository.removeById(any())).thenReturn(document);
+        when(registersApiService.invokeChsKafkaApi(any())).thenThrow(IllegalArgumentException.class);
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
 
         // then
         assertEquals(ServiceStatus.SERVER_ERROR, actual);
-        verify(repository).findById(COMPANY_NUMBER);
-        verifyNoInteractions(registersApiService);
+        verify(repository).removeById(COMPANY_NUMBER);
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
+        verify(repository).insert(document);
         verifyNoMoreInteractions(repository);
     }
 
     @Test
-    @DisplayName("Test call to delete company registers, when MongoDB unavailable and throws data access exception at deleteById, returns server error")
-    void deleteCompanyRegistersServerErrorDataAccessExceptionDeleteById() {
+    @DisplayName("Test call to delete company registers, when MongoDB unavailable and throws data access exception at removeById, returns server error")
+    void deleteCompanyRegistersServerErrorDataAccessExceptionRemoveById() {
         // given
-        document.setData(new CompanyRegister());
-        when(repository.findById(any())).thenReturn(Optional.of(document));
-        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
-        doThrow(ServiceUnavailableException.class).when(repository).deleteById(any());
+        when(repository.removeById(any())).thenThrow(ServiceUnavailableException.class);
 
         // when
-        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER);
+        ServiceStatus actual = service.deleteCompanyRegisters(COMPANY_NUMBER, null);
 
         // then
         assertEquals(ServiceStatus.SERVER_ERROR, actual);
-        verify(repository).findById(COMPANY_NUMBER);
-        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest(COMPANY_NUMBER, document.getData(), true));
-        verify(repository).deleteById(COMPANY_NUMBER);
+        verify(repository).removeById(COMPANY_NUMBER);
+        verifyNoInteractions(registersApiService);
+        verifyNoMoreInteractions(repository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,88 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import uk.gov.companieshouse.registers.model.CompanyRegistersDocument;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.HotKey;
+import uk.gov.companieshouse.registers.service.HotKeyTracker.Operation;
+
+@ExtendWith(MockitoExtension.class)
+class RegistersWarmUpTest {
+
+    @Mock
+    private RegistersRepository repository;
+
+    @Mock
+    private HotSetStore hotSetStore;
+
+    @Mock
+    private HotKeyTracker hotKeyTracker;
+
+    @Test
+    @DisplayName("Test node is healthy straight away when warm-up is disabled")
+    void disabled() {
+        RegistersWarmUp warmUp = warmUp(false, 1_000);
+
+        warmUp.warmUp();
+        warmUp.persistHotSet();
+
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        verifyNoInteractions(hotSetStore, repository);
+    }
+
+    @Test
+    @DisplayName("Test hot set is prefetched in batches before the node reports healthy")
+    void prefetchesHotSet() {
+        when(hotSetStore.load(500)).thenReturn(List.of("00000001", "00000002", "00000003"));
+        when(repository.findAllById(List.of("00000001", "00000002")))
+                .thenReturn(List.of(new CompanyRegistersDocument(), new CompanyRegistersDocument()));
+        when(repository.findAllById(List.of("00000003"))).thenReturn(List.of(new CompanyRegistersDocument()));
+        RegistersWarmUp warmUp = warmUp(true, 1_000);
+
+        assertEquals(Status.OUT_OF_SERVICE, warmUp.health().getStatus());
+        warmUp.prefetch();
+
+        assertEquals(Status.UP, warmUp.health().getStatus());
+        verify(repository).findAllById(List.of("00000001", "00000002"));
+        verify(repository).findAllById(List.of("00000003"));
+    }
+
+    @Test
+    @DisplayName("Test node reports healthy once the time budget runs out")
+    void timeBudgetExpires() {
+        when(hotSetStore.load(500)).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return List.of();
+        });
+        RegistersWarmUp warmUp = warmUp(true, 50);
+
+        warmUp.prefetch();
+
+        assertEquals(Status.UP, warmUp.health().getStatus());
+    }
+
+    @Test
+    @DisplayName("Test hot GET keys are persisted")
+    void persistsHotSet() {
+        List<HotKey> hotKeys = List.of(new HotKey("00000001", 100, 1.2));
+        when(hotKeyTracker.top(Operation.GET)).thenReturn(hotKeys);
+
+        warmUp(true, 1_000).persistHotSet();
+
+        verify(hotSetStore).save(hotKeys);
+    }
+
+    private RegistersWarmUp warmUp(boolean enabled, long timeBudgetMillis) {
+        return new RegistersWarmUp(repository, hotSetStore, hotKeyTracker, enabled, 500, 2, 2, timeBudgetMillis);
+    }
+}
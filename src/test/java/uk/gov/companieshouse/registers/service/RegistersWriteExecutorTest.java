@@ -0,0 +1,186 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.registers.logging.DataMapHolder;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+class RegistersWriteExecutorTest {
+
+    private RegistersWriteExecutor writeExecutor;
+
+    @AfterEach
+    void tearDown() {
+        writeExecutor.destroy();
+        DataMapHolder.clear();
+        Deadline.clear();
+    }
+
+    @Test
+    @DisplayName("Test writes run on the calling thread when disabled")
+    void disabled() {
+        writeExecutor = writeExecutor(false, 1, 1_000);
+        Thread caller = Thread.currentThread();
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+
+        CompletableFuture<ServiceStatus> result = writeExecutor.submit("12345678", () -> {
+            ranOn.set(Thread.currentThread());
+            return ServiceStatus.SUCCESS;
+        });
+
+        assertEquals(ServiceStatus.SUCCESS, result.join());
+        assertEquals(caller, ranOn.get());
+    }
+
+    @Test
+    @DisplayName("Test writes run on the executor with the caller's request id")
+    void enabled() {
+        writeExecutor = writeExecutor(true, 1, 1_000);
+        DataMapHolder.initialise("request-1");
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        AtomicReference<String> requestId = new AtomicReference<>();
+
+        ServiceStatus status = writeExecutor.submit("12345678", () -> {
+            ranOn.set(Thread.currentThread());
+            requestId.set(DataMapHolder.getRequestId());
+            return ServiceStatus.CLIENT_ERROR;
+        }).join();
+
+        assertEquals(ServiceStatus.CLIENT_ERROR, status);
+        assertNotEquals(Thread.currentThread(), ranOn.get());
+        assertEquals("request-1", requestId.get());
+    }
+
+    @Test
+    @DisplayName("Test a write is refused with SERVER_ERROR when the queue is full")
+    void queueFull() {
+        writeExecutor = writeExecutor(true, 1, 1_000);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ServiceStatus> running = writeExecutor.submit("1", () -> await(release));
+        CompletableFuture<ServiceStatus> queued = writeExecutor.submit("2", () -> ServiceStatus.SUCCESS);
+
+        CompletableFuture<ServiceStatus> refused = writeExecutor.submit("3", () -> ServiceStatus.SUCCESS);
+
+        assertEquals(ServiceStatus.SERVER_ERROR, refused.join());
+        release.countDown();
+        assertEquals(ServiceStatus.SUCCESS, running.join());
+        assertEquals(ServiceStatus.SUCCESS, queued.join());
+    }
+
+    @Test
+    @DisplayName("Test a write that times out returns SERVER_ERROR and is not attempted if still queued")
+    void timeout() {
+        writeExecutor = writeExecutor(true, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean attempted = new AtomicBoolean();
+        CompletableFuture<ServiceStatus> running = writeExecutor.submit("1", () -> await(release));
+        CompletableFuture<ServiceStatus> queued = writeExecutor.submit("2", () -> {
+            attempted.set(true);
+            return ServiceStatus.SUCCESS;
+        });
+
+        assertEquals(ServiceStatus.SERVER_ERROR, running.join());
+        assertEquals(ServiceStatus.SERVER_ERROR, queued.join());
+        release.countDown();
+        writeExecutor.submit("3", () -> ServiceStatus.SUCCESS).join();
+        assertFalse(attempted.get());
+    }
+
+    @Test
+    @DisplayName("Test a write still running when it times out is past its deadline, so it is abandoned")
+    void timeoutFencesRunningWrite() throws InterruptedException {
+        writeExecutor = writeExecutor(true, 1, 50);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch checked = new CountDownLatch(1);
+        AtomicBoolean expired = new AtomicBoolean();
+        CompletableFuture<ServiceStatus> running = writeExecutor.submit("1", () -> {
+            await(release);
+            expired.set(Deadline.isCurrentExpired());
+            checked.countDown();
+            return ServiceStatus.SUCCESS;
+        });
+
+        assertEquals(ServiceStatus.SERVER_ERROR, running.join());
+        release.countDown();
+        checked.await();
+        assertTrue(expired.get());
+    }
+
+    @Test
+    @DisplayName("Test a write runs with the caller's deadline")
+    void deadline() {
+        writeExecutor = writeExecutor(true, 1, 1_000);
+        Deadline.set(Deadline.after(Duration.ofSeconds(10)));
+        AtomicBoolean hasDeadline = new AtomicBoolean();
+
+        writeExecutor.submit("12345678", () -> {
+            hasDeadline.set(Deadline.current().isPresent());
+            return ServiceStatus.SUCCESS;
+        }).join();
+
+        assertTrue(hasDeadline.get());
+    }
+
+    @Test
+    @DisplayName("Test a write whose deadline has passed is not attempted")
+    void deadlinePassed() {
+        writeExecutor = writeExecutor(true, 1, 1_000);
+        Deadline.set(Deadline.after(Duration.ZERO));
+        AtomicBoolean attempted = new AtomicBoolean();
+
+        ServiceStatus status = writeExecutor.submit("12345678", () -> {
+            attempted.set(true);
+            return ServiceStatus.SUCCESS;
+        }).join();
+
+        assertEquals(ServiceStatus.SERVER_ERROR, status);
+        assertFalse(attempted.get());
+    }
+
+    @Test
+    @DisplayName("Test an exception thrown by a write completes the result exceptionally")
+    void exception() {
+        writeExecutor = writeExecutor(true, 1, 1_000);
+
+        CompletableFuture<ServiceStatus> result = writeExecutor.submit("12345678", () -> {
+            throw new DateTimeParseException("Invalid delta_at", "not-a-date", 0);
+        });
+
+        CompletionException ex = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(DateTimeParseException.class, ex.getCause());
+    }
+
+    private static ServiceStatus await(CountDownLatch release) {
+        try {
+            release.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return ServiceStatus.SUCCESS;
+    }
+
+    private static RegistersWriteExecutor writeExecutor(boolean enabled, int queueCapacity, long timeoutMillis) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RegistersWriteExecutor writeExecutor = new RegistersWriteExecutor(enabled, 1, queueCapacity, timeoutMillis,
+                new RequestDeadlines(true, "X-Request-Timeout-Ms", 2_000, 10_000, meterRegistry), meterRegistry);
+        writeExecutor.afterPropertiesSet();
+        return writeExecutor;
+    }
+}
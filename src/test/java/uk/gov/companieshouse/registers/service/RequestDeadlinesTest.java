@@ -0,0 +1,83 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+import uk.gov.companieshouse.registers.service.ConcurrencyLimitFilter.EndpointClass;
+import uk.gov.companieshouse.registers.service.RequestDeadlines.Phase;
+import uk.gov.companieshouse.registers.util.Deadline;
+
+class RequestDeadlinesTest {
+
+    private static final String HEADER = "X-Request-Timeout-Ms";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestDeadlines deadlines = new RequestDeadlines(true, HEADER, 2_000, 10_000, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    @DisplayName("Test the deadline comes from the header, or the endpoint's default when it is missing or invalid")
+    void forRequest() {
+        assertBetween(Duration.ofMillis(250), deadlines.forRequest(EndpointClass.READ, "250").remaining());
+        assertBetween(Duration.ofSeconds(2), deadlines.forRequest(EndpointClass.READ, null).remaining());
+        assertBetween(Duration.ofSeconds(10), deadlines.forRequest(EndpointClass.WRITE, "soon").remaining());
+    }
+
+    @Test
+    @DisplayName("Test a header budget outside 1 ms to the endpoint's default is ignored")
+    void forRequestOutOfRange() {
+        assertBetween(Duration.ofSeconds(2), deadlines.forRequest(EndpointClass.READ, "0").remaining());
+        assertBetween(Duration.ofSeconds(2), deadlines.forRequest(EndpointClass.READ, "-5").remaining());
+        assertBetween(Duration.ofSeconds(2), deadlines.forRequest(EndpointClass.READ, "2001").remaining());
+        assertBetween(Duration.ofSeconds(10),
+                deadlines.forRequest(EndpointClass.WRITE, String.valueOf(Long.MAX_VALUE)).remaining());
+    }
+
+    @Test
+    @DisplayName("Test a request is abandoned once its deadline has passed, counted against the phase")
+    void check() {
+        deadlines.check(Phase.MONGO);
+        Deadline.set(Deadline.after(Duration.ofSeconds(10)));
+        deadlines.check(Phase.MONGO);
+
+        Deadline.set(Deadline.after(Duration.ZERO));
+        assertThrows(DeadlineExceededException.class, () -> deadlines.check(Phase.RESOURCE_CHANGED));
+        assertEquals(1, meterRegistry.counter("registers.deadlines.exceeded", "phase", "resource_changed").count());
+        assertEquals(0, meterRegistry.counter("registers.deadlines.exceeded", "phase", "mongo").count());
+    }
+
+    @Test
+    @DisplayName("Test the filter sets the deadline for the request and clears it afterwards")
+    void filter() throws Exception {
+        DeadlineFilter filter = new DeadlineFilter(deadlines);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/company/12345678/registers");
+        request.addHeader(HEADER, "500");
+        AtomicBoolean hadDeadline = new AtomicBoolean();
+
+        filter.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> hadDeadline.set(Deadline.current().isPresent()));
+
+        assertTrue(hadDeadline.get());
+        assertFalse(Deadline.current().isPresent());
+    }
+
+    private static void assertBetween(Duration expected, Duration remaining) {
+        assertTrue(remaining.compareTo(expected) <= 0);
+        assertTrue(remaining.compareTo(expected.minusSeconds(1)) > 0);
+    }
+}
@@ -0,0 +1,237 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCollection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+
+@ExtendWith(MockitoExtension.class)
+class ResourceChangedOutboxTest {
+
+    private static final String COLLECTION = "company_registers_outbox";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private ObjectProvider<MongoTransactionManager> transactionManagerProvider;
+
+    @Mock
+    private MongoTransactionManager transactionManager;
+
+    @Mock
+    private RegistersApiService registersApiService;
+
+    @Test
+    @DisplayName("Test outbox cannot be enabled without a MongoDB transaction manager")
+    void requiresTransactionManager() {
+        assertThrows(IllegalStateException.class, () -> new ResourceChangedOutbox(true, 200, 30_000, 100, 4, 5,
+                1_000, 300_000, 86_400, mongoTemplate, transactionManagerProvider, registersApiService,
+                new ObjectMapper(), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    @DisplayName("Test delete event is written to the outbox inside the transaction with its deleted data")
+    void writeWithEvent() {
+        ResourceChangedOutbox outbox = outbox();
+        Runnable write = () -> verify(mongoTemplate, never()).insert(any(Document.class), eq(COLLECTION));
+
+        outbox.writeWithEvent(write, new ResourceChangedRequest("12345678", Map.of("etag", "abc"), true));
+
+        ArgumentCaptor<Document> entry = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).insert(entry.capture(), eq(COLLECTION));
+        assertEquals("12345678", entry.getValue().getString("company_number"));
+        assertEquals(true, entry.getValue().getBoolean("deleted"));
+        assertEquals("{\"etag\":\"abc\"}", entry.getValue().getString("deleted_data"));
+        assertEquals("pending", entry.getValue().getString("status"));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Test delete event is built from the removed document inside the transaction")
+    void deleteWithEvent() {
+        ResourceChangedOutbox outbox = outbox();
+
+        Map<String, String> removed = outbox.deleteWithEvent(() -> Map.of("etag", "abc"),
+                data -> new ResourceChangedRequest("12345678", data, true));
+
+        assertEquals(Map.of("etag", "abc"), removed);
+        ArgumentCaptor<Document> entry = ArgumentCaptor.forClass(Document.class);
+        verify(mongoTemplate).insert(entry.capture(), eq(COLLECTION));
+        assertEquals("{\"etag\":\"abc\"}", entry.getValue().getString("deleted_data"));
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Test no event is written when the delete removed nothing")
+    void deleteWithEventNothingRemoved() {
+        ResourceChangedOutbox outbox = outbox();
+
+        Object removed = outbox.deleteWithEvent(() -> null, data -> new ResourceChangedRequest("12345678", data, true));
+
+        assertNull(removed);
+        verify(mongoTemplate, never()).insert(any(Document.class), eq(COLLECTION));
+    }
+
+    @Test
+    @DisplayName("Test relay publishes a company's claimed entries in order and marks them done together")
+    void relayPublishesEntries() {
+        stubClaim(List.of(entry("00000001", 1, List.of("charges")), entry("00000001", 1, List.of("members"))));
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        outbox().relay();
+
+        InOrder inOrder = inOrder(registersApiService);
+        inOrder.verify(registersApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest("00000001", null, false, List.of("charges")));
+        inOrder.verify(registersApiService).invokeChsKafkaApi(
+                new ResourceChangedRequest("00000001", null, false, List.of("members")));
+        // one update claims the batch and one marks it done
+        verify(collection, times(2)).updateMany(any(Bson.class), any(Bson.class));
+        verify(collection, never()).updateOne(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    @DisplayName("Test relay stops a company's entries at the first that fails, and hands back the rest")
+    void relayStopsOnFailure() {
+        stubClaim(List.of(entry("00000001", 1), entry("00000001", 1)));
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SERVER_ERROR);
+
+        outbox().relay();
+
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest("00000001", null, false));
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).updateOne(any(Bson.class), update.capture());
+        assertTrue(update.getValue().toBsonDocument().getDocument("$set").containsKey("lease_until"));
+        // one update claims the batch and one hands back the entry that was not attempted
+        verify(collection, times(2)).updateMany(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    @DisplayName("Test a failing company does not hold up other companies' entries")
+    void relayContinuesOtherCompanies() {
+        stubClaim(List.of(entry("00000001", 1), entry("00000002", 1)));
+        when(registersApiService.invokeChsKafkaApi(new ResourceChangedRequest("00000001", null, false)))
+                .thenReturn(ServiceStatus.SERVER_ERROR);
+        when(registersApiService.invokeChsKafkaApi(new ResourceChangedRequest("00000002", null, false)))
+                .thenReturn(ServiceStatus.SUCCESS);
+
+        outbox().relay();
+
+        verify(registersApiService).invokeChsKafkaApi(new ResourceChangedRequest("00000002", null, false));
+        verify(collection).updateOne(any(Bson.class), any(Bson.class));
+        // one update claims the batch and one marks the other company's entry done
+        verify(collection, times(2)).updateMany(any(Bson.class), any(Bson.class));
+    }
+
+    @Test
+    @DisplayName("Test entries are not claimed after an earlier entry of the same company that is backing off")
+    void claimSkipsCompaniesBehindBackedOffEntry() {
+        Document backingOff = entry("00000001", 2).append("created_at", new Date(0));
+        Document blocked = entry("00000001", 1);
+        Document free = entry("00000002", 1);
+        stubClaim(List.of(blocked, free), List.of(backingOff));
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+
+        outbox().relay();
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(collection, times(2)).updateMany(filter.capture(), any(Bson.class));
+        String claimed = filter.getAllValues().getFirst().toBsonDocument().toJson();
+        assertTrue(claimed.contains(free.getObjectId("_id").toHexString()));
+        assertFalse(claimed.contains(blocked.getObjectId("_id").toHexString()));
+    }
+
+    @Test
+    @DisplayName("Test an entry that has used up its attempts is moved to failed")
+    void relayFailsExhaustedEntry() {
+        stubClaim(List.of(entry("00000001", 5)));
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SERVER_ERROR);
+
+        outbox().relay();
+
+        ArgumentCaptor<Bson> update = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).updateOne(any(Bson.class), update.capture());
+        assertEquals("failed", update.getValue().toBsonDocument().getDocument("$set").getString("status")
+                .getValue());
+    }
+
+    private void stubClaim(List<Document> claimed) {
+        stubClaim(claimed, List.of());
+    }
+
+    private void stubClaim(List<Document> candidates, List<Document> backingOff) {
+        when(mongoTemplate.getCollection(COLLECTION)).thenReturn(collection);
+        when(collection.find(any(Bson.class)).projection(any(Bson.class)).sort(any(Bson.class)).limit(anyInt())
+                .into(any())).thenReturn(new ArrayList<>(candidates));
+        when(collection.find(any(Bson.class)).projection(any(Bson.class)).into(any()))
+                .thenReturn(new ArrayList<>(backingOff));
+        when(collection.find(any(Bson.class)).sort(any(Bson.class)).into(any())).thenAnswer(invocation ->
+                candidates.stream()
+                        .filter(entry -> backingOff.stream().noneMatch(blocked ->
+                                blocked.getString("company_number").equals(entry.getString("company_number"))))
+                        .collect(Collectors.toCollection(ArrayList::new)));
+        when(collection.find(any(Bson.class)).sort(any(Bson.class)).limit(1).first()).thenReturn(null);
+    }
+
+    private ResourceChangedOutbox outbox() {
+        when(transactionManagerProvider.getIfAvailable()).thenReturn(transactionManager);
+        return new ResourceChangedOutbox(true, 200, 30_000, 100, 4, 5, 1_000, 300_000, 86_400, mongoTemplate,
+                transactionManagerProvider, registersApiService, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    private static Document entry(String companyNumber, int attempts) {
+        return entry(companyNumber, attempts, null);
+    }
+
+    private static Document entry(String companyNumber, int attempts, List<String> fieldsChanged) {
+        Document entry = new Document("_id", new ObjectId())
+                .append("attempts", attempts)
+                .append("company_number", companyNumber)
+                .append("deleted", false)
+                .append("request_id", "request-id")
+                .append("status", "pending")
+                .append("created_at", new Date());
+        if (fieldsChanged != null) {
+            entry.append("fields_changed", fieldsChanged);
+        }
+        return entry;
+    }
+}
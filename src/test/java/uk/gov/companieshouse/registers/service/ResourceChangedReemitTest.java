@@ -0,0 +1,138 @@
+package uk.gov.companieshouse.registers.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import uk.gov.companieshouse.registers.model.ResourceChangedRequest;
+import uk.gov.companieshouse.registers.model.ServiceStatus;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.Progress;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.ReemitFilter;
+import uk.gov.companieshouse.registers.service.ResourceChangedReemit.Status;
+
+@ExtendWith(MockitoExtension.class)
+class ResourceChangedReemitTest {
+
+    private static final ReemitFilter ALL = new ReemitFilter(null, null, null);
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MongoCollection<Document> registers;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MongoCollection<Document> checkpoints;
+
+    @Mock
+    private MongoCursor<Document> cursor;
+
+    @Mock
+    private RegistersApiService registersApiService;
+
+    @Test
+    @DisplayName("Test every matching company is re-emitted and checkpointed a page at a time")
+    void reemit() throws InterruptedException {
+        when(mongoTemplate.getCollection("company_registers")).thenReturn(registers);
+        when(mongoTemplate.getCollection("company_registers_reemit_checkpoints")).thenReturn(checkpoints);
+        when(registers.find(any(Bson.class)).projection(any()).sort(any()).batchSize(anyInt()).iterator())
+                .thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, true, true, false);
+        when(cursor.next()).thenReturn(new Document("_id", "00000001"), new Document("_id", "00000002"),
+                new Document("_id", "00000003"));
+        when(registersApiService.invokeChsKafkaApi(any())).thenReturn(ServiceStatus.SUCCESS);
+        when(registersApiService.invokeChsKafkaApi(new ResourceChangedRequest("00000002", null, false)))
+                .thenReturn(ServiceStatus.SERVER_ERROR);
+        ResourceChangedReemit reemit = reemit();
+
+        reemit.start(ALL, false);
+        reemit.awaitCompletion();
+
+        Progress progress = reemit.progress();
+        assertEquals(Status.COMPLETED, progress.status());
+        assertEquals(2, progress.emitted());
+        assertEquals(1, progress.failed());
+        assertEquals("00000003", progress.lastCompanyNumber());
+        ArgumentCaptor<Document> checkpoint = ArgumentCaptor.forClass(Document.class);
+        // one per page of two, then the final one
+        verify(checkpoints, times(3)).replaceOne(any(Bson.class), checkpoint.capture(), any(ReplaceOptions.class));
+        assertEquals("00000002", checkpoint.getAllValues().getFirst().getString("last_company_number"));
+        assertEquals("COMPLETED", checkpoint.getValue().getString("status"));
+    }
+
+    @Test
+    @DisplayName("Test a resumed job carries on after the checkpointed company with the checkpointed filter")
+    void resume() throws InterruptedException {
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        when(mongoTemplate.getCollection("company_registers")).thenReturn(registers);
+        when(mongoTemplate.getCollection("company_registers_reemit_checkpoints")).thenReturn(checkpoints);
+        when(checkpoints.find(any(Bson.class)).first()).thenReturn(new Document("_id", "reemit")
+                .append("job_id", "job-1")
+                .append("status", "CANCELLED")
+                .append("updated_from", Date.from(from))
+                .append("company_number_prefix", "SC")
+                .append("last_company_number", "SC000010")
+                .append("emitted", 10L)
+                .append("failed", 0L)
+                .append("started_at", new Date()));
+        when(registers.find(any(Bson.class)).projection(any()).sort(any()).batchSize(anyInt()).iterator())
+                .thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(false);
+        ResourceChangedReemit reemit = reemit();
+
+        Progress started = reemit.start(ALL, true);
+        reemit.awaitCompletion();
+
+        assertEquals("job-1", started.jobId());
+        assertEquals(new ReemitFilter(from, null, "SC"), started.filter());
+        assertEquals(10, reemit.progress().emitted());
+        ArgumentCaptor<Bson> query = ArgumentCaptor.forClass(Bson.class);
+        verify(registers, atLeastOnce()).find(query.capture());
+        assertEquals(ResourceChangedReemit.toBson(new ReemitFilter(from, null, "SC"), "SC000010").toBsonDocument(),
+                query.getValue().toBsonDocument());
+    }
+
+    @Test
+    @DisplayName("Test the filter selects live documents by company number range and updated.at range")
+    void toBson() {
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        Instant to = Instant.parse("2024-02-01T00:00:00Z");
+
+        BsonDocument filter = ResourceChangedReemit.toBson(new ReemitFilter(from, to, "SC"), "SC000010")
+                .toBsonDocument();
+
+        assertEquals(Filters.and(List.of(Filters.exists("tombstoned_at", false), Filters.gte("_id", "SC"), Filters.lt("_id", "SC" + Character.MAX_VALUE),
+                        Filters.gt("_id", "SC000010"), Filters.gte("updated.at", Date.from(from)),
+                        Filters.lt("updated.at", Date.from(to)))).toBsonDocument(), filter);
+        assertEquals(Filters.and(List.of(Filters.exists("tombstoned_at", false))).toBsonDocument(),
+                ResourceChangedReemit.toBson(ALL, null).toBsonDocument());
+    }
+
+    private ResourceChangedReemit reemit() {
+        return new ResourceChangedReemit(mongoTemplate, registersApiService, 2, 1_000, 2,
+                new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,108 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+    @Test
+    @DisplayName("Test requests over the limit are refused until one is released")
+    void refusesOverLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 1.5, 0.2, 600);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        limit.release(FAST, false);
+
+        assertTrue(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Test the limit grows while latency holds steady and the limit is in use")
+    void growsAtSteadyLatency() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 1.5, 0.2, 600);
+
+        saturate(limit, FAST, 20);
+
+        assertTrue(limit.getLimit() > 10);
+    }
+
+    @Test
+    @DisplayName("Test the limit shrinks as queueing pushes latency up")
+    void shrinksAsLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 100, 1.5, 0.2, 600);
+        saturate(limit, FAST, 20);
+        int steady = limit.getLimit();
+
+        saturate(limit, SLOW, 5);
+
+        assertTrue(limit.getLimit() < steady);
+        assertTrue(limit.retryAfterSeconds() >= 1);
+    }
+
+    @Test
+    @DisplayName("Test the limit does not grow while most of it is unused")
+    void doesNotGrowWhenUnused() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 1, 100, 1.5, 0.2, 600);
+
+        for (int i = 0; i < 100; i++) {
+            limit.tryAcquire();
+            limit.release(FAST, false);
+        }
+
+        assertEquals(20, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Test a failed request cuts the limit, but not below the minimum")
+    void backsOffOnFailure() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 17, 100, 1.5, 0.2, 600);
+
+        limit.tryAcquire();
+        limit.release(FAST, true);
+        assertEquals(18, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.release(FAST, true);
+        assertEquals(17, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Test Retry-After follows the current latency plus its queueing delay")
+    void retryAfter() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 1.5, 0.2, 600);
+        assertEquals(1, limit.retryAfterSeconds());
+
+        limit.tryAcquire();
+        limit.release(Duration.ofSeconds(1).toNanos(), false);
+        for (int i = 0; i < 20; i++) {
+            limit.tryAcquire();
+            limit.release(Duration.ofSeconds(3).toNanos(), false);
+        }
+
+        assertTrue(limit.retryAfterSeconds() >= 4);
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int acquired = 0;
+            while (limit.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limit.release(rttNanos, false);
+            }
+        }
+    }
+}
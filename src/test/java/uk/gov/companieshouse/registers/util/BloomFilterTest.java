@@ -0,0 +1,72 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Test every added key is reported as possibly present")
+    void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("%08d".formatted(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("%08d".formatted(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Test false positive rate stays close to the configured probability")
+    void falsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("%08d".formatted(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain("%08d".formatted(i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives / 100_000.0 < 0.02);
+        assertTrue(filter.expectedFalsePositiveProbability() < 0.02);
+    }
+
+    @Test
+    @DisplayName("Test put reports whether the key was new")
+    void putReportsChange() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertTrue(filter.put("12345678"));
+        assertFalse(filter.put("12345678"));
+        assertFalse(filter.mightContain("87654321"));
+    }
+
+    @Test
+    @DisplayName("Test filter is sized from expected insertions and probability")
+    void sizing() {
+        BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+        // ~9.59 bits per key for 1% false positives
+        assertEquals(1_198_136L, filter.sizeInBytes());
+        assertEquals(7, filter.getHashFunctions());
+    }
+
+    @Test
+    @DisplayName("Test invalid sizing is rejected")
+    void invalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1));
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.client.MongoDatabase;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+
+class DeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    @DisplayName("Test a timeout is shortened to the time left, but never below a millisecond")
+    void bound() {
+        Deadline deadline = Deadline.after(Duration.ofSeconds(1));
+        Deadline expired = Deadline.after(Duration.ZERO);
+
+        assertEquals(Duration.ofMillis(100), deadline.bound(Duration.ofMillis(100)));
+        assertTrue(deadline.bound(Duration.ofSeconds(5)).compareTo(Duration.ofSeconds(1)) <= 0);
+        assertEquals(Duration.ofMillis(1), expired.bound(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    @DisplayName("Test the current deadline is only expired once it has passed")
+    void currentExpired() {
+        assertFalse(Deadline.isCurrentExpired());
+
+        Deadline.set(Deadline.after(Duration.ofSeconds(10)));
+        assertFalse(Deadline.isCurrentExpired());
+
+        Deadline.set(Deadline.after(Duration.ZERO));
+        assertTrue(Deadline.isCurrentExpired());
+    }
+
+    @Test
+    @DisplayName("Test work run without the deadline sees none, and the deadline is put back afterwards")
+    void withoutDeadline() {
+        Deadline deadline = Deadline.after(Duration.ZERO);
+        Deadline.set(deadline);
+
+        boolean hadDeadline = Deadline.withoutDeadline(() -> Deadline.current().isPresent());
+
+        assertFalse(hadDeadline);
+        assertSame(deadline, Deadline.current().orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Test work run under another deadline sees it, and the thread's own deadline is put back afterwards")
+    void withDeadline() {
+        Deadline own = Deadline.after(Duration.ZERO);
+        Deadline other = Deadline.after(Duration.ofSeconds(10));
+        Deadline.set(own);
+
+        Deadline seen = Deadline.withDeadline(other, () -> Deadline.current().orElseThrow());
+
+        assertSame(other, seen);
+        assertSame(own, Deadline.current().orElseThrow());
+        assertTrue(other.isAfter(own));
+        assertFalse(own.isAfter(other));
+    }
+
+    @Test
+    @DisplayName("Test MongoDB operations get the time left as their timeout only while there is a deadline")
+    void mongoDatabaseFactory() {
+        MongoDatabaseFactory delegate = mock(MongoDatabaseFactory.class);
+        MongoDatabase database = mock(MongoDatabase.class);
+        MongoDatabase bounded = mock(MongoDatabase.class);
+        when(delegate.getMongoDatabase()).thenReturn(database);
+        when(database.withTimeout(anyLong(), eq(TimeUnit.MILLISECONDS))).thenReturn(bounded);
+        DeadlineMongoDatabaseFactory factory = new DeadlineMongoDatabaseFactory(delegate);
+
+        assertSame(database, factory.getMongoDatabase());
+        verifyNoInteractions(bounded);
+
+        Deadline.set(Deadline.after(Duration.ZERO));
+        assertSame(bounded, factory.getMongoDatabase());
+        verify(database).withTimeout(1, TimeUnit.MILLISECONDS);
+    }
+}
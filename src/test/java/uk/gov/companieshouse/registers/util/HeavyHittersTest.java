@@ -0,0 +1,78 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class HeavyHittersTest {
+
+    @Test
+    @DisplayName("Test count-min sketch never under-counts")
+    void sketchEstimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.increment("%08d".formatted(i % 500));
+        }
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(sketch.estimate("%08d".formatted(i)) >= 20);
+        }
+    }
+
+    @Test
+    @DisplayName("Test count-min sketch decay halves counts")
+    void sketchDecay() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("12345678");
+        }
+
+        sketch.decay();
+
+        assertEquals(5, sketch.estimate("12345678"));
+    }
+
+    @Test
+    @DisplayName("Test the hottest keys are reported highest first")
+    void topKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(3, 4, 4096);
+        for (int i = 0; i < 100_000; i++) {
+            heavyHitters.record("%08d".formatted(i % 5_000));
+            if (i % 10 == 0) {
+                heavyHitters.record("HOT00001");
+            }
+            if (i % 20 == 0) {
+                heavyHitters.record("HOT00002");
+            }
+            if (i % 40 == 0) {
+                heavyHitters.record("HOT00003");
+            }
+        }
+
+        List<Map.Entry<String, Long>> top = heavyHitters.top();
+
+        assertEquals(List.of("HOT00001", "HOT00002", "HOT00003"), top.stream().map(Map.Entry::getKey).toList());
+        assertTrue(top.get(0).getValue() >= 10_000);
+    }
+
+    @Test
+    @DisplayName("Test decay lets a new hot key displace an old one")
+    void decayDisplacesOldKeys() {
+        HeavyHitters heavyHitters = new HeavyHitters(1, 4, 4096);
+        for (int i = 0; i < 1_000; i++) {
+            heavyHitters.record("OLD00001");
+        }
+        for (int i = 0; i < 10; i++) {
+            heavyHitters.decay();
+        }
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("NEW00001");
+        }
+
+        assertEquals("NEW00001", heavyHitters.top().get(0).getKey());
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LongWatermarkMapTest {
+
+    @Test
+    @DisplayName("Test advance only ever raises the stored value")
+    void advanceIsMonotonic() {
+        LongWatermarkMap map = new LongWatermarkMap();
+
+        map.advance(42, 100);
+        map.advance(42, 50);
+        assertEquals(100, map.get(42));
+
+        map.advance(42, 150);
+        assertEquals(150, map.get(42));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @DisplayName("Test missing and removed keys report MISSING")
+    void missingKeys() {
+        LongWatermarkMap map = new LongWatermarkMap();
+        map.advance(7, 1);
+
+        map.remove(7);
+        map.remove(8);
+
+        assertEquals(LongWatermarkMap.MISSING, map.get(7));
+        assertEquals(LongWatermarkMap.MISSING, map.get(0));
+        assertEquals(0, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.advance(0, 1));
+    }
+
+    @Test
+    @DisplayName("Test map agrees with a HashMap across resizes and deletes")
+    void matchesHashMap() {
+        LongWatermarkMap map = new LongWatermarkMap();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(1);
+
+        for (int i = 0; i < 500_000; i++) {
+            long key = 1 + random.nextInt(200_000);
+            if (random.nextInt(4) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                long value = random.nextInt(1_000_000);
+                map.advance(key, value);
+                expected.merge(key, value, Math::max);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 1; key <= 200_000; key++) {
+            assertEquals(expected.getOrDefault(key, LongWatermarkMap.MISSING), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package uk.gov.companieshouse.registers.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Compares a client built per call, as the SDK path does, with the shared pooled client, against a local stub
+ * chs-kafka-api. Run with -Dbenchmark=true.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PooledApiClientBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int POSTS_PER_THREAD = 500;
+    private static final Map<String, String> BODY = Map.of("resource_uri", "company/12345678/registers",
+            "resource_kind", "registers");
+
+    @Test
+    @DisplayName("Benchmark per-call against pooled client throughput")
+    void benchmark() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/private/resource-changed", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(THREADS));
+        server.start();
+        String basePath = "http://localhost:" + server.getAddress().getPort();
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            run("per-call", () -> client(basePath, objectMapper).post("/private/resource-changed", BODY, "id"));
+            PooledApiClient pooled = client(basePath, objectMapper);
+            run("pooled", () -> pooled.post("/private/resource-changed", BODY, "id"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static PooledApiClient client(String basePath, ObjectMapper objectMapper) {
+        return new PooledApiClient(basePath, "key", Duration.ofSeconds(2), Duration.ofSeconds(5), THREADS,
+                objectMapper);
+    }
+
+    private static void run(String name, Callable<Integer> post) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < POSTS_PER_THREAD; i++) {
+                        post.call();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %.0f posts/s%n", name, THREADS * POSTS_PER_THREAD / seconds);
+    }
+}
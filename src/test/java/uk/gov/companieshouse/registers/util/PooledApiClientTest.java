@@ -0,0 +1,126 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class PooledApiClientTest {
+
+    private HttpServer server;
+    private String basePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        basePath = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Test post sends the body as JSON with the API key and request id headers")
+    void post() throws Exception {
+        AtomicReference<String> authorization = new AtomicReference<>();
+        AtomicReference<String> requestId = new AtomicReference<>();
+        AtomicReference<String> body = new AtomicReference<>();
+        server.createContext("/private/resource-changed", exchange -> {
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            requestId.set(exchange.getRequestHeaders().getFirst("X-Request-Id"));
+            body.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        PooledApiClient client = new PooledApiClient(basePath, "key", Duration.ofSeconds(1), Duration.ofSeconds(1),
+                2, new ObjectMapper());
+
+        int statusCode = client.post("/private/resource-changed", Map.of("resource_kind", "registers"),
+                "request-id");
+
+        assertEquals(200, statusCode);
+        assertEquals("Basic a2V5Og==", authorization.get());
+        assertEquals("request-id", requestId.get());
+        assertEquals("{\"resource_kind\":\"registers\"}", body.get());
+        assertEquals(0, client.getInUse());
+    }
+
+    @Test
+    @DisplayName("Test post times out when the server does not respond within the read timeout")
+    void readTimeout() {
+        server.createContext("/private/resource-changed", exchange -> {
+            try {
+                Thread.sleep(1_000);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        PooledApiClient client = new PooledApiClient(basePath, "key", Duration.ofSeconds(1), Duration.ofMillis(50),
+                2, new ObjectMapper());
+
+        assertThrows(HttpTimeoutException.class,
+                () -> client.post("/private/resource-changed", Map.of(), "request-id"));
+        assertEquals(0, client.getInUse());
+    }
+
+    @Test
+    @DisplayName("Test post fails fast when no connection is free before the deadline")
+    void connectionWaitBoundedByDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/private/resource-changed", exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        PooledApiClient client = new PooledApiClient(basePath, "key", Duration.ofSeconds(1), Duration.ofSeconds(5),
+                1, new ObjectMapper());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Integer> holding = executor.submit(() -> client.post("/private/resource-changed", Map.of(),
+                    "request-id"));
+            while (client.getInUse() == 0) {
+                Thread.onSpinWait();
+            }
+
+            Deadline.set(Deadline.after(Duration.ofMillis(50)));
+            long start = System.nanoTime();
+            assertThrows(HttpTimeoutException.class,
+                    () -> client.post("/private/resource-changed", Map.of(), "request-id"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+            release.countDown();
+            assertEquals(200, holding.get(5, TimeUnit.SECONDS));
+        } finally {
+            Deadline.clear();
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
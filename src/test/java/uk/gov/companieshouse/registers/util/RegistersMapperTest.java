@@ -123,6 +123,46 @@ public class RegistersMapperTest {
                 - document.getUpdated().at().toEpochSecond(ZoneOffset.MIN) < 2);
     }
 
+    @Test
+    @DisplayName("Test should list every section in the delta as changed when there is no existing document")
+    public void changedSectionsInsert() {
+        // When
+        List<String> changed = mapper.changedSections(null, getExistingRegisters());
+
+        // Then
+        assertEquals(List.of("directors", "secretaries", "members", "usual_residential_address", "llp_members",
+                "llp_usual_residential_address"), changed);
+    }
+
+    @Test
+    @DisplayName("Test should list only the delta sections that differ from the existing document")
+    public void changedSectionsUpdate() {
+        // Given
+        CompanyRegistersDocument existingDocument = new CompanyRegistersDocument()
+                .setData(new CompanyRegister().registers(getExistingRegisters()));
+        Registers delta = getDeltaRegisters().members(getExistingRegisters().getMembers());
+
+        // When
+        List<String> changed = mapper.changedSections(existingDocument, delta);
+
+        // Then
+        assertEquals(List.of("directors"), changed);
+    }
+
+    @Test
+    @DisplayName("Test should list no sections when the delta matches the existing document")
+    public void changedSectionsUnchanged() {
+        // Given
+        CompanyRegistersDocument existingDocument = new CompanyRegistersDocument()
+                .setData(new CompanyRegister().registers(getExistingRegisters()));
+
+        // When
+        List<String> changed = mapper.changedSections(existingDocument, getExistingRegisters());
+
+        // Then
+        assertTrue(changed.isEmpty());
+    }
+
     private Registers getDeltaRegisters() {
         List<RegisteredItems> items = new ArrayList<RegisteredItems>();
         items.add(new RegisteredItems(DATE, UNSPECIFIED_LOCATION));
@@ -0,0 +1,108 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RegistersSnapshotTest {
+
+    private static final Instant CREATED_AT = Instant.parse("2024-03-01T10:15:30Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("Test snapshot entries can be looked up by company number")
+    void writeAndFind() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (RegistersSnapshotWriter writer = new RegistersSnapshotWriter(path, CREATED_AT)) {
+            writer.add("00000001", body("{\"a\":1}"));
+            writer.add("12345678", body("{\"b\":2}"));
+            writer.add("SC123456", body("{\"c\":3}"));
+            writer.commit();
+        }
+
+        RegistersSnapshot snapshot = RegistersSnapshot.open(path);
+
+        assertEquals(3, snapshot.size());
+        assertEquals(CREATED_AT, snapshot.getCreatedAt());
+        assertEquals("{\"b\":2}", text(snapshot.find("12345678").orElseThrow()));
+        assertEquals("{\"c\":3}", text(snapshot.find("SC123456").orElseThrow()));
+        assertTrue(snapshot.find("1234567").isEmpty());
+        assertTrue(snapshot.find("99999999").isEmpty());
+        assertTrue(snapshot.find("00000001234567890").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Test lookups are read-only slices of the mapping")
+    void findReturnsReadOnlySlice() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (RegistersSnapshotWriter writer = new RegistersSnapshotWriter(path, CREATED_AT)) {
+            writer.add("12345678", body("{}"));
+            writer.commit();
+        }
+
+        ByteBuffer found = RegistersSnapshot.open(path).find("12345678").orElseThrow();
+
+        assertTrue(found.isReadOnly());
+        assertTrue(found.isDirect());
+    }
+
+    @Test
+    @DisplayName("Test entries are visited in company number order")
+    void forEachInOrder() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (RegistersSnapshotWriter writer = new RegistersSnapshotWriter(path, CREATED_AT)) {
+            writer.add("00000001", body("1"));
+            writer.add("00000002", body("2"));
+            writer.commit();
+        }
+        List<String> visited = new ArrayList<>();
+
+        RegistersSnapshot.open(path).forEach((companyNumber, body) -> visited.add(companyNumber + "=" + text(body)));
+
+        assertEquals(List.of("00000001=1", "00000002=2"), visited);
+    }
+
+    @Test
+    @DisplayName("Test out of order entries are rejected and an uncommitted file is discarded")
+    void rejectsOutOfOrderEntries() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (RegistersSnapshotWriter writer = new RegistersSnapshotWriter(path, CREATED_AT)) {
+            writer.add("00000002", body("{}"));
+            assertThrows(IllegalArgumentException.class, () -> writer.add("00000001", body("{}")));
+        }
+
+        assertFalse(Files.exists(path));
+        assertFalse(Files.exists(directory.resolve("snapshot.bin.tmp")));
+    }
+
+    @Test
+    @DisplayName("Test non-snapshot files are rejected")
+    void rejectsOtherFiles() throws IOException {
+        Path path = Files.writeString(directory.resolve("other.bin"), "not a snapshot file at all, honestly");
+
+        assertThrows(IllegalArgumentException.class, () -> RegistersSnapshot.open(path));
+    }
+
+    private static ByteBuffer body(String json) {
+        return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+}
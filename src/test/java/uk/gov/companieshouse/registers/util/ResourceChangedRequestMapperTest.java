@@ -7,6 +7,7 @@ import static org.mockito.Mockito.when;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Instant;
+import java.util.List;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
@@ -70,6 +71,16 @@ class ResourceChangedRequestMapperTest {
                         .withEventType("changed")
                         .withEventPublishedAt(DATE_STRING)
                         .build(),
+                ResourceChangedTestArgument.builder()
+                        .withRequest(new ResourceChangedRequest("12345678", null, false,
+                                List.of("directors", "llp_members")))
+                        .withContextId(EXPECTED_CONTEXT_ID)
+                        .withResourceUri("company/12345678/registers")
+                        .withResourceKind("registers")
+                        .withEventType("changed")
+                        .withFieldsChanged(List.of("directors", "llp_members"))
+                        .withEventPublishedAt(DATE_STRING)
+                        .build(),
                 ResourceChangedTestArgument.builder()
                         .withRequest(new ResourceChangedRequest("12345678", null, null))
                         .withContextId(EXPECTED_CONTEXT_ID)
@@ -110,6 +121,7 @@ class ResourceChangedRequestMapperTest {
         private String eventType;
         private String eventPublishedAt;
         private Object deletedData;
+        private List<String> fieldsChanged;
 
         public ResourceChangedTestArgumentBuilder withRequest(ResourceChangedRequest request) {
             this.request = request;
@@ -141,6 +153,11 @@ class ResourceChangedRequestMapperTest {
             return this;
         }
 
+        public ResourceChangedTestArgumentBuilder withFieldsChanged(List<String> fieldsChanged) {
+            this.fieldsChanged = fieldsChanged;
+            return this;
+        }
+
         public ResourceChangedTestArgumentBuilder withDeletedData(Object deletedData) {
             this.deletedData = deletedData;
             return this;
@@ -154,6 +171,9 @@ class ResourceChangedRequestMapperTest {
             ChangedResourceEvent event = new ChangedResourceEvent();
             event.setType(this.eventType);
             event.setPublishedAt(this.eventPublishedAt);
+            if (this.fieldsChanged != null) {
+                event.setFieldsChanged(this.fieldsChanged);
+            }
             changedResource.setEvent(event);
             changedResource.setDeletedData(deletedData);
             return new ResourceChangedTestArgument(this.request, changedResource);
@@ -0,0 +1,152 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import uk.gov.companieshouse.registers.exception.DeadlineExceededException;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+
+    @AfterEach
+    void tearDown() {
+        Deadline.clear();
+    }
+
+    @Test
+    @DisplayName("Test concurrent calls for the same key share one execution")
+    void coalescesConcurrentCalls() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object result = new Object();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> singleFlight.execute("12345678", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return result;
+                })));
+            }
+            while (singleFlight.executedCount() + singleFlight.joinedCount() < 8) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<Object> future : futures) {
+                assertSame(result, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(1, singleFlight.executedCount());
+        assertEquals(7, singleFlight.joinedCount());
+        assertEquals(0.875, singleFlight.collapseRatio());
+    }
+
+    @Test
+    @DisplayName("Test sequential calls are not cached")
+    void doesNotCacheCompletedCalls() {
+        AtomicInteger executions = new AtomicInteger();
+
+        singleFlight.execute("12345678", executions::incrementAndGet);
+        singleFlight.execute("12345678", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, singleFlight.collapseRatio());
+    }
+
+    @Test
+    @DisplayName("Test exceptions propagate to the caller and do not poison the key")
+    void propagatesExceptions() {
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("12345678", () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals("ok", singleFlight.execute("12345678", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Test a joining caller waits no longer than its own deadline")
+    void joinerBoundedByDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(() -> singleFlight.execute("12345678", () -> {
+                await(release);
+                return "ok";
+            }));
+            while (singleFlight.executedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            Deadline.set(Deadline.after(Duration.ofMillis(50)));
+
+            assertThrows(DeadlineExceededException.class, () -> singleFlight.execute("12345678", () -> "joiner"));
+
+            release.countDown();
+            assertEquals("ok", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Test a failure caused by the leader's deadline is not passed on to a joiner with time left")
+    void leaderDeadlineNotSharedWithJoiners() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Object> leader = executor.submit(() -> {
+                Deadline.set(Deadline.after(Duration.ZERO));
+                try {
+                    return singleFlight.execute("12345678", () -> {
+                        while (singleFlight.joinedCount() < 1) {
+                            Thread.onSpinWait();
+                        }
+                        throw new IllegalStateException("operation exceeded its timeout");
+                    });
+                } finally {
+                    Deadline.clear();
+                }
+            });
+            while (singleFlight.executedCount() < 1) {
+                Thread.onSpinWait();
+            }
+            Deadline.set(Deadline.after(Duration.ofSeconds(5)));
+
+            assertEquals("joiner", singleFlight.execute("12345678", () -> "joiner"));
+
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, ex.getCause());
+            assertEquals(2, singleFlight.executedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
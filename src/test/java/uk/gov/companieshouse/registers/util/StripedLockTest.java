@@ -0,0 +1,39 @@
+package uk.gov.companieshouse.registers.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class StripedLockTest {
+
+    @Test
+    @DisplayName("Test the stripe count is rounded up to a power of two")
+    void size() {
+        assertEquals(1, new StripedLock(1).size());
+        assertEquals(64, new StripedLock(64).size());
+        assertEquals(128, new StripedLock(65).size());
+        assertThrows(IllegalArgumentException.class, () -> new StripedLock(0));
+    }
+
+    @Test
+    @DisplayName("Test a key always maps to the same stripe and company numbers spread across the stripes")
+    void stripes() {
+        StripedLock locks = new StripedLock(64);
+        Set<ReentrantLock> used = new HashSet<>();
+
+        for (int i = 0; i < 1_000; i++) {
+            String companyNumber = "%08d".formatted(i);
+            assertSame(locks.get(companyNumber), locks.get(companyNumber));
+            used.add(locks.get(companyNumber));
+        }
+
+        assertTrue(used.size() > 60);
+    }
+}